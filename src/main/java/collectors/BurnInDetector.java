@@ -0,0 +1,111 @@
+package collectors;
+
+import housing.Config;
+import housing.Model;
+
+/**************************************************************************************************
+ * Class to detect online the end of the burn-in period of a simulation, that is, the time step from
+ * which the key aggregate series of the model (house price index, population, number of renters and
+ * expected rental flow yield) have settled. The last BURN_IN_WINDOW values of each series are kept
+ * and, at every time step, the older and the newer half of this window are compared. A series is
+ * considered stationary if the difference between the means of both halves is within
+ * BURN_IN_MAX_DRIFT times their pooled standard deviation, and the ratio between their variances is
+ * within BURN_IN_MAX_VARIANCE_RATIO. Once all series pass both tests at the same time step, the
+ * simulation is considered stationary for the rest of the run.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class BurnInDetector {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    N_SERIES = 4;
+
+    private Config              config = Model.config; // Passes the Model's configuration parameters object to a private field
+    private double [][]         window; // Ring buffer with the last BURN_IN_WINDOW values of each series
+    private int                 nValues; // Number of values recorded so far in the current simulation
+    private int                 timeStationary; // First time step at which all series were stationary, -1 if not yet
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public BurnInDetector() {
+        window = new double[N_SERIES][2*(config.BURN_IN_WINDOW/2)];
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public void init() {
+        nValues = 0;
+        timeStationary = -1;
+    }
+
+    /**
+     * Record the current values of the key series and, if not yet stationary, test whether they have settled. To be
+     * called once per time step, after all statistics have been recorded
+     */
+    public void step() {
+        int i = nValues%window[0].length;
+        window[0][i] = Model.housingMarketStats.getHPI();
+        window[1][i] = Model.households.size();
+        window[2][i] = Model.householdStats.getnRenting();
+        window[3][i] = Model.rentalMarketStats.getExpAvFlowYield();
+        nValues++;
+        if (timeStationary < 0 && nValues >= window[0].length) {
+            boolean allStationary = true;
+            for (int s = 0; s < N_SERIES && allStationary; s++) allStationary = isStationary(window[s]);
+            if (allStationary) timeStationary = Model.getTime();
+        }
+    }
+
+    /**
+     * Compare the older and the newer half of the window of a series, whose oldest value is at the position of the
+     * next value to be recorded
+     */
+    private boolean isStationary(double [] series) {
+        int halfLength = series.length/2;
+        int first = nValues%series.length;
+        double sumOld = 0.0, sumNew = 0.0;
+        for (int k = 0; k < halfLength; k++) {
+            sumOld += series[(first + k)%series.length];
+            sumNew += series[(first + halfLength + k)%series.length];
+        }
+        double meanOld = sumOld/halfLength;
+        double meanNew = sumNew/halfLength;
+        double varOld = 0.0, varNew = 0.0;
+        for (int k = 0; k < halfLength; k++) {
+            varOld += Math.pow(series[(first + k)%series.length] - meanOld, 2);
+            varNew += Math.pow(series[(first + halfLength + k)%series.length] - meanNew, 2);
+        }
+        varOld /= halfLength - 1;
+        varNew /= halfLength - 1;
+        // Drift test, with constant halves passing only if equal
+        double pooledSD = Math.sqrt((varOld + varNew)/2.0);
+        if (Math.abs(meanNew - meanOld) > config.BURN_IN_MAX_DRIFT*pooledSD) return false;
+        // Variance test, with constant halves passing only if both are constant
+        return Math.max(varOld, varNew) <= config.BURN_IN_MAX_VARIANCE_RATIO*Math.min(varOld, varNew);
+    }
+
+    //----- Getter/setter methods -----//
+
+    /**
+     * @return True if all key series have settled at the current or a previous time step of the current simulation
+     */
+    public boolean isStationary() { return timeStationary >= 0; }
+
+    /**
+     * @return First time step at which all key series were stationary, -1 if not yet
+     */
+    public int getTimeStationary() { return timeStationary; }
+
+    /**
+     * @return Number of time steps, including the current one, since all key series became stationary
+     */
+    public int getnStationarySteps() { return isStationary() ? Model.getTime() - timeStationary + 1 : 0; }
+}
@@ -0,0 +1,109 @@
+package collectors;
+
+import java.util.HashMap;
+
+/**************************************************************************************************
+ * Registry of typed output columns. Collectors register each of the values they can report under
+ * a unique column name, together with an accessor to read it, so that output files can be defined
+ * as a simple list of column names (a schema) rather than as hand-maintained parallel lists of
+ * header strings and getter calls. Note that columns are read by the simulation thread, while their
+ * values are formatted and written by the Recorder's writer thread. Columns counting households,
+ * houses or events involving them are registered as counts, whose values are multiplied by the
+ * number of real households represented by each household in the model (HOUSEHOLD_WEIGHT), such
+ * that weighted runs report figures for the whole represented population.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class ColumnRegistry {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private HashMap<String, Column> columns = new HashMap<>();
+    private double                  countWeight; // Factor applied to count columns
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param countWeight Number of real households represented by each household in the model
+     */
+    public ColumnRegistry(double countWeight) { this.countWeight = countWeight; }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public void registerInt(String name, IntColumn accessor) { register(new Column(name, accessor, null, 1.0)); }
+
+    public void registerDouble(String name, DoubleColumn accessor) { register(new Column(name, null, accessor, 1.0)); }
+
+    /**
+     * Register a column counting households, houses or events involving them, to be scaled by the count weight
+     */
+    public void registerCount(String name, IntColumn accessor) {
+        register(new Column(name, accessor, null, countWeight));
+    }
+
+    private void register(Column column) {
+        if (columns.containsKey(column.name)) {
+            throw new IllegalArgumentException("Column " + column.name + " is already registered");
+        }
+        columns.put(column.name, column);
+    }
+
+    /**
+     * Resolve a schema, given as an ordered list of column names, into the corresponding registered columns
+     */
+    public Column [] getColumns(String [] names) {
+        Column [] selection = new Column[names.length];
+        for (int i = 0; i < names.length; i++) {
+            selection[i] = columns.get(names[i]);
+            if (selection[i] == null) {
+                throw new IllegalArgumentException("Column " + names[i] + " has not been registered by any collector");
+            }
+        }
+        return selection;
+    }
+
+    //----------------------------//
+    //----- Column accessors -----//
+    //----------------------------//
+
+    public interface IntColumn { int get(); }
+
+    public interface DoubleColumn { double get(); }
+
+    /**
+     * A registered column, with its name, type, accessor and the factor its values are multiplied by
+     */
+    public static class Column {
+        private final String        name;
+        private final IntColumn     intAccessor;
+        private final DoubleColumn  doubleAccessor;
+        private final double        weight;
+
+        private Column(String name, IntColumn intAccessor, DoubleColumn doubleAccessor, double weight) {
+            this.name = name;
+            this.intAccessor = intAccessor;
+            this.doubleAccessor = doubleAccessor;
+            this.weight = weight;
+        }
+
+        public String getName() { return name; }
+
+        /**
+         * @return True if the values of the column are integers, which is not the case for integer columns scaled by a
+         * non-integer weight
+         */
+        public boolean isInteger() { return intAccessor != null && weight == Math.rint(weight); }
+
+        /**
+         * Read the current value of the column, integer values being stored exactly as doubles
+         */
+        public double read() { return (intAccessor != null) ? weight*intAccessor.get() : doubleAccessor.get(); }
+    }
+}
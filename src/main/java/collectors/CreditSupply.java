@@ -79,7 +79,25 @@ public class CreditSupply extends CollectorBase {
 			if(approval.isBuyToLet) btlCounter += 1;
 		}
 	}
-	
+
+	/***
+	 * discard the loans counted so far this month, such as those for the initial housing stock, issued before the first
+	 * month
+	 */
+	public void resetLoanCounters() {
+		mortgageCounter = 0;
+		ftbCounter = 0;
+		btlCounter = 0;
+	}
+
+	/***
+	 * register the columns this collector can report for output files
+	 */
+	public void registerColumns(ColumnRegistry registry) {
+		registry.registerCount("nRegisteredMortgages", new ColumnRegistry.IntColumn() {
+			public int get() { return getnRegisteredMortgages(); } });
+	}
+
     //TODO: Check which of these functions should be kept and which removed!
 	// ---- Mason stuff
 	// ----------------
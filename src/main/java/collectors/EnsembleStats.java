@@ -0,0 +1,115 @@
+package collectors;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+import utilities.P2QuantileSketches;
+
+/**************************************************************************************************
+ * Class to compute, online and across all simulations, statistics of each column of the general
+ * output at each time step: the number of simulations which recorded that time step, the mean and
+ * standard deviation of the values, updated by Welford's algorithm, and estimates of selected
+ * quantiles, by the P-square algorithm. Thus, the results of large ensembles can be summarised in a
+ * single Output-ensemble.csv file, written at the end, without keeping or re-reading the results of
+ * each simulation. Note that the first column, the model time, is used as the key for each row.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class EnsembleStats {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private String []               columnNames;
+    private double []               quantiles;
+    private ArrayList<TimeStats>    rows = new ArrayList<>(); // Statistics for each time step, null if not recorded
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param columnNames Names of the columns of the general output, the first being the model time
+     * @param quantiles Comma-separated probabilities of the quantiles to estimate, empty for none
+     */
+    EnsembleStats(String [] columnNames, String quantiles) {
+        this.columnNames = columnNames;
+        String [] probabilities = quantiles.trim().isEmpty() ? new String[0] : quantiles.split(",");
+        this.quantiles = new double[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) this.quantiles[i] = Double.parseDouble(probabilities[i].trim());
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Add the values of a row of the general output of a simulation to the statistics for its time step
+     */
+    void add(int time, double [] values) {
+        while (rows.size() <= time) rows.add(null);
+        TimeStats row = rows.get(time);
+        if (row == null) {
+            row = new TimeStats();
+            rows.set(time, row);
+        }
+        row.n++;
+        for (int i = 1; i < values.length; i++) {
+            double delta = values[i] - row.mean[i];
+            row.mean[i] += delta/row.n;
+            row.m2[i] += delta*(values[i] - row.mean[i]);
+            for (P2QuantileSketches sketches : row.quantileSketches) sketches.add(i, values[i]);
+        }
+    }
+
+    /**
+     * Write the statistics of all recorded time steps to the given file, one row per time step. Any failure to open or
+     * write the file is thrown, to be rethrown in the simulation thread by the Recorder
+     */
+    void write(String fileName) throws IOException {
+        try (PrintWriter outfile = new PrintWriter(fileName, "UTF-8")) {
+            StringBuilder line = new StringBuilder(columnNames[0]).append(", nRuns");
+            for (int i = 1; i < columnNames.length; i++) {
+                line.append(", ").append(columnNames[i]).append(" Mean");
+                line.append(", ").append(columnNames[i]).append(" StdDev");
+                for (double q : quantiles) line.append(", ").append(columnNames[i]).append(" Q").append(q);
+            }
+            outfile.println(line);
+            for (int time = 0; time < rows.size(); time++) {
+                TimeStats row = rows.get(time);
+                if (row == null) continue;
+                line.setLength(0);
+                line.append(time).append(", ").append(row.n);
+                for (int i = 1; i < columnNames.length; i++) {
+                    line.append(", ").append(row.mean[i]);
+                    line.append(", ").append((row.n > 1) ? Math.sqrt(row.m2[i]/(row.n - 1)) : 0.0);
+                    for (P2QuantileSketches sketches : row.quantileSketches) {
+                        line.append(", ").append(sketches.getQuantile(i));
+                    }
+                }
+                outfile.println(line);
+            }
+            // Note that PrintWriter does not throw on write errors, but only records them
+            if (outfile.checkError()) throw new IOException("Error while writing ensemble statistics to " + fileName);
+        }
+    }
+
+    /**
+     * Running statistics of all columns at a given time step
+     */
+    private class TimeStats {
+        int                     n; // Number of simulations which recorded this time step
+        double []               mean = new double[columnNames.length];
+        double []               m2 = new double[columnNames.length]; // Sum of squared deviations from the mean
+        P2QuantileSketches []   quantileSketches = new P2QuantileSketches[quantiles.length];
+
+        TimeStats() {
+            for (int q = 0; q < quantiles.length; q++) {
+                quantileSketches[q] = new P2QuantileSketches(columnNames.length, quantiles[q]);
+            }
+        }
+    }
+}
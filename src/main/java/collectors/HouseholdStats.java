@@ -1,11 +1,18 @@
 package collectors;
 
+import java.util.Arrays;
+
 import housing.Config;
 import housing.Household;
 import housing.Model;
 
 /**************************************************************************************************
- * Class to collect regional household statistics
+ * Class to collect regional household statistics. Rather than classifying all households at every
+ * time step, the numbers of households of each type are kept up to date incrementally: each
+ * household keeps track of the category under which it is currently counted and notifies this
+ * class whenever a state transition (purchase, sale, rental, eviction, inheritance, birth, death...)
+ * changes it. A full scan of all households is still available (HOUSEHOLD_STATS_FULL_SCAN) in
+ * order to verify these incrementally maintained counters.
  *
  * @author daniel, Adrian Carro
  *
@@ -19,6 +26,15 @@ public class HouseholdStats extends CollectorBase {
 	// General fields
 	private Config  config = Model.config; // Passes the Model's configuration parameters object to a private field
 
+	// Categories under which households are counted, -1 meaning not counted under any category
+	public static final int BTL_ACTIVE = 0; // BTL households with, at least, one BTL property
+	public static final int BTL_OWNER_OCCUPIER = 1; // BTL households owning their home but without any BTL property
+	public static final int BTL_HOMELESS = 2; // BTL households in social housing
+	public static final int NON_BTL_OWNER_OCCUPIER = 3; // Non-BTL households owning their home
+	public static final int NON_BTL_RENTING = 4; // Non-BTL households renting their home
+	public static final int NON_BTL_HOMELESS = 5; // Non-BTL households in social housing
+	private int []  nHouseholdsPerCategory = new int[6]; // Incrementally maintained number of households per category
+
 	// Fields for counting numbers of the different types of households and household conditions
 	private int     nBTL; // Number of buy-to-let (BTL) households, i.e., households with the BTL gene (includes both active and inactive)
 	private int     nActiveBTL; // Number of BTL households with, at least, one BTL property
@@ -42,6 +58,8 @@ public class HouseholdStats extends CollectorBase {
     private int     nBTLBidsAboveExpAvSalePrice; // Number of BTL bids with desired housing expenditure above the exponential moving average sale price
     private int     nNonBTLBidsAboveExpAvSalePriceCounter; // Counter for the number of normal (non-BTL) bids with desired housing expenditure above the exp. mov. av. sale price
     private int     nBTLBidsAboveExpAvSalePriceCounter; // Counter for the number of BTL bids with desired housing expenditure above the exp. mov. av. sale price
+    private int     nBTLBankruptciesCounter; // Counter for the number of BTL households going bankrupt in a given time step
+    private int     nNonBTLBankruptciesCounter; // Counter for the number of non-BTL households going bankrupt in a given time step
 
 	//------------------------//
 	//----- Constructors -----//
@@ -78,9 +96,93 @@ public class HouseholdStats extends CollectorBase {
         nBTLBidsAboveExpAvSalePrice = 0;
         nNonBTLBidsAboveExpAvSalePriceCounter = 0;
         nBTLBidsAboveExpAvSalePriceCounter = 0;
+        nBTLBankruptciesCounter = 0;
+        nNonBTLBankruptciesCounter = 0;
+        Arrays.fill(nHouseholdsPerCategory, 0);
     }
 
     public void record() {
+        // Pass incrementally maintained counters to persistent variables and re-initialise to zero bankruptcy counters
+        nActiveBTL = nHouseholdsPerCategory[BTL_ACTIVE];
+        nBTLOwnerOccupier = nHouseholdsPerCategory[BTL_OWNER_OCCUPIER];
+        nBTLHomeless = nHouseholdsPerCategory[BTL_HOMELESS];
+        nBTL = nActiveBTL + nBTLOwnerOccupier + nBTLHomeless;
+        nNonBTLOwnerOccupier = nHouseholdsPerCategory[NON_BTL_OWNER_OCCUPIER];
+        nRenting = nHouseholdsPerCategory[NON_BTL_RENTING];
+        nNonBTLHomeless = nHouseholdsPerCategory[NON_BTL_HOMELESS];
+        nBTLBankruptcies = nBTLBankruptciesCounter;
+        nNonBTLBankruptcies = nNonBTLBankruptciesCounter;
+        nBTLBankruptciesCounter = 0;
+        nNonBTLBankruptciesCounter = 0;
+        if (config.HOUSEHOLD_STATS_FULL_SCAN) {
+            // In verification mode, recount everything from scratch and compare
+            recordFullScan();
+        } else if (Model.coreIndicators.isActive()) {
+            // Income and yield sums are only used by core indicators, so only fold them if these are being recorded
+            recordIncomeSums();
+        }
+        // Pass number of bidders above the exponential moving average sale price to persistent variable and
+        // re-initialise to zero the counter
+        nNonBTLBidsAboveExpAvSalePrice = nNonBTLBidsAboveExpAvSalePriceCounter;
+        nBTLBidsAboveExpAvSalePrice = nBTLBidsAboveExpAvSalePriceCounter;
+        nNonBTLBidsAboveExpAvSalePriceCounter = 0;
+        nBTLBidsAboveExpAvSalePriceCounter = 0;
+    }
+
+    /**
+     * Sum annualised incomes and stock yields over all households, using the category under which each of them is
+     * currently counted
+     */
+    private void recordIncomeSums() {
+        activeBTLAnnualisedTotalIncome = 0.0;
+        ownerOccupierAnnualisedTotalIncome = 0.0;
+        rentingAnnualisedTotalIncome = 0.0;
+        homelessAnnualisedTotalIncome = 0.0;
+        sumStockYield = 0.0;
+        for (Household h : Model.households) {
+            switch (h.getStatsCategory()) {
+                case BTL_ACTIVE:
+                    activeBTLAnnualisedTotalIncome += h.getMonthlyGrossTotalIncome();
+                    break;
+                case BTL_OWNER_OCCUPIER:
+                case NON_BTL_OWNER_OCCUPIER:
+                    ownerOccupierAnnualisedTotalIncome += h.getMonthlyGrossTotalIncome();
+                    break;
+                case BTL_HOMELESS:
+                case NON_BTL_HOMELESS:
+                    homelessAnnualisedTotalIncome += h.getMonthlyGrossTotalIncome();
+                    break;
+                case NON_BTL_RENTING:
+                    rentingAnnualisedTotalIncome += h.getMonthlyGrossTotalIncome();
+                    if (Model.housingMarketStats.getExpAvSalePriceForQuality(h.getHome().getQuality()) > 0) {
+                        sumStockYield += h.getHousePayments().get(h.getHome()).monthlyPayment
+                                *config.constants.MONTHS_IN_YEAR
+                                /Model.housingMarketStats.getExpAvSalePriceForQuality(h.getHome().getQuality());
+                    }
+                    break;
+            }
+        }
+        // Annualise monthly income data
+        activeBTLAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
+        ownerOccupierAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
+        rentingAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
+        homelessAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
+    }
+
+    /**
+     * Verification mode: count households of each type and sum their incomes by running through all of them, checking
+     * the resulting numbers against the incrementally maintained counters
+     */
+    private void recordFullScan() {
+        int nIncrementalBTL = nBTL;
+        int nIncrementalActiveBTL = nActiveBTL;
+        int nIncrementalBTLOwnerOccupier = nBTLOwnerOccupier;
+        int nIncrementalBTLHomeless = nBTLHomeless;
+        int nIncrementalBTLBankruptcies = nBTLBankruptcies;
+        int nIncrementalNonBTLOwnerOccupier = nNonBTLOwnerOccupier;
+        int nIncrementalRenting = nRenting;
+        int nIncrementalNonBTLHomeless = nNonBTLHomeless;
+        int nIncrementalNonBTLBankruptcies = nNonBTLBankruptcies;
         // Initialise variables to sum
         nBTL = 0;
         nActiveBTL = 0;
@@ -98,7 +200,7 @@ public class HouseholdStats extends CollectorBase {
         sumStockYield = 0.0;
         // Run through all households counting population in each type and summing their gross incomes
         for (Household h : Model.households) {
-            if (h.behaviour.isPropertyInvestor()) {
+            if (h.isPropertyInvestor()) {
                 ++nBTL;
                 if (h.isBankrupt()) nBTLBankruptcies += 1;
                 // Active BTL investors
@@ -141,14 +243,88 @@ public class HouseholdStats extends CollectorBase {
         ownerOccupierAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
         rentingAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
         homelessAnnualisedTotalIncome *= config.constants.MONTHS_IN_YEAR;
-        // Pass number of bidders above the exponential moving average sale price to persistent variable and
-        // re-initialise to zero the counter
-        nNonBTLBidsAboveExpAvSalePrice = nNonBTLBidsAboveExpAvSalePriceCounter;
-        nBTLBidsAboveExpAvSalePrice = nBTLBidsAboveExpAvSalePriceCounter;
+        // Check full scan results against incrementally maintained counters
+        if (nBTL != nIncrementalBTL || nActiveBTL != nIncrementalActiveBTL
+                || nBTLOwnerOccupier != nIncrementalBTLOwnerOccupier || nBTLHomeless != nIncrementalBTLHomeless
+                || nBTLBankruptcies != nIncrementalBTLBankruptcies
+                || nNonBTLOwnerOccupier != nIncrementalNonBTLOwnerOccupier || nRenting != nIncrementalRenting
+                || nNonBTLHomeless != nIncrementalNonBTLHomeless
+                || nNonBTLBankruptcies != nIncrementalNonBTLBankruptcies) {
+            System.out.println("Strange: incrementally maintained household counters differ from full scan at time "
+                    + Model.getTime());
+        }
+    }
+
+    /**
+     * Find the category under which a household should be counted given its current state, following the same
+     * criteria as the full scan
+     *
+     * @param h Household to classify
+     * @return Category of the household, -1 if it does not fit in any category
+     */
+    public static int categorise(Household h) {
+        if (h.isPropertyInvestor()) {
+            if (h.nInvestmentProperties() > 0) {
+                return BTL_ACTIVE;
+            } else if (h.nInvestmentProperties() == 0) {
+                return BTL_OWNER_OCCUPIER;
+            } else {
+                return BTL_HOMELESS;
+            }
+        } else if (h.isHomeowner()) {
+            return NON_BTL_OWNER_OCCUPIER;
+        } else if (h.isRenting()) {
+            return NON_BTL_RENTING;
+        } else if (h.isInSocialHousing()) {
+            return NON_BTL_HOMELESS;
+        }
+        return -1;
+    }
+
+    /**
+     * Move a household from the category under which it is currently counted to the one corresponding to its current
+     * state. This must be called after every household state transition
+     *
+     * @param oldCategory Category under which the household is currently counted (-1 for a newly born household)
+     * @param h Household whose state might have changed
+     * @return New category under which the household is counted
+     */
+    public int updateCategory(int oldCategory, Household h) {
+        int newCategory = categorise(h);
+        if (newCategory != oldCategory) {
+            if (oldCategory >= 0) nHouseholdsPerCategory[oldCategory]--;
+            if (newCategory >= 0) nHouseholdsPerCategory[newCategory]++;
+        }
+        return newCategory;
+    }
+
+    /**
+     * Discard the bids counted so far this month, such as those for the initial housing stock, made before the first
+     * month
+     */
+    public void resetBidCounters() {
         nNonBTLBidsAboveExpAvSalePriceCounter = 0;
         nBTLBidsAboveExpAvSalePriceCounter = 0;
     }
 
+    /**
+     * Stop counting a household that has died
+     *
+     * @param category Category under which the household was being counted
+     */
+    public void removeHousehold(int category) { if (category >= 0) nHouseholdsPerCategory[category]--; }
+
+    /**
+     * Count households going bankrupt in the current time step
+     */
+    public void countBankruptcy(boolean isPropertyInvestor) {
+        if (isPropertyInvestor) {
+            nBTLBankruptciesCounter++;
+        } else {
+            nNonBTLBankruptciesCounter++;
+        }
+    }
+
     /**
      * Count number of normal (non-BTL) bidders with desired expenditures above the (minimum quality, q=0) exponential
      * moving average sale price
@@ -169,6 +345,49 @@ public class HouseholdStats extends CollectorBase {
         }
     }
 
+    /**
+     * Register the columns this collector can report for output files
+     */
+    public void registerColumns(ColumnRegistry registry) {
+        // Number of households of each type
+        registry.registerCount("nNonBTLHomeless", new ColumnRegistry.IntColumn() {
+            public int get() { return getnNonBTLHomeless(); } });
+        registry.registerCount("nBTLHomeless", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTLHomeless(); } });
+        registry.registerCount("nHomeless", new ColumnRegistry.IntColumn() {
+            public int get() { return getnHomeless(); } });
+        registry.registerCount("nRenting", new ColumnRegistry.IntColumn() {
+            public int get() { return getnRenting(); } });
+        registry.registerCount("nNonOwner", new ColumnRegistry.IntColumn() {
+            public int get() { return getnNonOwner(); } });
+        registry.registerCount("nNonBTLOwnerOccupier", new ColumnRegistry.IntColumn() {
+            public int get() { return getnNonBTLOwnerOccupier(); } });
+        registry.registerCount("nBTLOwnerOccupier", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTLOwnerOccupier(); } });
+        registry.registerCount("nOwnerOccupier", new ColumnRegistry.IntColumn() {
+            public int get() { return getnOwnerOccupier(); } });
+        registry.registerCount("nActiveBTL", new ColumnRegistry.IntColumn() {
+            public int get() { return getnActiveBTL(); } });
+        registry.registerCount("nBTL", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTL(); } });
+        registry.registerCount("nNonBTLBankrupt", new ColumnRegistry.IntColumn() {
+            public int get() { return getnNonBTLBankruptcies(); } });
+        registry.registerCount("nBTLBankrupt", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTLBankruptcies(); } });
+        registry.registerCount("TotalPopulation", new ColumnRegistry.IntColumn() {
+            public int get() { return Model.households.size(); } });
+        // Numbers of houses of each type
+        registry.registerCount("nEmptyHouses", new ColumnRegistry.IntColumn() {
+            public int get() { return getnEmptyHouses(); } });
+        registry.registerDouble("BTLStockFraction", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getBTLStockFraction(); } });
+        // Bids on the house sale market
+        registry.registerCount("Sale nNonBTLBidsAboveExpAvSalePrice", new ColumnRegistry.IntColumn() {
+            public int get() { return getnNonBTLBidsAboveExpAvSalePrice(); } });
+        registry.registerCount("Sale nBTLBidsAboveExpAvSalePrice", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTLBidsAboveExpAvSalePrice(); } });
+    }
+
     //----- Getter/setter methods -----//
 
     // Getters for numbers of households variables
@@ -2,10 +2,15 @@ package collectors;
 
 import housing.*;
 
+import java.util.Arrays;
+
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 /**************************************************************************************************
- * Class to collect regional sale market statistics
+ * Class to collect regional sale market statistics. Note that pre-clearing statistics are read from
+ * aggregates kept up to date by the market itself as offers and bids are made, updated and removed,
+ * rather than by iterating over all of them, and that arrays of offer and bid prices are only
+ * filled in on demand, into reusable buffers
  *
  * @author daniel, Adrian Carro
  *
@@ -31,8 +36,8 @@ public class HousingMarketStats extends CollectorBase {
     private int                     nBTLSellers;
 	private double                  sumBidPrices;
 	private double                  sumOfferPrices;
-	private double []               offerPrices;
-	private double []               bidPrices;
+	private double []               offerPrices = new double[0]; // Reusable buffer, filled in on demand
+	private double []               bidPrices = new double[0]; // Reusable buffer, filled in on demand
 
 	// Variables computed during market clearing, counters
 	private int                     salesCount; // Dummy variable to count sales
@@ -81,6 +86,8 @@ public class HousingMarketStats extends CollectorBase {
 		System.arraycopy(data.HouseSaleMarket.getReferencePricePerQuality(), 0, referencePricePerQuality, 0,
 				config.N_QUALITY); // Copies reference prices from data/HouseSaleMarket into referencePricePerQuality
 		HPIRecord = new DescriptiveStatistics(config.derivedParams.HPI_RECORD_LENGTH);
+		sumSalePricePerQualityCount = new double[config.N_QUALITY];
+		nSalesPerQualityCount = new int[config.N_QUALITY];
 	}
 
     //-------------------//
@@ -99,8 +106,6 @@ public class HousingMarketStats extends CollectorBase {
         nUnsoldNewBuild = 0;
         sumBidPrices = 0.0;
         sumOfferPrices = 0.0;
-        offerPrices = new double[nSellers];
-        bidPrices = new double[nBuyers];
 
         // Set zero initial value for persistent variables whose count is computed during market clearing
         nSales = 0;
@@ -136,53 +141,17 @@ public class HousingMarketStats extends CollectorBase {
         sumSoldReferencePriceCount = 0;
         sumSoldPriceCount = 0;
         sumDaysOnMarketCount = 0;
-        sumSalePricePerQualityCount = new double[config.N_QUALITY];
-        nSalesPerQualityCount = new int[config.N_QUALITY];
-
-        // Re-initialise to zero variables computed before market clearing
-        nBuyers = market.getBids().size();
-        nBTLBuyers = 0;
-        for (HouseBidderRecord bid: market.getBids()) {
-            if (bid.getBidder().behaviour.isPropertyInvestor() && bid.getBidder().getHome() != null) {
-                nBTLBuyers++;
-            }
-        }
-        nSellers = market.getOffersPQ().size();
-        nNewSellers = 0;
-        nBTLSellers = 0;
-        for (HousingMarketRecord element: market.getOffersPQ()) {
-            HouseOfferRecord offer = (HouseOfferRecord)element;
-            if (offer.gettInitialListing() == Model.getTime()) {
-                nNewSellers++;
-            }
-            if (offer.getHouse().owner != Model.construction) {
-                Household h = (Household) offer.getHouse().owner;
-                if (h.behaviour.isPropertyInvestor()) {
-                    nBTLSellers++;
-                }
-            }
-        }
-        sumBidPrices = 0.0;
-        sumOfferPrices = 0.0;
-        offerPrices = new double[nSellers];
-        bidPrices = new double[nBuyers];
-
-
-        // Record bid prices and their average
-        int i = 0;
-        for(HouseBidderRecord bid : market.getBids()) {
-            sumBidPrices += bid.getPrice();
-            bidPrices[i] = bid.getPrice();
-            ++i;
-        }
-
-        // Record offer prices, their average, and the number of empty and new houses
-        i = 0;
-        for(HousingMarketRecord sale : market.getOffersPQ()) {
-            sumOfferPrices += sale.getPrice();
-            offerPrices[i] = sale.getPrice();
-            ++i;
-        }
+        Arrays.fill(sumSalePricePerQualityCount, 0.0);
+        Arrays.fill(nSalesPerQualityCount, 0);
+
+        // Read variables computed before market clearing from the aggregates kept by the market
+        nBuyers = market.getnBids();
+        nBTLBuyers = market.getnBTLBidderBids();
+        sumBidPrices = market.getSumBidPrices();
+        nSellers = market.getnOffers();
+        nNewSellers = market.getnNewOffers();
+        nBTLSellers = market.getnBTLSellerOffers();
+        sumOfferPrices = market.getSumOfferPrices();
     }
 
     //----- During-market-clearing methods -----//
@@ -268,8 +237,8 @@ public class HousingMarketStats extends CollectorBase {
         }
         // ...record number of unsold new build houses
         nUnsoldNewBuild = 0;
-        for(HousingMarketRecord sale : market.getOffersPQ()) {
-            if(((HouseOfferRecord) sale).getHouse().owner == Model.construction) nUnsoldNewBuild++;
+        for(HouseOfferRecord sale : market.getOffersPQ()) {
+            if(sale.getHouse().getOwner() == Model.construction) nUnsoldNewBuild++;
         }
     }
 
@@ -310,6 +279,54 @@ public class HousingMarketStats extends CollectorBase {
         return(100.0*(HPI - oldHPI)/oldHPI);
     }
 
+    /**
+     * Register the columns this collector can report for output files, with the house sale market ones prefixed by
+     * "Sale "
+     */
+    public void registerColumns(ColumnRegistry registry) {
+        registry.registerCount("nUnsoldNewBuild", new ColumnRegistry.IntColumn() {
+            public int get() { return getnUnsoldNewBuild(); } });
+        registerMarketColumns(registry, "Sale ");
+        registry.registerDouble("Sale ExAvSalePrice", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getExpAvSalePrice(); } });
+        registry.registerDouble("Sale ExpAvDaysOnMarket", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getExpAvDaysOnMarket(); } });
+        registry.registerCount("Sale nBTLBuyers", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTLBuyers(); } });
+        registry.registerCount("Sale nNewSellers", new ColumnRegistry.IntColumn() {
+            public int get() { return getnNewSellers(); } });
+        registry.registerCount("Sale nBTLSellers", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBTLSellers(); } });
+        registry.registerCount("Sale nSalesToBTL", new ColumnRegistry.IntColumn() {
+            public int get() { return getnSalesToBTL(); } });
+        registry.registerCount("Sale nSalesToFTB", new ColumnRegistry.IntColumn() {
+            public int get() { return getnSalesToFTB(); } });
+    }
+
+    /**
+     * Register the columns common to both the house sale and the rental markets, with the given name prefix
+     */
+    void registerMarketColumns(ColumnRegistry registry, String prefix) {
+        registry.registerDouble(prefix + "HPI", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getHPI(); } });
+        registry.registerDouble(prefix + "AnnualHPA", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getAnnualHPA(); } });
+        registry.registerDouble(prefix + "AvBidPrice", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getAvBidPrice(); } });
+        registry.registerDouble(prefix + "AvOfferPrice", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getAvOfferPrice(); } });
+        registry.registerDouble(prefix + "AvSalePrice", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getAvSalePrice(); } });
+        registry.registerDouble(prefix + "AvDaysOnMarket", new ColumnRegistry.DoubleColumn() {
+            public double get() { return getAvDaysOnMarket(); } });
+        registry.registerCount(prefix + "nBuyers", new ColumnRegistry.IntColumn() {
+            public int get() { return getnBuyers(); } });
+        registry.registerCount(prefix + "nSellers", new ColumnRegistry.IntColumn() {
+            public int get() { return getnSellers(); } });
+        registry.registerCount(prefix + "nSales", new ColumnRegistry.IntColumn() {
+            public int get() { return getnSales(); } });
+    }
+
     //----- Getter/setter methods -----//
 
     // Note that, for security reasons, getters should never give counter variables, as their value changes during
@@ -328,8 +345,29 @@ public class HousingMarketStats extends CollectorBase {
     int getnUnsoldNewBuild() { return nUnsoldNewBuild; }
     double getSumBidPrices() { return sumBidPrices; }
     double getSumOfferPrices() { return sumOfferPrices; }
-    double [] getOfferPrices() { return offerPrices; }
-    double [] getBidPrices() { return bidPrices; }
+
+    /**
+     * Fill in, on demand, a reusable buffer with the prices of the offers currently on the market. Note that, since the
+     * buffer is only reallocated when it needs to grow, only its first market.getnOffers() elements are meaningful
+     */
+    double [] getOfferPrices() {
+        if (offerPrices.length < market.getnOffers()) offerPrices = new double[2*market.getnOffers()];
+        int i = 0;
+        for (HousingMarketRecord sale : market.getOffersPQ()) offerPrices[i++] = sale.getPrice();
+        return offerPrices;
+    }
+
+    /**
+     * Fill in, on demand, a reusable buffer with the prices of the bids made since the last market clearing. Note that,
+     * since the buffer is only reallocated when it needs to grow, only its first market.getnBids() elements are
+     * meaningful
+     */
+    double [] getBidPrices() {
+        if (bidPrices.length < market.getnBids()) bidPrices = new double[2*market.getnBids()];
+        int i = 0;
+        for (HouseBidderRecord bid : market.getBids()) bidPrices[i++] = bid.getPrice();
+        return bidPrices;
+    }
 
     // Getters for variables computed after market clearing to keep the previous values during the clearing
     int getnSales() { return nSales; }
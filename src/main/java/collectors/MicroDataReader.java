@@ -0,0 +1,120 @@
+package collectors;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.zip.GZIPInputStream;
+
+/**************************************************************************************************
+ * Utility to convert the compressed binary transaction files written by MicroDataRecorder
+ * (transactions-<n>.bin.gz) back into the usual transactions CSV format. It can be run from the
+ * command line as
+ *
+ *      java collectors.MicroDataReader transactions-0.bin.gz [transactions-0.csv]
+ *
+ * where the output file name defaults to the input file name with its ".bin.gz" extension replaced
+ * by ".csv".
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class MicroDataReader {
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java collectors.MicroDataReader <transactions file (.bin.gz)> [output file (.csv)]");
+            System.exit(0);
+        }
+        String outputFile;
+        if (args.length == 2) {
+            outputFile = args[1];
+        } else if (args[0].endsWith(".bin.gz")) {
+            outputFile = args[0].substring(0, args[0].length() - ".bin.gz".length()) + ".csv";
+        } else {
+            outputFile = args[0] + ".csv";
+        }
+        try {
+            convertToCSV(args[0], outputFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Convert a compressed binary transactions file into CSV format
+     *
+     * @param inputFile Path of the file written by MicroDataRecorder
+     * @param outputFile Path of the CSV file to write
+     */
+    public static void convertToCSV(String inputFile, String outputFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(
+                new FileInputStream(inputFile))));
+             PrintWriter outfile = new PrintWriter(outputFile, "UTF-8")) {
+            if (in.readInt() != MicroDataRecorder.MAGIC || in.readInt() != MicroDataRecorder.VERSION) {
+                throw new IOException(inputFile + " is not a transactions file written by MicroDataRecorder");
+            }
+            outfile.println(
+                    "Timestamp, transactionType, houseId, houseQuality, initialListedPrice, timeFirstOffered, transactionPrice, "+
+                    "buyerId, buyerAge(years), buyerHasBTLGene, buyerMonthlyPreTaxIncome, buyerMonthlyEmploymentIncome, buyerBankBalance, buyerCapGainCoeff, "+
+                    "mortgageDownpayment, firstTimeBuyerMortgage, buyToLetMortgage, "+
+                    "sellerId, sellerAge(years), sellerHasBTLGene, sellerMonthlyPreTaxIncome, sellerMonthlyEmploymentIncome, sellerBankBalance, sellerCapGainCoeff");
+            while (true) {
+                int time;
+                try {
+                    time = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int flags = in.readByte();
+                outfile.print(time + ", ");
+                outfile.print(((flags & MicroDataRecorder.RENTAL) == 0) ? "sale, " : "rental, ");
+                outfile.print(
+                        in.readInt() + ", " +       // houseId
+                        in.readInt() + ", " +       // houseQuality
+                        in.readDouble() + ", " +    // initialListedPrice
+                        in.readInt() + ", " +       // timeFirstOffered
+                        in.readDouble() + ", " +    // transactionPrice
+                        in.readInt() + ", " +       // buyerId
+                        in.readDouble() + ", " +    // buyerAge
+                        ((flags & MicroDataRecorder.BUYER_BTL_GENE) != 0) + ", " +
+                        in.readDouble() + ", " +    // buyerMonthlyPreTaxIncome
+                        in.readDouble() + ", " +    // buyerMonthlyEmploymentIncome
+                        in.readDouble() + ", " +    // buyerBankBalance
+                        in.readDouble() + ", "      // buyerCapGainCoeff
+                );
+                double downPayment = in.readDouble();
+                if ((flags & MicroDataRecorder.MORTGAGE) != 0) {
+                    outfile.print(
+                            downPayment + ", " +
+                            ((flags & MicroDataRecorder.FIRST_TIME_BUYER_MORTGAGE) != 0) + ", " +
+                            ((flags & MicroDataRecorder.BUY_TO_LET_MORTGAGE) != 0) + ", "
+                    );
+                } else {
+                    outfile.print("-1, false, false, ");
+                }
+                if ((flags & MicroDataRecorder.HOUSEHOLD_SELLER) != 0) {
+                    outfile.println(
+                            in.readInt() + ", " +       // sellerId
+                            in.readDouble() + ", " +    // sellerAge
+                            ((flags & MicroDataRecorder.SELLER_BTL_GENE) != 0) + ", " +
+                            in.readDouble() + ", " +    // sellerMonthlyPreTaxIncome
+                            in.readDouble() + ", " +    // sellerMonthlyEmploymentIncome
+                            in.readDouble() + ", " +    // sellerBankBalance
+                            in.readDouble()             // sellerCapGainCoeff
+                    );
+                } else {
+                    // Must be construction sector
+                    in.skipBytes(4 + 5*8);
+                    outfile.println("-1, 0, false, 0, 0, 0, 0");
+                }
+            }
+        }
+    }
+}
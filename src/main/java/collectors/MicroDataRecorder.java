@@ -2,113 +2,340 @@ package collectors;
 
 import housing.*;
 
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
+/**************************************************************************************************
+ * Class to record micro data for each transaction made. In order to keep market clearing free of
+ * string formatting and disk access, each transaction is encoded as a fixed-size binary record into
+ * a preallocated direct ByteBuffer. Full buffers are handed over to a background thread, which
+ * compresses them (gzip) into a file per simulation, transactions-<n>.bin.gz, while the simulation
+ * thread carries on filling the next free buffer. These files can be converted back to the usual
+ * transactions-<n>.csv format by means of the MicroDataReader class. Transactions can be filtered
+ * by time window, by type (rentals, and sales to first-time buyers, to buy-to-let investors or to
+ * home movers) and by a deterministic 1-in-k sample of households by id, all these filters being
+ * checked before any field is encoded.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
 public class MicroDataRecorder {
 
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    // File format identifiers, written at the beginning of every file
+    static final int                    MAGIC = 0x48534D44;
+    static final int                    VERSION = 1;
+
+    // Size in bytes of a transaction record: time (int), flags (byte), house id, quality (int), initial listed price
+    // (double), time of initial listing (int), price (double), buyer id (int), buyer age, pre-tax income, employment
+    // income, bank balance, capital gain coefficient (double), mortgage down-payment (double), and seller id (int),
+    // seller age, pre-tax income, employment income, bank balance, capital gain coefficient (double)
+    static final int                    RECORD_SIZE = 4 + 1 + 4 + 4 + 8 + 4 + 8 + 4 + 5*8 + 8 + 4 + 5*8;
+
+    // Bits of the flags byte
+    static final int                    RENTAL = 1;
+    static final int                    BUYER_BTL_GENE = 1 << 1;
+    static final int                    MORTGAGE = 1 << 2;
+    static final int                    FIRST_TIME_BUYER_MORTGAGE = 1 << 3;
+    static final int                    BUY_TO_LET_MORTGAGE = 1 << 4;
+    static final int                    HOUSEHOLD_SELLER = 1 << 5;
+    static final int                    SELLER_BTL_GENE = 1 << 6;
+
+    private static final int            BLOCK_SIZE = 1 << 16; // Size in bytes of each buffer of records
+    private static final int            N_BLOCKS = 8; // Number of preallocated buffers
+    private static final long           POLL_MILLIS = 100; // Interval at which to check the compression thread while waiting
+
+    // Kinds of blocks that can be submitted to the compression thread
+    private static final int            OPEN_FILE = 0;
+    private static final int            DATA = 1;
+    private static final int            CLOSE_FILE = 2;
+    private static final int            FINISH = 3;
+
+    private Config                      config = Model.config; // Passes the Model's configuration parameters object to a private field
+    public boolean                      active = false;
+    private String                      outputFolderCopy;
+    private Block                       currentBlock; // Block being filled by the simulation thread
+    private ArrayBlockingQueue<Block>   freeBlocks;
+    private ArrayBlockingQueue<Block>   pendingBlocks;
+    private Thread                      compressionThread;
+    private volatile Throwable          compressionFailure; // Error which stopped the compression thread, null if none
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
     public MicroDataRecorder(String outputFolder) {
         outputFolderCopy = outputFolder;
     }
 
-	public void start() throws FileNotFoundException, UnsupportedEncodingException {
-		openNewFile();
-	}
-
-	public void openNewFile() {
-//		String simID = Integer.toHexString(UUID.randomUUID().hashCode());
-		try {
-			outfile = new PrintWriter(outputFolderCopy + "transactions-"+ Model.nSimulation+".csv", "UTF-8");
-			outfile.println(
-					"Timestamp, transactionType, houseId, houseQuality, initialListedPrice, timeFirstOffered, transactionPrice, "+
-					"buyerId, buyerAge(years), buyerHasBTLGene, buyerMonthlyPreTaxIncome, buyerMonthlyEmploymentIncome, buyerBankBalance, buyerCapGainCoeff, "+
-					"mortgageDownpayment, firstTimeBuyerMortgage, buyToLetMortgage, "+
-					"sellerId, sellerAge(years), sellerHasBTLGene, sellerMonthlyPreTaxIncome, sellerMonthlyEmploymentIncome, sellerBankBalance, sellerCapGainCoeff");
-		} catch (FileNotFoundException | UnsupportedEncodingException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-	}
-	
-	public void recordSale(HouseBidderRecord purchase, HouseOfferRecord sale, MortgageAgreement mortgage, HousingMarket market) {
-		if(!active) return;
-		outfile.print(
-    			Model.getTime()+", "
-    			);
-		if(market instanceof HouseSaleMarket) {
-			outfile.print("sale, ");
-		} else {
-			outfile.print("rental, ");
-		}
-		outfile.print(
-    			sale.getHouse().id+", "+
-    			sale.getHouse().getQuality()+", "+
-				sale.getInitialListedPrice() +", "+
-				sale.gettInitialListing() +", "+
-    			sale.getPrice()+", "+
-    			purchase.getBidder().id+", "+
-    			purchase.getBidder().getAge()+", "+
-    			purchase.getBidder().behaviour.isPropertyInvestor()+", "+
-    			purchase.getBidder().getMonthlyGrossTotalIncome()+", "+
-    			purchase.getBidder().getMonthlyGrossEmploymentIncome() +", "+
-    			purchase.getBidder().getBankBalance()+", "+
-    			purchase.getBidder().behaviour.getBTLCapGainCoefficient() +", "
-				);
-		if(mortgage != null) {
-			outfile.print(
-					mortgage.downPayment+", "+
-					mortgage.isFirstTimeBuyer+", "+
-					mortgage.isBuyToLet+", "
-					);			
-		} else {
-			outfile.print("-1, false, false, ");
-		}
-		if(sale.getHouse().owner instanceof Household) {
-			Household seller = (Household) sale.getHouse().owner;
-			outfile.println(
-					seller.id+", "+
-					seller.getAge()+", "+
-					seller.behaviour.isPropertyInvestor()+", "+
-					seller.getMonthlyGrossTotalIncome()+", "+
-					seller.getMonthlyGrossEmploymentIncome() +", "+
-					seller.getBankBalance()+", "+
-					seller.behaviour.getBTLCapGainCoefficient()
-					);			
-		} else {
-			// must be construction sector
-			outfile.println("-1, 0, false, 0, 0, 0, 0");
-		}
-	}
-	
-	public void finish() {
-		outfile.close();
-	}
-		
-	public void endOfSim() {
-		outfile.close();
-		openNewFile();
-	}
-	
-	public boolean isActive() {
-		return active;
-	}
-
-	public void setActive(boolean isActive) {
-		this.active = isActive;
-		if(isActive) {
-			try {
-				Model.housingMarketStats.setActive(true);
-				Model.rentalMarketStats.setActive(true);
-				start();
-			} catch (FileNotFoundException | UnsupportedEncodingException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
-	}
-
-	PrintWriter 	outfile;
-	public boolean  active=false;
-	private String outputFolderCopy;
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public void start() {
+        freeBlocks = new ArrayBlockingQueue<>(N_BLOCKS);
+        pendingBlocks = new ArrayBlockingQueue<>(N_BLOCKS);
+        for (int i = 0; i < N_BLOCKS; i++) freeBlocks.add(new Block());
+        compressionThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runCompression();
+                } catch (Throwable t) {
+                    compressionFailure = t;
+                }
+            }
+        }, "MicroDataRecorder-compression");
+        compressionThread.setDaemon(true);
+        compressionThread.start();
+        openNewFile();
+    }
+
+    public void openNewFile() {
+        Block block = takeFreeBlock();
+        block.kind = OPEN_FILE;
+        block.nSimulation = Model.nSimulation;
+        submitBlock(block);
+        currentBlock = takeFreeBlock();
+        currentBlock.kind = DATA;
+    }
+
+    public void recordSale(HouseBidderRecord purchase, HouseOfferRecord sale, MortgageAgreement mortgage,
+                           HousingMarket market) {
+        if(!active || !passesFilters(purchase.getBidder(), sale.getHouse().getOwner(), mortgage, market)) return;
+        if (currentBlock.data.remaining() < RECORD_SIZE) {
+            submitBlock(currentBlock);
+            currentBlock = takeFreeBlock();
+            currentBlock.kind = DATA;
+        }
+        Household buyer = purchase.getBidder();
+        Household seller = null;
+        if (sale.getHouse().getOwner() instanceof Household) seller = (Household) sale.getHouse().getOwner();
+        // Encode flags
+        int flags = 0;
+        if (!(market instanceof HouseSaleMarket)) flags |= RENTAL;
+        if (buyer.isPropertyInvestor()) flags |= BUYER_BTL_GENE;
+        if (mortgage != null) {
+            flags |= MORTGAGE;
+            if (mortgage.isFirstTimeBuyer) flags |= FIRST_TIME_BUYER_MORTGAGE;
+            if (mortgage.isBuyToLet) flags |= BUY_TO_LET_MORTGAGE;
+        }
+        if (seller != null) {
+            flags |= HOUSEHOLD_SELLER;
+            if (seller.isPropertyInvestor()) flags |= SELLER_BTL_GENE;
+        }
+        // Encode transaction and buyer data
+        ByteBuffer data = currentBlock.data;
+        data.putInt(Model.getTime());
+        data.put((byte)flags);
+        data.putInt(sale.getHouse().id);
+        data.putInt(sale.getHouse().getQuality());
+        data.putDouble(sale.getInitialListedPrice());
+        data.putInt(sale.gettInitialListing());
+        data.putDouble(sale.getPrice());
+        data.putInt(buyer.id);
+        data.putDouble(buyer.getAge());
+        data.putDouble(buyer.getMonthlyGrossTotalIncome());
+        data.putDouble(buyer.getMonthlyGrossEmploymentIncome());
+        data.putDouble(buyer.getBankBalance());
+        data.putDouble(buyer.getBTLCapGainCoefficient());
+        // Encode mortgage data
+        data.putDouble((mortgage != null) ? mortgage.downPayment : -1.0);
+        // Encode seller data (must be construction sector if not a household)
+        if (seller != null) {
+            data.putInt(seller.id);
+            data.putDouble(seller.getAge());
+            data.putDouble(seller.getMonthlyGrossTotalIncome());
+            data.putDouble(seller.getMonthlyGrossEmploymentIncome());
+            data.putDouble(seller.getBankBalance());
+            data.putDouble(seller.getBTLCapGainCoefficient());
+        } else {
+            data.putInt(-1);
+            for (int i = 0; i < 5; i++) data.putDouble(0.0);
+        }
+    }
+
+    /**
+     * Check whether a transaction should be recorded according to the micro data time window, transaction type and
+     * household sampling filters, in increasing order of cost
+     */
+    private boolean passesFilters(Household buyer, IHouseOwner owner, MortgageAgreement mortgage,
+                                  HousingMarket market) {
+        // Time window
+        int time = Model.getTime();
+        if (time < config.MICRO_DATA_START_TIME) return false;
+        if (config.MICRO_DATA_END_TIME >= 0 && time > config.MICRO_DATA_END_TIME) return false;
+        if (!Model.isRecording()) return false;
+        // Transaction type
+        if (market instanceof HouseSaleMarket) {
+            if (mortgage != null && mortgage.isFirstTimeBuyer) {
+                if (!config.MICRO_DATA_FTB_SALES) return false;
+            } else if (mortgage != null && mortgage.isBuyToLet) {
+                if (!config.MICRO_DATA_BTL_SALES) return false;
+            } else if (!config.MICRO_DATA_OTHER_SALES) {
+                return false;
+            }
+        } else if (!config.MICRO_DATA_RENTALS) {
+            return false;
+        }
+        // Households sample, keeping transactions where either the buyer or the seller belongs to the sample
+        if (config.MICRO_DATA_SAMPLING > 1) {
+            return buyer.id%config.MICRO_DATA_SAMPLING == 0
+                    || (owner instanceof Household && ((Household)owner).id%config.MICRO_DATA_SAMPLING == 0);
+        }
+        return true;
+    }
+
+    public void finish() {
+        closeFile();
+        Block block = takeFreeBlock();
+        block.kind = FINISH;
+        submitBlock(block);
+        // Wait for the compression thread to write all pending records and close the last file
+        try {
+            compressionThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+        checkCompression();
+    }
+
+    public void endOfSim() {
+        closeFile();
+        openNewFile();
+    }
+
+    private void closeFile() {
+        submitBlock(currentBlock);
+        currentBlock = null;
+        Block block = takeFreeBlock();
+        block.kind = CLOSE_FILE;
+        submitBlock(block);
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public void setActive(boolean isActive) {
+        this.active = isActive;
+        if(isActive) {
+            Model.housingMarketStats.setActive(true);
+            Model.rentalMarketStats.setActive(true);
+            start();
+        }
+    }
+
+    /**
+     * Take an empty block from the pool, waiting for the compression thread to release one if none is available. The
+     * wait is done in short polls so that, should the compression thread fail, its error is rethrown instead of
+     * blocking forever
+     */
+    private Block takeFreeBlock() {
+        try {
+            while (true) {
+                checkCompression();
+                Block block = freeBlocks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (block != null) return block;
+            }
+        } catch (InterruptedException e) {
+            // If interrupted, allocate a new block rather than losing records
+            Thread.currentThread().interrupt();
+            return new Block();
+        }
+    }
+
+    /**
+     * Hand a block over to the compression thread, rethrowing its error if it has failed
+     */
+    private void submitBlock(Block block) {
+        try {
+            do {
+                checkCompression();
+            } while (!pendingBlocks.offer(block, POLL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rethrow, in the simulation thread, any error which stopped the compression thread, such as a failure to open or
+     * write a transactions file
+     */
+    private void checkCompression() {
+        Throwable failure = compressionFailure;
+        if (failure != null) throw new RuntimeException("Micro data compression thread failed", failure);
+        if (compressionThread != null && !compressionThread.isAlive() && pendingBlocks.size() > 0) {
+            throw new IllegalStateException("Micro data compression thread stopped with blocks still pending");
+        }
+    }
+
+    /**
+     * Main loop of the compression thread: compress and write blocks in the order they were submitted, returning each
+     * of them to the pool once written, until the final block is received. Any error writing a file stops the thread,
+     * to be rethrown in the simulation thread
+     */
+    private void runCompression() throws IOException {
+        OutputStream outfile = null;
+        byte [] scratch = new byte[BLOCK_SIZE];
+        boolean finished = false;
+        while (!finished) {
+            Block block;
+            try {
+                block = pendingBlocks.take();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+                return;
+            }
+            switch (block.kind) {
+                case OPEN_FILE:
+                    outfile = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(
+                            outputFolderCopy + "transactions-" + block.nSimulation + ".bin.gz")), BLOCK_SIZE);
+                    writeInt(outfile, MAGIC);
+                    writeInt(outfile, VERSION);
+                    break;
+                case DATA:
+                    block.data.flip();
+                    int length = block.data.remaining();
+                    block.data.get(scratch, 0, length);
+                    outfile.write(scratch, 0, length);
+                    break;
+                case CLOSE_FILE:
+                    outfile.close();
+                    break;
+                case FINISH:
+                    finished = true;
+                    break;
+            }
+            block.data.clear();
+            freeBlocks.offer(block);
+        }
+    }
+
+    private static void writeInt(OutputStream stream, int value) throws IOException {
+        stream.write(value >>> 24);
+        stream.write(value >>> 16);
+        stream.write(value >>> 8);
+        stream.write(value);
+    }
+
+    /**
+     * Preallocated direct buffer of transaction records, also used to pass file rotation commands in order
+     */
+    private static class Block {
+        int         kind;
+        int         nSimulation;
+        ByteBuffer  data = ByteBuffer.allocateDirect(BLOCK_SIZE);
+    }
 }
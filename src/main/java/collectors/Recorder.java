@@ -1,13 +1,32 @@
 package collectors;
 
+import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import housing.Model;
+import utilities.NumberFormatter;
 
 /**************************************************************************************************
- * Class to write output to files
+ * Class to write output to files. In order to keep disk access and string formatting away from the
+ * simulation thread, each time step's values are copied into a preallocated primitive row buffer,
+ * which is then handed over to a dedicated writer thread in charge of formatting and printing it.
+ * Row buffers are recycled through a bounded pool, such that the simulation thread only waits when
+ * the writer thread falls behind by more than N_ROW_BUFFERS rows (back-pressure). Since the writer
+ * thread processes rows strictly in the order they are submitted, rows are written in the same order
+ * as before. The columns of the general output file are defined by OUTPUT_RUN_SCHEMA, a list of column
+ * names registered by the different collectors at the ColumnRegistry, and their values are written by
+ * the writer thread straight into a reusable byte buffer, without intermediate Strings. Note that
+ * doubles are written as the shortest decimal that rounds back to the same value (see NumberFormatter),
+ * which reads back exactly but is not byte-identical to Double.toString: the latter sometimes prints
+ * more digits than needed, e.g., 9.999999999999999E22 for 1.0E23, or 4.9E-324 for 5.0E-324.
  *
  * @author daniel, Adrian Carro
  *
@@ -18,24 +37,73 @@ public class Recorder {
     //----- Fields -----//
     //------------------//
 
-    private String outputFolder;
-
-    private PrintWriter outfile;
-
-    private PrintWriter ooLTI;
-    private PrintWriter btlLTV;
-    private PrintWriter creditGrowth;
-    private PrintWriter debtToIncome;
-    private PrintWriter ooDebtToIncome;
-    private PrintWriter mortgageApprovals;
-    private PrintWriter housingTransactions;
-    private PrintWriter advancesToFTBs;
-    private PrintWriter advancesToBTL;
-    private PrintWriter advancesToHomeMovers;
-    private PrintWriter priceToIncome;
-    private PrintWriter rentalYield;
-    private PrintWriter housePriceGrowth;
-    private PrintWriter interestRateSpread;
+    // Number of preallocated row buffers shared between the simulation and the writer threads
+    private static final int    N_ROW_BUFFERS = 64;
+
+    // Kinds of rows that can be submitted to the writer thread
+    private static final int    OPEN_RUN = 0;
+    private static final int    TIME_STAMP = 1;
+    private static final int    FINISH_RUN = 2;
+    private static final int    FINISH = 3;
+
+    // Names of the columns of the general output file, in the order they are written to file
+    private static final String [] OUTPUT_RUN_SCHEMA = {
+            "Model time",
+            // Number of households of each type
+            "nNonBTLHomeless", "nBTLHomeless", "nHomeless", "nRenting", "nNonOwner",
+            "nNonBTLOwnerOccupier", "nBTLOwnerOccupier", "nOwnerOccupier", "nActiveBTL", "nBTL", "nNonBTLBankrupt",
+            "nBTLBankrupt", "TotalPopulation",
+            // Numbers of houses of each type
+            "HousingStock", "nNewBuild", "nUnsoldNewBuild", "nEmptyHouses", "BTLStockFraction",
+            // House sale market data
+            "Sale HPI", "Sale AnnualHPA", "Sale AvBidPrice", "Sale AvOfferPrice", "Sale AvSalePrice",
+            "Sale ExAvSalePrice", "Sale AvDaysOnMarket", "Sale ExpAvDaysOnMarket", "Sale nBuyers", "Sale nBTLBuyers",
+            "Sale nSellers", "Sale nNewSellers", "Sale nBTLSellers", "Sale nSales",
+            "Sale nNonBTLBidsAboveExpAvSalePrice", "Sale nBTLBidsAboveExpAvSalePrice", "Sale nSalesToBTL",
+            "Sale nSalesToFTB",
+            // Rental market data
+            "Rental HPI", "Rental AnnualHPA", "Rental AvBidPrice", "Rental AvOfferPrice", "Rental AvSalePrice",
+            "Rental AvDaysOnMarket", "Rental nBuyers", "Rental nSellers", "Rental nSales", "Rental ExpAvFlowYield",
+            // Credit data
+            "nRegisteredMortgages"};
+
+    // Column layout of the core indicator files, with 'i' for integer and 'd' for double values, in the same order
+    // as the files in coreIndicatorFiles
+    private static final String CORE_LAYOUT = "dddddiiiiidddd";
+
+    private static final byte []    LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final byte []    VALUE_SEPARATOR = {',', ' '};
+    private static final long       WRITER_POLL_MILLIS = 100; // Interval at which to check the writer thread while waiting
+
+    private String                          outputFolder;
+
+    private OutputStream                    outfile;
+    private ColumnRegistry.Column []        outputColumns;  // Registered columns of the general output file
+    private boolean []                      isIntegerColumn;
+    private byte []                         line;           // Reusable byte buffer for a row of the general output file
+    private EnsembleStats                   ensembleStats;  // Statistics across simulations, null if not recorded
+
+    private PrintWriter                     ooLTI;
+    private PrintWriter                     btlLTV;
+    private PrintWriter                     creditGrowth;
+    private PrintWriter                     debtToIncome;
+    private PrintWriter                     ooDebtToIncome;
+    private PrintWriter                     mortgageApprovals;
+    private PrintWriter                     housingTransactions;
+    private PrintWriter                     advancesToFTBs;
+    private PrintWriter                     advancesToBTL;
+    private PrintWriter                     advancesToHomeMovers;
+    private PrintWriter                     priceToIncome;
+    private PrintWriter                     rentalYield;
+    private PrintWriter                     housePriceGrowth;
+    private PrintWriter                     interestRateSpread;
+    private PrintWriter []                  coreIndicatorFiles;
+    private boolean                         isCoreRowStarted; // True once core indicators are written in this run
+
+    private ArrayBlockingQueue<RowBuffer>   freeRows;       // Row buffers ready to be filled by the simulation thread
+    private ArrayBlockingQueue<RowBuffer>   pendingRows;    // Row buffers waiting to be written by the writer thread
+    private Thread                          writerThread;
+    private volatile Throwable              writerFailure;  // Error which stopped the writer thread, null if none
 
     //------------------------//
     //----- Constructors -----//
@@ -48,6 +116,27 @@ public class Recorder {
     //-------------------//
 
     public void openMultiRunFiles(boolean recordCoreIndicators) {
+        // Collect the columns registered by the different collectors and resolve the general output file schema
+        ColumnRegistry registry = new ColumnRegistry(Model.config.HOUSEHOLD_WEIGHT);
+        registerColumns(registry);
+        Model.householdStats.registerColumns(registry);
+        Model.housingMarketStats.registerColumns(registry);
+        Model.rentalMarketStats.registerColumns(registry);
+        Model.creditSupply.registerColumns(registry);
+        outputColumns = registry.getColumns(OUTPUT_RUN_SCHEMA);
+        isIntegerColumn = new boolean[outputColumns.length];
+        for (int i = 0; i < outputColumns.length; i++) isIntegerColumn[i] = outputColumns[i].isInteger();
+        line = new byte[outputColumns.length*(NumberFormatter.MAX_DOUBLE_LENGTH + VALUE_SEPARATOR.length)
+                + LINE_SEPARATOR.length];
+        // Preallocate the pool of row buffers
+        freeRows = new ArrayBlockingQueue<>(N_ROW_BUFFERS);
+        pendingRows = new ArrayBlockingQueue<>(N_ROW_BUFFERS);
+        for (int i = 0; i < N_ROW_BUFFERS; i++) freeRows.add(new RowBuffer(outputColumns.length));
+        // If required, prepare online statistics of the general output across simulations
+        if (Model.config.recordEnsembleStats) {
+            ensembleStats = new EnsembleStats(OUTPUT_RUN_SCHEMA, Model.config.ENSEMBLE_QUANTILES);
+        }
+
         // If recording of core indicators is active...
         if(recordCoreIndicators) {
             // ...try opening necessary files
@@ -83,165 +172,254 @@ public class Recorder {
             } catch (FileNotFoundException | UnsupportedEncodingException e) {
                 e.printStackTrace();
             }
+            // Keep core indicator files in the same order as their values in CORE_LAYOUT
+            coreIndicatorFiles = new PrintWriter [] {ooLTI, btlLTV, creditGrowth, debtToIncome, ooDebtToIncome,
+                    mortgageApprovals, housingTransactions, advancesToFTBs, advancesToBTL, advancesToHomeMovers,
+                    priceToIncome, rentalYield, housePriceGrowth, interestRateSpread};
         }
+        // Start the writer thread, which takes care of all file writing from now on
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runWriter();
+                } catch (Throwable t) {
+                    writerFailure = t;
+                }
+            }
+        }, "Recorder-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
     }
 
     public void openSingleRunFiles(int nRun) {
-        // Try opening output files (national and for each region) and write first row header with column names
+        // Files are opened by the writer thread, so as to keep them in order with respect to previous runs' rows
+        RowBuffer row = takeFreeRow();
+        row.kind = OPEN_RUN;
+        row.time = nRun;
+        submitRow(row);
+    }
+
+    public void writeTimeStampResults(boolean recordCoreIndicators, int time) {
+        RowBuffer row = takeFreeRow();
+        row.kind = TIME_STAMP;
+        row.time = time;
+        row.recordCoreIndicators = recordCoreIndicators;
+        if (recordCoreIndicators) {
+            // Copy core indicators results
+            double [] core = row.coreValues;
+            core[0] = Model.coreIndicators.getOwnerOccupierLTIMeanAboveMedian();
+            core[1] = Model.coreIndicators.getBuyToLetLTVMean();
+            core[2] = Model.coreIndicators.getHouseholdCreditGrowth();
+            core[3] = Model.coreIndicators.getDebtToIncome();
+            core[4] = Model.coreIndicators.getOODebtToIncome();
+            core[5] = Model.coreIndicators.getMortgageApprovals();
+            core[6] = Model.coreIndicators.getHousingTransactions();
+            core[7] = Model.coreIndicators.getAdvancesToFTBs();
+            core[8] = Model.coreIndicators.getAdvancesToBTL();
+            core[9] = Model.coreIndicators.getAdvancesToHomeMovers();
+            core[10] = Model.coreIndicators.getPriceToIncome();
+            core[11] = Model.coreIndicators.getAvStockYield();
+            core[12] = Model.coreIndicators.getQoQHousePriceGrowth();
+            core[13] = Model.coreIndicators.getInterestRateSpread();
+        }
+
+        // Copy general output results
+        double [] values = row.values;
+        for (int i = 0; i < outputColumns.length; i++) values[i] = outputColumns[i].read();
+        submitRow(row);
+    }
+
+    public void finishRun(boolean recordCoreIndicators) {
+        RowBuffer row = takeFreeRow();
+        row.kind = FINISH_RUN;
+        row.recordCoreIndicators = recordCoreIndicators;
+        submitRow(row);
+    }
+
+    public void finish(boolean recordCoreIndicators) {
+        RowBuffer row = takeFreeRow();
+        row.kind = FINISH;
+        row.recordCoreIndicators = recordCoreIndicators;
+        submitRow(row);
+        // Wait for the writer thread to write all pending rows and close all files
         try {
-            outfile = new PrintWriter(outputFolder + "Output-run" + nRun + ".csv", "UTF-8");
-            outfile.println("Model time, "
-                    // Number of households of each type
-                    + "nNonBTLHomeless, nBTLHomeless, nHomeless, nRenting, nNonOwner, "
-                    + "nNonBTLOwnerOccupier, nBTLOwnerOccupier, nOwnerOccupier, nActiveBTL, nBTL, nNonBTLBankrupt, "
-                    + "nBTLBankrupt, TotalPopulation, "
-                    // Numbers of houses of each type
-                    + "HousingStock, nNewBuild, nUnsoldNewBuild, nEmptyHouses, BTLStockFraction, "
-                    // House sale market data
-                    + "Sale HPI, Sale AnnualHPA, Sale AvBidPrice, Sale AvOfferPrice, Sale AvSalePrice, "
-                    + "Sale ExAvSalePrice, Sale AvDaysOnMarket, Sale ExpAvDaysOnMarket, Sale nBuyers, Sale nBTLBuyers, "
-                    + "Sale nSellers, Sale nNewSellers, Sale nBTLSellers, Sale nSales, "
-                    + "Sale nNonBTLBidsAboveExpAvSalePrice, Sale nBTLBidsAboveExpAvSalePrice, Sale nSalesToBTL, "
-                    + "Sale nSalesToFTB, "
-                    // Rental market data
-                    + "Rental HPI, Rental AnnualHPA, Rental AvBidPrice, Rental AvOfferPrice, Rental AvSalePrice, "
-                    + "Rental AvDaysOnMarket, Rental nBuyers, Rental nSellers, Rental nSales, Rental ExpAvFlowYield, "
-                    // Credit data
-                    + "nRegisteredMortgages");
-        } catch (FileNotFoundException | UnsupportedEncodingException e) {
+            writerThread.join();
+        } catch (InterruptedException e) {
             e.printStackTrace();
+            Thread.currentThread().interrupt();
         }
+        checkWriter();
     }
 
-    public void writeTimeStampResults(boolean recordCoreIndicators, int time) {
-        if (recordCoreIndicators) {
-            // If not at the first point in time...
-            if (time > 0) {
-                // ...write value separation for core indicators (except for time 0)
-                ooLTI.print(", ");
-                btlLTV.print(", ");
-                creditGrowth.print(", ");
-                debtToIncome.print(", ");
-                ooDebtToIncome.print(", ");
-                mortgageApprovals.print(", ");
-                housingTransactions.print(", ");
-                advancesToFTBs.print(", ");
-                advancesToBTL.print(", ");
-                advancesToHomeMovers.print(", ");
-                priceToIncome.print(", ");
-                rentalYield.print(", ");
-                housePriceGrowth.print(", ");
-                interestRateSpread.print(", ");
+    /**
+     * Take an empty row buffer from the pool, waiting for the writer thread to release one if none is available. The
+     * wait is done in short polls so that, should the writer thread fail, its error is rethrown instead of blocking
+     * forever
+     */
+    private RowBuffer takeFreeRow() {
+        try {
+            while (true) {
+                checkWriter();
+                RowBuffer row = freeRows.poll(WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (row != null) return row;
             }
-            // Write core indicators results
-            ooLTI.print(Model.coreIndicators.getOwnerOccupierLTIMeanAboveMedian());
-            btlLTV.print(Model.coreIndicators.getBuyToLetLTVMean());
-            creditGrowth.print(Model.coreIndicators.getHouseholdCreditGrowth());
-            debtToIncome.print(Model.coreIndicators.getDebtToIncome());
-            ooDebtToIncome.print(Model.coreIndicators.getOODebtToIncome());
-            mortgageApprovals.print(Model.coreIndicators.getMortgageApprovals());
-            housingTransactions.print(Model.coreIndicators.getHousingTransactions());
-            advancesToFTBs.print(Model.coreIndicators.getAdvancesToFTBs());
-            advancesToBTL.print(Model.coreIndicators.getAdvancesToBTL());
-            advancesToHomeMovers.print(Model.coreIndicators.getAdvancesToHomeMovers());
-            priceToIncome.print(Model.coreIndicators.getPriceToIncome());
-            rentalYield.print(Model.coreIndicators.getAvStockYield());
-            housePriceGrowth.print(Model.coreIndicators.getQoQHousePriceGrowth());
-            interestRateSpread.print(Model.coreIndicators.getInterestRateSpread());
+        } catch (InterruptedException e) {
+            // If interrupted, allocate a new buffer rather than losing the row
+            Thread.currentThread().interrupt();
+            return new RowBuffer(outputColumns.length);
         }
+    }
 
-        // Write general output results to output file
-        outfile.println(time + ", " +
-                // Number of households of each type
-                Model.householdStats.getnNonBTLHomeless() + ", " +
-                Model.householdStats.getnBTLHomeless() + ", " +
-                Model.householdStats.getnHomeless() + ", " +
-                Model.householdStats.getnRenting() + ", " +
-                Model.householdStats.getnNonOwner() + ", " +
-                Model.householdStats.getnNonBTLOwnerOccupier() + ", " +
-                Model.householdStats.getnBTLOwnerOccupier() + ", " +
-                Model.householdStats.getnOwnerOccupier() + ", " +
-                Model.householdStats.getnActiveBTL() + ", " +
-                Model.householdStats.getnBTL() + ", " +
-                Model.householdStats.getnNonBTLBankruptcies() + ", " +
-                Model.householdStats.getnBTLBankruptcies() + ", " +
-                Model.households.size() + ", " +
-                // Numbers of houses of each type
-                Model.construction.getHousingStock() + ", " +
-                Model.construction.getnNewBuild() + ", " +
-                Model.housingMarketStats.getnUnsoldNewBuild() + ", " +
-                Model.householdStats.getnEmptyHouses() + ", " +
-                Model.householdStats.getBTLStockFraction() + ", " +
-                // House sale market data
-                Model.housingMarketStats.getHPI() + ", " +
-                Model.housingMarketStats.getAnnualHPA() + ", " +
-                Model.housingMarketStats.getAvBidPrice() + ", " +
-                Model.housingMarketStats.getAvOfferPrice() + ", " +
-                Model.housingMarketStats.getAvSalePrice() + ", " +
-                Model.housingMarketStats.getExpAvSalePrice() + ", " +
-                Model.housingMarketStats.getAvDaysOnMarket() + ", " +
-                Model.housingMarketStats.getExpAvDaysOnMarket() + ", " +
-                Model.housingMarketStats.getnBuyers() + ", " +
-                Model.housingMarketStats.getnBTLBuyers() + ", " +
-                Model.housingMarketStats.getnSellers() + ", " +
-                Model.housingMarketStats.getnNewSellers() + ", " +
-                Model.housingMarketStats.getnBTLSellers() + ", " +
-                Model.housingMarketStats.getnSales() + ", " +
-                Model.householdStats.getnNonBTLBidsAboveExpAvSalePrice() + ", " +
-                Model.householdStats.getnBTLBidsAboveExpAvSalePrice() + ", " +
-                Model.housingMarketStats.getnSalesToBTL() + ", " +
-                Model.housingMarketStats.getnSalesToFTB() + ", " +
-                // Rental market data
-                Model.rentalMarketStats.getHPI() + ", " +
-                Model.rentalMarketStats.getAnnualHPA() + ", " +
-                Model.rentalMarketStats.getAvBidPrice() + ", " +
-                Model.rentalMarketStats.getAvOfferPrice() + ", " +
-                Model.rentalMarketStats.getAvSalePrice() + ", " +
-                Model.rentalMarketStats.getAvDaysOnMarket() + ", " +
-                Model.rentalMarketStats.getnBuyers() + ", " +
-                Model.rentalMarketStats.getnSellers() + ", " +
-                Model.rentalMarketStats.getnSales() + ", " +
-                Model.rentalMarketStats.getExpAvFlowYield() + ", " +
-                // Credit data
-                Model.creditSupply.getnRegisteredMortgages());
+    /**
+     * Hand a filled row buffer over to the writer thread, rethrowing its error if it has failed
+     */
+    private void submitRow(RowBuffer row) {
+        try {
+            do {
+                checkWriter();
+            } while (!pendingRows.offer(row, WRITER_POLL_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
     }
 
-    public void finishRun(boolean recordCoreIndicators) {
-        if (recordCoreIndicators) {
-            ooLTI.println("");
-            btlLTV.println("");
-            creditGrowth.println("");
-            debtToIncome.println("");
-            ooDebtToIncome.println("");
-            mortgageApprovals.println("");
-            housingTransactions.println("");
-            advancesToFTBs.println("");
-            advancesToBTL.println("");
-            advancesToHomeMovers.println("");
-            priceToIncome.println("");
-            rentalYield.println("");
-            housePriceGrowth.println("");
-            interestRateSpread.println("");
+    /**
+     * Rethrow, in the simulation thread, any error which stopped the writer thread
+     */
+    private void checkWriter() {
+        Throwable failure = writerFailure;
+        if (failure != null) throw new RuntimeException("Recorder writer thread failed", failure);
+        if (writerThread != null && !writerThread.isAlive() && pendingRows.size() > 0) {
+            throw new IllegalStateException("Recorder writer thread stopped with rows still pending");
         }
-        outfile.close();
     }
 
-    public void finish(boolean recordCoreIndicators) {
-        if (recordCoreIndicators) {
-            ooLTI.close();
-            btlLTV.close();
-            creditGrowth.close();
-            debtToIncome.close();
-            ooDebtToIncome.close();
-            mortgageApprovals.close();
-            housingTransactions.close();
-            advancesToFTBs.close();
-            advancesToBTL.close();
-            advancesToHomeMovers.close();
-            priceToIncome.close();
-            rentalYield.close();
-            housePriceGrowth.close();
-            interestRateSpread.close();
+    /**
+     * Main loop of the writer thread: format and write rows in the order they were submitted, returning each buffer
+     * to the pool once written, until the final row is received. Failures to write the ensemble statistics are thrown,
+     * to be rethrown in the simulation thread
+     */
+    private void runWriter() throws IOException {
+        boolean finished = false;
+        while (!finished) {
+            RowBuffer row;
+            try {
+                row = pendingRows.take();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+                return;
+            }
+            switch (row.kind) {
+                case OPEN_RUN:
+                    isCoreRowStarted = false;
+                    if (Model.config.recordRunFiles) writeHeader(row.time);
+                    break;
+                case TIME_STAMP:
+                    writeRow(row);
+                    if (ensembleStats != null) ensembleStats.add(row.time, row.values);
+                    break;
+                case FINISH_RUN:
+                    if (row.recordCoreIndicators) {
+                        for (PrintWriter file : coreIndicatorFiles) file.println("");
+                    }
+                    if (outfile != null) {
+                        try {
+                            outfile.close();
+                            outfile = null;
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                    break;
+                case FINISH:
+                    if (row.recordCoreIndicators) {
+                        for (PrintWriter file : coreIndicatorFiles) file.close();
+                    }
+                    if (ensembleStats != null) ensembleStats.write(outputFolder + "Output-ensemble.csv");
+                    finished = true;
+                    break;
+            }
+            freeRows.offer(row);
+        }
+    }
+
+    private void writeHeader(int nRun) {
+        // Try opening output files (national and for each region) and write first row header with column names
+        StringBuilder header = new StringBuilder();
+        for (ColumnRegistry.Column column : outputColumns) {
+            if (header.length() > 0) header.append(", ");
+            header.append(column.getName());
+        }
+        try {
+            outfile = new BufferedOutputStream(new FileOutputStream(outputFolder + "Output-run" + nRun + ".csv"));
+            outfile.write(header.toString().getBytes(StandardCharsets.UTF_8));
+            outfile.write(LINE_SEPARATOR);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
     }
+
+    private void writeRow(RowBuffer row) {
+        if (row.recordCoreIndicators) {
+            for (int i = 0; i < coreIndicatorFiles.length; i++) {
+                // Write value separation for core indicators (except for the first time step recorded in this run,
+                // which need not be time 0 if the start of recording is delayed)
+                if (isCoreRowStarted) coreIndicatorFiles[i].print(", ");
+                if (CORE_LAYOUT.charAt(i) == 'i') {
+                    coreIndicatorFiles[i].print((int)row.coreValues[i]);
+                } else {
+                    coreIndicatorFiles[i].print(row.coreValues[i]);
+                }
+            }
+            isCoreRowStarted = true;
+        }
+        // Write general output results to output file, if any
+        if (outfile == null) return;
+        int position = 0;
+        for (int i = 0; i < row.values.length; i++) {
+            if (i > 0) {
+                line[position++] = VALUE_SEPARATOR[0];
+                line[position++] = VALUE_SEPARATOR[1];
+            }
+            if (isIntegerColumn[i]) {
+                position = NumberFormatter.appendInt(line, position, (int)row.values[i]);
+            } else {
+                position = NumberFormatter.appendDouble(line, position, row.values[i]);
+            }
+        }
+        System.arraycopy(LINE_SEPARATOR, 0, line, position, LINE_SEPARATOR.length);
+        position += LINE_SEPARATOR.length;
+        try {
+            outfile.write(line, 0, position);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Register the columns that do not belong to any collector
+     */
+    private void registerColumns(ColumnRegistry registry) {
+        registry.registerInt("Model time", new ColumnRegistry.IntColumn() {
+            public int get() { return Model.getTime(); } });
+        registry.registerCount("HousingStock", new ColumnRegistry.IntColumn() {
+            public int get() { return Model.construction.getHousingStock(); } });
+        registry.registerCount("nNewBuild", new ColumnRegistry.IntColumn() {
+            public int get() { return Model.construction.getnNewBuild(); } });
+    }
+
+    /**
+     * Preallocated primitive storage for the values of a single row, reused across time steps
+     */
+    private static class RowBuffer {
+        int             kind;
+        int             time;
+        boolean         recordCoreIndicators;
+        double []       values;
+        double []       coreValues = new double[CORE_LAYOUT.length()];
+
+        RowBuffer(int nColumns) { values = new double[nColumns]; }
+    }
 }
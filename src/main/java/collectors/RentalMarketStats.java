@@ -49,6 +49,7 @@ public class RentalMarketStats extends HousingMarketStats {
 		referencePricePerQuality = new double[config.N_QUALITY];
 		System.arraycopy(data.HouseSaleMarket.getReferenceRentalPricePerQuality(), 0, referencePricePerQuality, 0,
 				config.N_QUALITY); // Copies reference rental prices from data/HouseSaleMarket
+		sumMonthsOnMarketPerQualityCount = new double[config.N_QUALITY];
 	}
 
 	//-------------------//
@@ -87,7 +88,7 @@ public class RentalMarketStats extends HousingMarketStats {
 	public void preClearingRecord() {
 		super.preClearingRecord();
 		// Re-initialise to zero variables to be computed later on, during market clearing, counters
-		sumMonthsOnMarketPerQualityCount = new double[config.N_QUALITY];
+		Arrays.fill(sumMonthsOnMarketPerQualityCount, 0.0);
 	}
 
 	//----- Rental-specific during-market-clearing methods -----//
@@ -146,6 +147,17 @@ public class RentalMarketStats extends HousingMarketStats {
 				+ (1.0 - config.derivedParams.KL)*avFlowYield;
 	}
 
+	/**
+	 * This method overrides the corresponding one at the HousingMarketStats class so as to register rental market
+	 * columns, prefixed by "Rental ", instead of house sale market ones
+	 */
+	@Override
+	public void registerColumns(ColumnRegistry registry) {
+		registerMarketColumns(registry, "Rental ");
+		registry.registerDouble("Rental ExpAvFlowYield", new ColumnRegistry.DoubleColumn() {
+			public double get() { return getExpAvFlowYield(); } });
+	}
+
 	//----- Getter/setter methods -----//
 
 	// Note that, for security reasons, getters should never give or use counter variables, as their value changes
@@ -0,0 +1,140 @@
+package collectors;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**************************************************************************************************
+ * Utility to validate the weighted household mode, by comparing the general output of runs with
+ * fewer households, each representing HOUSEHOLD_WEIGHT real households, against the output of
+ * full-size runs. For each column of the Output-run files, the mean over all time steps from a given
+ * first step onwards is computed for every run, and the average across runs of these means, together
+ * with its standard error, is reported for both sets of runs, along with their relative difference
+ * and the number of standard errors it amounts to. Note that weighted runs already write household
+ * and house counts scaled by their household weight, such that both sets of runs are compared in
+ * terms of real households. It can be run from the command line as
+ *
+ *      java collectors.WeightingValidation <weighted output folder> <full-size output folder> [first step] [report file]
+ *
+ * where the first step defaults to 0 and the report, in CSV format, is printed to the console if
+ * no report file is given.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class WeightingValidation {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private String []   columnNames;
+    private double []   sumOfMeans; // Sum across runs of the mean of each column within the run
+    private double []   sumOfSquaredMeans;
+    private int         nRuns;
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Usage: java collectors.WeightingValidation <weighted output folder> " +
+                    "<full-size output folder> [first step] [report file (.csv)]");
+            System.exit(0);
+        }
+        int firstStep = (args.length > 2) ? Integer.parseInt(args[2]) : 0;
+        try {
+            WeightingValidation weighted = new WeightingValidation();
+            weighted.readOutputFolder(args[0], firstStep);
+            WeightingValidation fullSize = new WeightingValidation();
+            fullSize.readOutputFolder(args[1], firstStep);
+            PrintWriter report = (args.length > 3) ? new PrintWriter(args[3], "UTF-8")
+                    : new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            writeReport(weighted, fullSize, report);
+            report.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read all Output-run files in an output folder
+     */
+    private void readOutputFolder(String folder, int firstStep) throws IOException {
+        File [] runFiles = new File(folder).listFiles();
+        if (runFiles == null) throw new IOException(folder + " is not a readable folder");
+        for (File runFile : runFiles) {
+            if (runFile.getName().startsWith("Output-run") && runFile.getName().endsWith(".csv")) {
+                readRunFile(runFile, firstStep);
+            }
+        }
+        if (nRuns == 0) throw new IOException("No Output-run files found in " + folder);
+    }
+
+    private void readRunFile(File runFile, int firstStep) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(runFile))) {
+            String [] header = in.readLine().split(", *");
+            if (columnNames == null) {
+                columnNames = header;
+                sumOfMeans = new double[header.length];
+                sumOfSquaredMeans = new double[header.length];
+            } else if (header.length != columnNames.length) {
+                throw new IOException(runFile + " does not have the same columns as previous runs");
+            }
+            double [] sums = new double[header.length];
+            int nSteps = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String [] values = line.split(", *");
+                if (Integer.parseInt(values[0].trim()) < firstStep) continue;
+                for (int i = 0; i < values.length; i++) sums[i] += Double.parseDouble(values[i]);
+                nSteps++;
+            }
+            if (nSteps == 0) throw new IOException(runFile + " has no time steps from " + firstStep + " onwards");
+            for (int i = 0; i < sums.length; i++) {
+                double mean = sums[i]/nSteps;
+                sumOfMeans[i] += mean;
+                sumOfSquaredMeans[i] += mean*mean;
+            }
+            nRuns++;
+        }
+    }
+
+    private double getMean(int column) { return sumOfMeans[column]/nRuns; }
+
+    /**
+     * @return Standard error of the average across runs of the mean of a column, 0.0 for a single run
+     */
+    private double getStandardError(int column) {
+        if (nRuns < 2) return 0.0;
+        double mean = getMean(column);
+        double variance = (sumOfSquaredMeans[column] - nRuns*mean*mean)/(nRuns - 1);
+        return Math.sqrt(Math.max(0.0, variance)/nRuns);
+    }
+
+    private static void writeReport(WeightingValidation weighted, WeightingValidation fullSize, PrintWriter report)
+            throws IOException {
+        if (weighted.columnNames.length != fullSize.columnNames.length) {
+            throw new IOException("Weighted and full-size runs do not have the same columns");
+        }
+        report.println("Column, WeightedMean, WeightedStdErr, FullSizeMean, FullSizeStdErr, RelativeDifference, " +
+                "StdErrsApart");
+        report.println("# Runs, " + weighted.nRuns + ", , " + fullSize.nRuns + ", , , ");
+        for (int i = 1; i < weighted.columnNames.length; i++) {
+            double weightedMean = weighted.getMean(i);
+            double fullSizeMean = fullSize.getMean(i);
+            double difference = weightedMean - fullSizeMean;
+            double standardError = Math.sqrt(Math.pow(weighted.getStandardError(i), 2)
+                    + Math.pow(fullSize.getStandardError(i), 2));
+            report.println(weighted.columnNames[i] + ", " + weightedMean + ", " + weighted.getStandardError(i) + ", "
+                    + fullSizeMean + ", " + fullSize.getStandardError(i) + ", "
+                    + ((fullSizeMean != 0.0) ? difference/Math.abs(fullSizeMean) : Double.NaN) + ", "
+                    + ((standardError > 0.0) ? difference/standardError : Double.NaN));
+        }
+    }
+}
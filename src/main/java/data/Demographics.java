@@ -40,8 +40,10 @@ public class Demographics {
     @SuppressWarnings("MismatchedQueryAndUpdateOfCollection") // Warning due to data array not being queried (other variables are used)
     private static BinnedDataDouble probDeathGivenAgeData  = new BinnedDataDouble(config.DATA_DEATH_PROB_GIVEN_AGE);
 
-    // Once data on household age at birth and on death probabilities has been loaded, compute birth rate
+    // Once data on household age at birth and on death probabilities has been loaded, compute birth rate...
     private static double birthRate = computeBirthRate();
+    // ...and the stationary probability density of household ages these imply, in yearly bins
+    public static Pdf pdfStationaryHouseholdAge = new Pdf(computeStationaryAgeDistribution());
 
     //-------------------//
     //----- Methods -----//
@@ -77,6 +79,31 @@ public class Demographics {
         return 1.0/(1 + sum1 + sum2);
     }
 
+    /**
+     * Compute the probability of each age (in yearly bins) in a stationary population, that is, one where the
+     * households born each month at ages given by the age at birth distribution have been subject to the death
+     * probabilities for long enough. Month by month of age, the number of households of a given age is the number of
+     * households one month younger which survive, plus those born at that age.
+     */
+    private static BinnedDataDouble computeStationaryAgeDistribution() {
+        int firstMonth = (int)householdAgeAtBirth.getSupportLowerBound()*config.constants.MONTHS_IN_YEAR;
+        int lastBirthMonth = (int)householdAgeAtBirth.getSupportUpperBound()*config.constants.MONTHS_IN_YEAR;
+        BinnedDataDouble stationaryAge = new BinnedDataDouble(householdAgeAtBirth.getSupportLowerBound(), 1.0);
+        double nHouseholds = 0.0; // Number of households of the current age in months (per household born per month)
+        double sum = 0.0;
+        for (int i = firstMonth; i < lastBirthMonth || nHouseholds > 0.0; i++) {
+            nHouseholds = nHouseholds*(1.0 - probDeathGivenAge(((double) i)/config.constants.MONTHS_IN_YEAR)
+                    /config.constants.MONTHS_IN_YEAR);
+            if (i < lastBirthMonth) nHouseholds += probHouseholdAgeAtBirthPerMonth(i);
+            int bin = (i - firstMonth)/config.constants.MONTHS_IN_YEAR;
+            if (bin == stationaryAge.size()) stationaryAge.add(0.0);
+            stationaryAge.set(bin, stationaryAge.get(bin) + nHouseholds);
+            sum += nHouseholds;
+        }
+        for (int bin = 0; bin < stationaryAge.size(); bin++) stationaryAge.set(bin, stationaryAge.get(bin)/sum);
+        return stationaryAge;
+    }
+
     /**
      * Method that gives, for a given age in years, its corresponding probability of death
      *
@@ -0,0 +1,96 @@
+package housing;
+
+/**************************************************************************************************
+ * Index of the offers on the house sale market by expected gross rental yield, used to match
+ * buy-to-let bids. The expected yield of an offer is the average flow rental yield for its quality
+ * band times the exponential moving average sale price for that band divided by its list price,
+ * so, within a quality band, the cheapest offer is always the highest yielding one. Thus, instead of
+ * keeping a second priority queue up to date with every new offer and price change, the index is
+ * rebuilt once per market clearing, from the price-sorted offers, as one price-sorted snapshot per
+ * quality band, using the yield statistics current at that time. The best offer for a given price
+ * is then the highest yielding among the cheapest offers of each band still on the market.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+class BTLYieldIndex {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private HouseOfferRecord [][]   offersPerQuality; // Price-sorted snapshot of the offers for each quality band
+    private int []                  nOffersPerQuality; // Number of offers in the snapshot for each quality band
+    private int []                  firstOffer; // Position of the cheapest offer still on the market for each quality band
+    private double []               yieldFactor; // Average flow yield times average sale price for each quality band
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    BTLYieldIndex(int nQualities) {
+        offersPerQuality = new HouseOfferRecord[nQualities][16];
+        nOffersPerQuality = new int[nQualities];
+        firstOffer = new int[nQualities];
+        yieldFactor = new double[nQualities];
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Rebuild the index from the offers in an order book, which are iterated in ascending price order
+     *
+     * @param offers Order book with the offers on the market
+     */
+    void rebuild(OrderBook offers) {
+        for (int q = 0; q < offersPerQuality.length; q++) {
+            for (int i = 0; i < nOffersPerQuality[q]; i++) offersPerQuality[q][i] = null;
+            nOffersPerQuality[q] = 0;
+            firstOffer[q] = 0;
+            yieldFactor[q] = Model.rentalMarketStats.getAvFlowYieldForQuality(q)
+                    *Model.housingMarketStats.getExpAvSalePriceForQuality(q);
+        }
+        for (HouseOfferRecord offer : offers) {
+            int q = offer.getQuality();
+            if (nOffersPerQuality[q] == offersPerQuality[q].length) {
+                HouseOfferRecord [] newOffers = new HouseOfferRecord[2*offersPerQuality[q].length];
+                System.arraycopy(offersPerQuality[q], 0, newOffers, 0, nOffersPerQuality[q]);
+                offersPerQuality[q] = newOffers;
+            }
+            offersPerQuality[q][nOffersPerQuality[q]++] = offer;
+        }
+    }
+
+    /**
+     * Find the highest yielding offer still on the market with a price not above maxPrice, the cheapest one in case of
+     * equal yields. Offers sold or withdrawn since the index was rebuilt are skipped, while offers made since then are
+     * not considered
+     *
+     * @param maxPrice Highest price the buy-to-let investor is ready to pay
+     * @return The best offer, null if no offer is cheap enough
+     */
+    HouseOfferRecord getBestOffer(double maxPrice) {
+        HouseOfferRecord bestOffer = null;
+        double bestYield = 0.0;
+        for (int q = 0; q < offersPerQuality.length; q++) {
+            // Skip offers no longer on the market
+            while (firstOffer[q] < nOffersPerQuality[q]
+                    && offersPerQuality[q][firstOffer[q]].getHouse().getSaleRecord() != offersPerQuality[q][firstOffer[q]]) {
+                firstOffer[q]++;
+            }
+            if (firstOffer[q] == nOffersPerQuality[q]) continue;
+            HouseOfferRecord offer = offersPerQuality[q][firstOffer[q]];
+            if (offer.getPrice() > maxPrice || offer.getPrice() <= 0.0) continue;
+            double yield = yieldFactor[q]/offer.getPrice();
+            if (bestOffer == null || yield > bestYield || (yield == bestYield
+                    && (offer.getPrice() < bestOffer.getPrice()
+                    || (offer.getPrice() == bestOffer.getPrice() && offer.getId() < bestOffer.getId())))) {
+                bestOffer = offer;
+                bestYield = yield;
+            }
+        }
+        return bestOffer;
+    }
+}
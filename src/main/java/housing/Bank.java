@@ -83,7 +83,7 @@ public class Bank {
 	/**
 	 *  Reset counters for the next month
 	 */
-	private void resetMonthlyCounters() {
+	void resetMonthlyCounters() {
 		supplyVal = 0.0;
         nOOMortgagesOverLTI = 0;
         nOOMortgages = 0;
@@ -148,6 +148,7 @@ public class Bank {
 		MortgageAgreement approval = requestApproval(h, housePrice, desiredDownPayment, isHome);
 		if(approval == null) return(null);
 		// --- if all's well, go ahead and arrange mortgage
+		Model.contracts.schedule(approval, config.derivedParams.N_PAYMENTS);
 		supplyVal += approval.principal;
 		if(approval.principal > 0.0) {
 			mortgages.add(approval);
@@ -217,7 +218,6 @@ public class Bank {
 		}
 		
 		approval.monthlyPayment = approval.principal* getMonthlyPaymentFactor(isHome);
-		approval.nPayments = config.derivedParams.N_PAYMENTS;
 		approval.monthlyInterestRate = r;
 		approval.purchasePrice = approval.principal + approval.downPayment;
 
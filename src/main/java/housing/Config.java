@@ -26,11 +26,31 @@ public class Config {
 
     // General model control parameters
     int SEED;                               // Seed for the random number generator
+    String PRNG_BACKEND;                    // Random number generator: MersenneTwister, Xoroshiro128PlusPlus, SplittableRandom or PCG32
+    boolean FAST_VARIATES;                  // True to draw normal and geometric variates with faster, non-reproducing methods
+    boolean COMMON_RANDOM_NUMBERS;          // True to draw each kind of random event from its own stream, seeded anew for each simulation
+    boolean ANTITHETIC_REPLICAS;            // True for every even simulation to repeat the previous one with antithetic streams
+    boolean COHORT_STEPPING;                // True to step households cohort by cohort, by housing state, instead of in list order
     int N_STEPS;				            // Simulation duration in time steps
     int TIME_TO_START_RECORDING;	        // Time steps before recording statistics (initialisation time)
+    boolean AUTO_BURN_IN;                   // True to start recording only once key series are detected to be stationary
+    public int BURN_IN_WINDOW;              // Number of time steps over which the stationarity of key series is tested
+    public double BURN_IN_MAX_DRIFT;        // Maximum difference between the means of both halves of the window, in pooled standard deviations
+    public double BURN_IN_MAX_VARIANCE_RATIO;   // Maximum ratio between the variances of both halves of the window
+    int N_STATIONARY_STEPS;                 // Number of stationary time steps after which to end each simulation, 0 to run all N_STEPS
     int N_SIMS; 					        // Number of simulations to run (monte-carlo)
     boolean recordCoreIndicators;		    // True to write time series for each core indicator
+    public boolean recordRunFiles;          // True to write the general output of each simulation to its own Output-run file
+    public boolean recordEnsembleStats;     // True to write statistics across simulations of the general output to Output-ensemble.csv
+    public String ENSEMBLE_QUANTILES;       // Comma-separated probabilities of the quantiles to estimate across simulations
     boolean recordMicroData;			    // True to write micro data for each transaction made
+    public int MICRO_DATA_SAMPLING;         // Record only transactions involving 1 in every MICRO_DATA_SAMPLING households (by id)
+    public int MICRO_DATA_START_TIME;       // First time step for which micro data is recorded
+    public int MICRO_DATA_END_TIME;         // Last time step for which micro data is recorded (negative for no limit)
+    public boolean MICRO_DATA_RENTALS;      // True to record rental market transactions
+    public boolean MICRO_DATA_FTB_SALES;    // True to record house sales to first-time buyers
+    public boolean MICRO_DATA_BTL_SALES;    // True to record house sales to buy-to-let investors
+    public boolean MICRO_DATA_OTHER_SALES;  // True to record any other house sales (home movers)
 
     // House parameters
     public int N_QUALITY;                   // Number of quality bands for houses
@@ -43,9 +63,12 @@ public class Config {
     double HPI_MEDIAN;                          // Median house price
     public double HPI_SHAPE;                    // Shape parameter for the log-normal distribution of housing prices
     public double RENT_GROSS_YIELD;             // Profit margin for buy-to-let investors
+    boolean QUALITY_BUCKETED_ORDER_BOOK;        // True to keep offers in one price heap per quality band, false for a 2D priority queue
 
     // Demographic parameters
     public int TARGET_POPULATION;           // Target number of households
+    public double HOUSEHOLD_WEIGHT;         // Number of real households represented by each household in the model
+    boolean STATIONARY_INITIAL_POPULATION;  // True to start each simulation with the target population at its stationary age distribution
     public double FUTURE_BIRTH_RATE;        // Future birth rate (births per year per capita), calibrated with flux of FTBs
 
     // Household parameters
@@ -107,6 +130,8 @@ public class Config {
     double DECISION_TO_SELL_BETA;           // Weight of interest rate effect
     double DECISION_TO_SELL_HPC;            // TODO: fudge parameter, explicitly explained otherwise in the paper
     double DECISION_TO_SELL_INTEREST;       // TODO: fudge parameter, explicitly explained otherwise in the paper
+    boolean EVENT_DRIVEN_SELL_DECISIONS;    // True to draw owner-occupiers' sell decisions as waiting times, instead of every month (not BTL investment properties)
+    double SELL_DECISION_TOLERANCE;         // Relative margin of the waiting times probability over the monthly probability to sell
     // Household behaviour parameters: BTL buy/sell choice
     double BTL_CHOICE_INTENSITY;            // Shape parameter, or intensity of choice on effective yield
     double BTL_CHOICE_MIN_BANK_BALANCE;     // Minimun bank balance, as a percentage of the desired bank balance, to buy new properties
@@ -141,6 +166,7 @@ public class Config {
     // Collectors parameters
     double UK_HOUSEHOLDS;                       // Approximate number of households in UK, used to scale up results for core indicators
     boolean MORTGAGE_DIAGNOSTICS_ACTIVE;        // Whether to record mortgage statistics
+    public boolean HOUSEHOLD_STATS_FULL_SCAN;   // Whether to check incremental household counters against a full scan
 
     /** Declaration of addresses **/        // They must be public to be accessed from data package
 
@@ -240,6 +266,14 @@ public class Config {
         return UK_HOUSEHOLDS;
     }
 
+    /**
+     * @return Number of real households represented by the target population of the model, given the weight of each
+     * household
+     */
+    public double getRepresentedPopulation() {
+        return TARGET_POPULATION*HOUSEHOLD_WEIGHT;
+    }
+
     public double getPInvestor() {
         return P_INVESTOR;
     }
@@ -348,10 +382,33 @@ public class Config {
             System.out.println("Exception " + ioe + " while trying to read file '" + configFileName + "'");
             ioe.printStackTrace();
         }
-        // Finally, compute and set values for all derived parameters
+        // Check that parameter values are usable, and finally compute and set values for all derived parameters
+        checkParameterValues();
         setDerivedParams();
     }
 
+    /**
+     * Method to check that parameters with a restricted range of valid values are within that range. Note that, unlike
+     * parsing problems, which are reported and skipped, invalid values stop the simulation, as they would otherwise
+     * lead to meaningless results (such as NaN variances)
+     */
+    private void checkParameterValues() {
+        // Burn-in detection parameters, only used if AUTO_BURN_IN is true
+        if (AUTO_BURN_IN) {
+            // Each half of the window needs at least two values for its variance to be defined
+            if (BURN_IN_WINDOW < 4) {
+                throw new InvalidParameterValueException("BURN_IN_WINDOW", BURN_IN_WINDOW, "at least 4");
+            }
+            if (!(BURN_IN_MAX_DRIFT > 0.0)) {
+                throw new InvalidParameterValueException("BURN_IN_MAX_DRIFT", BURN_IN_MAX_DRIFT, "positive");
+            }
+            if (!(BURN_IN_MAX_VARIANCE_RATIO > 0.0)) {
+                throw new InvalidParameterValueException("BURN_IN_MAX_VARIANCE_RATIO", BURN_IN_MAX_VARIANCE_RATIO,
+                        "positive");
+            }
+        }
+    }
+
     /**
      * Method to compute and set values for all derived parameters
      */
@@ -382,6 +439,16 @@ public class Config {
         BooleanFormatException(String message) { super(message); }
     }
 
+    /**
+     * Exception for detecting parameter values outside their range of valid values
+     */
+    public class InvalidParameterValueException extends RuntimeException {
+        InvalidParameterValueException(String fieldName, Object value, String validRange) {
+            super("Field \"" + fieldName + "\" has value " + value + " in the config.properties file, but must be " +
+                    validRange);
+        }
+    }
+
     /**
      * Exception for detecting unrecognised (not implemented) field types
      */
@@ -1,8 +1,6 @@
 package housing;
 
-import org.apache.commons.math3.random.MersenneTwister;
-
-import java.util.HashSet;
+import utilities.Prng;
 
 
 public class Construction implements IHouseOwner{
@@ -15,16 +13,14 @@ public class Construction implements IHouseOwner{
     private int                         nNewBuild; // Number of houses built this month
 
     private Config	                    config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister             prng;
-    private HashSet<House>              onMarket;
+    private Prng                        prng;
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-	public Construction(MersenneTwister prng) {
+	public Construction(Prng prng) {
 		housingStock = 0;
-		onMarket = new HashSet<>();
 		this.prng = prng;
 	}
 
@@ -34,17 +30,18 @@ public class Construction implements IHouseOwner{
 
 	public void init() {
         housingStock = 0;
-		onMarket.clear();
+        // If starting with the whole target population in place, build the whole target housing stock right away
+        if (config.STATIONARY_INITIAL_POPULATION) {
+            build((int)(config.TARGET_POPULATION*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD));
+        }
 	}
 
 	public void step() {
         // Initialise to zero the number of houses built this month
         nNewBuild = 0;
-        // First update prices of properties put on the market on previous time steps and still unsold
-        for(House h : onMarket) {
-            Model.houseSaleMarket.updateOffer(h.getSaleRecord(), h.getSaleRecord().getPrice()*0.95);
-        }
-        // Then, compute target housing stock dependent on current and target population
+        // Note that prices of properties put on the market on previous time steps and still unsold are discounted every
+        // month by the market itself, as they are offered with a decaying price
+        // Compute target housing stock dependent on current and target population
         int targetStock;
         if(Model.households.size() < config.TARGET_POPULATION) {
             targetStock = (int)(Model.households.size()*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD);
@@ -57,26 +54,32 @@ public class Construction implements IHouseOwner{
         if (shortFall > 0) {
             // ...add this shortfall to the number of houses built this month
             nNewBuild += shortFall;
+            // ...and build them
+            build(shortFall);
         }
-        // ...and while there is any positive shortfall...
+	}
+
+    /**
+     * Build new houses, with random qualities, and put them for sale at the reference price for their quality
+     */
+    private void build(int nHouses) {
         House newHouse;
-        while(shortFall > 0) {
+        while(nHouses > 0) {
             // ...create a new house with a random quality and with the construction sector as the owner
             newHouse = new House((int)(prng.nextDouble()*config.N_QUALITY));
-            newHouse.owner = this;
-            // ...put the house for sale in the house sale market at the reference price for that quality
-            Model.houseSaleMarket.offer(newHouse,
-                    Model.housingMarketStats.getReferencePriceForQuality(newHouse.getQuality()), false);
-            // ...add the house to the portfolio of construction sector properties
-            onMarket.add(newHouse);
-            // ...and finally increase housing stocks, and decrease shortfall
+            newHouse.setOwner(this);
+            // ...put the house for sale in the house sale market at the reference price for that quality, to be
+            // discounted every month until sold
+            Model.houseSaleMarket.offerWithDecayingPrice(newHouse,
+                    Model.housingMarketStats.getReferencePriceForQuality(newHouse.getQuality()));
+            // ...and finally increase housing stocks, and decrease the number of houses left to build
             ++housingStock;
-            --shortFall;
+            --nHouses;
 		}
 	}
 
 	@Override
-	public void completeHouseSale(HouseOfferRecord sale) { onMarket.remove(sale.getHouse()); }
+	public void completeHouseSale(HouseOfferRecord sale) {} // Sold properties are simply no longer on the market
 
 	@Override
 	public void endOfLettingAgreement(House h, PaymentAgreement p) {
@@ -0,0 +1,103 @@
+package housing;
+
+import java.util.ArrayList;
+
+import utilities.CalendarQueue;
+import utilities.Prng;
+
+/**************************************************************************************************
+ * Service firing the end of payment agreements (mortgage maturities and tenancy expiries) in the
+ * month they are due. As the number of payments of each contract is known at its creation, the
+ * month of its last payment is scheduled then in a calendar queue, instead of every contract
+ * counting down its payments until none are left. At the beginning of that month, before households
+ * make their monthly decisions, the contract is flagged as ending, so that it expires as soon as its
+ * last payment is made. Thus, tenants still pay their last rent, move out and bid for a new home
+ * during their own step, and mortgages are paid off the month after their last payment, in the same
+ * order as any other household decisions. Contracts ending early (mortgages paid off, tenancies
+ * ended by a move or an eviction, and contracts of deceased households) are cancelled, so that the
+ * calendar only holds contracts still running, rather than keeping each of them for up to
+ * N_PAYMENTS months after it is gone. Contracts of the initial population, all arranged before
+ * the first month, are backdated to random times in the past, so that their ends do not cluster.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class ContractScheduler {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private CalendarQueue<PaymentAgreement> calendar; // Payment agreements by month of their last payment
+    private ArrayList<PaymentAgreement>     dueAgreements = new ArrayList<>(); // Reusable list of agreements due this month
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    ContractScheduler(Config config) {
+        calendar = new CalendarQueue<>(Math.max(config.TENANCY_LENGTH_AVERAGE + config.TENANCY_LENGTH_EPSILON,
+                config.derivedParams.N_PAYMENTS) + 1);
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    void init() { calendar.clear(0); }
+
+    /**
+     * Schedule the end of a payment agreement created this month, whose first payment will be made next month
+     *
+     * @param agreement The new payment agreement
+     * @param nPayments Number of monthly payments to be made, the agreement expiring right away if zero
+     */
+    void schedule(PaymentAgreement agreement, int nPayments) {
+        if (nPayments > 0) {
+            agreement.tLastPayment = Model.getTime() + nPayments;
+            calendar.add(agreement, agreement.tLastPayment);
+        } else {
+            agreement.isExpired = true;
+        }
+    }
+
+    /**
+     * Remove from the calendar a payment agreement ending before its last scheduled payment. Agreements not scheduled,
+     * or already flagged as ending, are ignored
+     */
+    void cancel(PaymentAgreement agreement) {
+        if (agreement.tLastPayment >= 0) {
+            calendar.remove(agreement, agreement.tLastPayment);
+            agreement.tLastPayment = -1;
+        }
+    }
+
+    /**
+     * Turn a payment agreement created this month into one created at a random time in the past, drawing the number of
+     * payments left uniformly between one and the number scheduled at its creation. Agreements not scheduled are ignored
+     *
+     * @param agreement The new payment agreement
+     * @param prng Generator to draw the number of payments left from
+     * @return Number of payments left, zero for agreements not scheduled
+     */
+    int backdate(PaymentAgreement agreement, Prng prng) {
+        if (agreement.tLastPayment < 0) return 0;
+        int nPaymentsLeft = 1 + prng.nextInt(agreement.tLastPayment - Model.getTime());
+        cancel(agreement);
+        schedule(agreement, nPaymentsLeft);
+        return nPaymentsLeft;
+    }
+
+    /**
+     * Flag as ending the payment agreements whose last payment is due this month. To be called once per month, before
+     * the households' step
+     */
+    void step() {
+        calendar.drainTo(Model.getTime(), dueAgreements);
+        for (PaymentAgreement agreement : dueAgreements) {
+            agreement.isEnding = true;
+            agreement.tLastPayment = -1;
+        }
+        dueAgreements.clear();
+    }
+}
@@ -0,0 +1,171 @@
+package housing;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**************************************************************************************************
+ * Order book keeping offers with a decaying price (those whose price is multiplied by a common
+ * factor every month, such as unsold new builds offered by the construction sector) apart from the
+ * rest. Since all decaying prices are discounted by the same factor at the same time, their relative
+ * order never changes, and thus they can be kept in their own order book, with their prices
+ * discounted in place once per month, rather than being repriced and re-sorted every month. Queries
+ * and iterations combine the results from both order books.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+class DecayingPriceOrderBook implements OrderBook {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private OrderBook                           regularOffers; // Offers whose price only changes when explicitly set
+    private QualityBucketOrderBook              decayingOffers; // Offers with a decaying price
+    private HousingMarketRecord.PQComparator    comparator = new HousingMarketRecord.PQComparator();
+    private HouseOfferRecord []                 regularBuffer = new HouseOfferRecord[0]; // Reusable buffer for rebuilding
+    private HouseOfferRecord []                 decayingBuffer = new HouseOfferRecord[0]; // Reusable buffer for rebuilding
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    DecayingPriceOrderBook(OrderBook regularOffers, int nQualities) {
+        this.regularOffers = regularOffers;
+        decayingOffers = new QualityBucketOrderBook(nQualities);
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void add(HouseOfferRecord offer) {
+        if (offer.hasDecayingPrice()) {
+            decayingOffers.add(offer);
+        } else {
+            regularOffers.add(offer);
+        }
+    }
+
+    /**
+     * Note that offers with a decaying price must be removed before setting their price explicitly, as this changes the
+     * order book they belong to
+     */
+    @Override
+    public boolean remove(HouseOfferRecord offer) {
+        if (offer.hasDecayingPrice()) {
+            return decayingOffers.remove(offer);
+        } else {
+            return regularOffers.remove(offer);
+        }
+    }
+
+    /**
+     * Apply one monthly decay to the prices of all offers with a decaying price. Since all of them are discounted by
+     * the same factor, neither their order book nor its ordering needs to be updated
+     */
+    void applyPriceDecay() {
+        for (HouseOfferRecord offer : decayingOffers) offer.decayPrice();
+    }
+
+    @Override
+    public void sortPriorities() {
+        regularOffers.sortPriorities();
+        decayingOffers.sortPriorities();
+    }
+
+    /**
+     * Best offer among the best regular offer and the best offer with a decaying price, i.e., the one with the highest
+     * quality and, for equal qualities, the cheapest one (the one with the smallest id, for equal prices)
+     */
+    @Override
+    public HouseOfferRecord peek(HousingMarketRecord bid) {
+        HouseOfferRecord regularOffer = regularOffers.peek(bid);
+        if (decayingOffers.size() == 0) return regularOffer;
+        HouseOfferRecord decayingOffer = decayingOffers.peek(bid);
+        if (regularOffer == null) return decayingOffer;
+        if (decayingOffer == null) return regularOffer;
+        if (regularOffer.getQuality() != decayingOffer.getQuality()) {
+            return (regularOffer.getQuality() > decayingOffer.getQuality()) ? regularOffer : decayingOffer;
+        }
+        return (comparator.XYCompare(regularOffer, decayingOffer) < 0) ? regularOffer : decayingOffer;
+    }
+
+    @Override
+    public void rebuild(HouseOfferRecord [] sortedOffers, int n) {
+        if (regularBuffer.length < n) {
+            regularBuffer = new HouseOfferRecord[2*n];
+            decayingBuffer = new HouseOfferRecord[2*n];
+        }
+        int nRegular = 0;
+        int nDecaying = 0;
+        for (int i = 0; i < n; i++) {
+            if (sortedOffers[i].hasDecayingPrice()) {
+                decayingBuffer[nDecaying++] = sortedOffers[i];
+            } else {
+                regularBuffer[nRegular++] = sortedOffers[i];
+            }
+        }
+        regularOffers.rebuild(regularBuffer, nRegular);
+        decayingOffers.rebuild(decayingBuffer, nDecaying);
+        for (int i = 0; i < nRegular; i++) regularBuffer[i] = null;
+        for (int i = 0; i < nDecaying; i++) decayingBuffer[i] = null;
+    }
+
+    @Override
+    public int size() { return regularOffers.size() + decayingOffers.size(); }
+
+    @Override
+    public void clear() {
+        regularOffers.clear();
+        decayingOffers.clear();
+    }
+
+    /**
+     * Iterate through all offers in ascending price, descending quality and ascending id order. If both order books
+     * hold offers, their iterators are merged lazily, advancing only the one whose offer was last returned, so that
+     * removal through this iterator can be delegated to that underlying iterator
+     */
+    @Override
+    public Iterator<HouseOfferRecord> iterator() {
+        if (decayingOffers.size() == 0) return regularOffers.iterator();
+        if (regularOffers.size() == 0) return decayingOffers.iterator();
+        final Iterator<HouseOfferRecord> regularIt = regularOffers.iterator();
+        final Iterator<HouseOfferRecord> decayingIt = decayingOffers.iterator();
+        return new Iterator<HouseOfferRecord>() {
+            private HouseOfferRecord nextRegular; // Next regular offer, null if none left or not yet taken
+            private HouseOfferRecord nextDecaying; // Next offer with a decaying price, null if none left or not yet taken
+            private Iterator<HouseOfferRecord> lastIt; // Underlying iterator of the offer last returned, null if none
+            @Override
+            public boolean hasNext() {
+                return nextRegular != null || nextDecaying != null || regularIt.hasNext() || decayingIt.hasNext();
+            }
+            @Override
+            public HouseOfferRecord next() {
+                // Underlying iterators are only advanced here, so that the last one used still points to its last offer
+                if (nextRegular == null && regularIt.hasNext()) nextRegular = regularIt.next();
+                if (nextDecaying == null && decayingIt.hasNext()) nextDecaying = decayingIt.next();
+                HouseOfferRecord offer;
+                if (nextDecaying == null
+                        || (nextRegular != null && comparator.XYCompare(nextRegular, nextDecaying) < 0)) {
+                    if (nextRegular == null) throw new NoSuchElementException();
+                    offer = nextRegular;
+                    nextRegular = null;
+                    lastIt = regularIt;
+                } else {
+                    offer = nextDecaying;
+                    nextDecaying = null;
+                    lastIt = decayingIt;
+                }
+                return offer;
+            }
+            @Override
+            public void remove() {
+                if (lastIt == null) throw new IllegalStateException();
+                lastIt.remove();
+                lastIt = null;
+            }
+        };
+    }
+}
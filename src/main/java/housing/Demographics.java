@@ -1,8 +1,9 @@
 package housing;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import utilities.Prng;
 
 public class Demographics {
 
@@ -11,28 +12,87 @@ public class Demographics {
 	//------------------//
 
 	private Config	            config = Model.config; // Passes the Model's configuration parameters object to a private field
-	private MersenneTwister     prng;
+	private Prng                birthPrng; // Stream for births and the characteristics of newly born households
+	private Prng                deathPrng; // Stream for deaths and the choice of heirs
+    // Dense index of the households alive, such that they can be referred to by an int slot (as in HouseRegistry)
+    private Household []        householdsBySlot = new Household[16];
+    private int                 nSlots; // Number of slots ever assigned in the current simulation
+    private int []              freeSlots = new int[16]; // Slots released by deceased households, to be reused...
+    private int                 nFreeSlots; // ...last released first
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-	public Demographics(MersenneTwister prng) { this.prng = prng; }
+	public Demographics(Prng birthPrng, Prng deathPrng) {
+		this.birthPrng = birthPrng;
+		this.deathPrng = deathPrng;
+	}
 
     //-------------------//
     //----- Methods -----//
     //-------------------//
 
+    /**
+     * Remove all households from previous simulations from the index
+     */
+    void init() {
+        Arrays.fill(householdsBySlot, 0, nSlots, null);
+        nSlots = 0;
+        nFreeSlots = 0;
+    }
+
+    /**
+     * Add a household to the population, assigning it a slot, the last released one if any or a new one otherwise
+     */
+    private void addHousehold(Household h) {
+        if (nFreeSlots > 0) {
+            h.slot = freeSlots[--nFreeSlots];
+        } else {
+            if (nSlots == householdsBySlot.length) householdsBySlot = Arrays.copyOf(householdsBySlot, 2*nSlots);
+            h.slot = nSlots++;
+        }
+        householdsBySlot[h.slot] = h;
+        Model.households.add(h);
+    }
+
+    /**
+     * Release the slot of a deceased household, once it no longer owns nor lives in any house
+     */
+    private void releaseSlot(Household h) {
+        householdsBySlot[h.slot] = null;
+        if (nFreeSlots == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, 2*nFreeSlots);
+        freeSlots[nFreeSlots++] = h.slot;
+        h.slot = -1;
+    }
+
+    /**
+     * @return Household alive at the given slot
+     */
+    Household getHousehold(int slot) { return householdsBySlot[slot]; }
+
+    /**
+     * Start a simulation with the whole target population in place, drawing the ages of the households from the
+     * stationary age distribution, such that the population need not be grown from zero by births. Note that all
+     * households start off in social housing, as newly born households do, until the initial housing stock is
+     * allocated among them through the markets (see Model.allocateInitialHousingStock)
+     */
+    void initStationaryPopulation() {
+        for (int i = 0; i < config.TARGET_POPULATION; i++) {
+            addHousehold(new Household(data.Demographics.pdfStationaryHouseholdAge.nextDouble(birthPrng)));
+        }
+    }
+
     /**
      * Adds newly "born" households to the model and removes households that "die".
      */
 	public void step() {
         // Birth: Add new households at a rate compatible with the age at birth distribution, the probability of
         // death dependent on age, and the target population
-        int nBirths = (int) (config.TARGET_POPULATION * data.Demographics.getBirthRate() + prng.nextDouble());
+        int nBirths = (int) (config.TARGET_POPULATION * data.Demographics.getBirthRate() + birthPrng.nextDouble());
         // Finally, add the households, with random ages drawn from the corresponding distribution
         while (nBirths-- > 0) {
-            Model.households.add(new Household(prng));
+            addHousehold(new Household());
         }
         // Death: Kill households with a probability dependent on their age and organise inheritance
         double pDeath;
@@ -40,10 +100,13 @@ public class Demographics {
         while (iterator.hasNext()) {
             Household h = iterator.next();
             pDeath = data.Demographics.probDeathGivenAge(h.getAge())/config.constants.MONTHS_IN_YEAR;
-            if (prng.nextDouble() < pDeath) {
+            if (deathPrng.nextDouble() < pDeath) {
                 iterator.remove();
+                Model.householdStats.removeHousehold(h.getStatsCategory());
+                if (config.COHORT_STEPPING) Model.cohorts.remove(h);
                 // Inheritance
-                h.transferAllWealthTo(Model.households.get(prng.nextInt(Model.households.size())));
+                h.transferAllWealthTo(Model.households.get(deathPrng.nextInt(Model.households.size())));
+                releaseSlot(h);
             }
         }
 	}
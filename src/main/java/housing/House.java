@@ -14,50 +14,49 @@ public class House implements Comparable<House> {
 
     private static int 	id_pool = 0;
 
-    public IHouseOwner  owner;
-    public Household    resident;
-    public int          id;
-
-    HouseOfferRecord saleRecord;
-    HouseOfferRecord rentalRecord;
-
-    private int         quality;
+    public final int    id; // Key to the house's attributes, kept in columns by Model.houseRegistry
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
     /**
-     * Creates a house of quality quality in region region
+     * Creates a house of quality quality in region region, with no owner nor resident
      *
      * @param quality Quality band characterizing the house
      */
 	public House(int quality) {
 		this.id = ++id_pool;
-        this.owner = null;
-        this.resident = null;
-		this.quality = quality;
+		Model.houseRegistry.add(id, quality);
 	}
 
     //-------------------//
     //----- Methods -----//
     //-------------------//
 
-	boolean isOnMarket() { return saleRecord != null; }
+	boolean isOnMarket() { return getSaleRecord() != null; }
+
+	HouseOfferRecord getSaleRecord() { return Model.houseRegistry.getSaleRecord(id); }
+
+	HouseOfferRecord getRentalRecord() { return Model.houseRegistry.getRentalRecord(id); }
+
+	boolean isOnRentalMarket() { return getRentalRecord() != null; }
+    void putForSale(HouseOfferRecord saleRecord) { Model.houseRegistry.setSaleRecord(id, saleRecord); }
+
+	void resetSaleRecord() { Model.houseRegistry.setSaleRecord(id, null); }
+    void putForRent(HouseOfferRecord rentalRecord) { Model.houseRegistry.setRentalRecord(id, rentalRecord); }
 
-	HouseOfferRecord getSaleRecord() { return saleRecord; }
+	void resetRentalRecord() { Model.houseRegistry.setRentalRecord(id, null); }
 
-	HouseOfferRecord getRentalRecord() { return rentalRecord; }
+	public int getQuality() { return Model.houseRegistry.getQuality(id); }
 
-	boolean isOnRentalMarket() { return rentalRecord != null; }
-    void putForSale(HouseOfferRecord saleRecord) { this.saleRecord = saleRecord; }
+	public IHouseOwner getOwner() { return Model.houseRegistry.getOwner(id); }
 
-	void resetSaleRecord() { saleRecord = null; }
-    void putForRent(HouseOfferRecord rentalRecord) { this.rentalRecord = rentalRecord; }
+	void setOwner(IHouseOwner owner) { Model.houseRegistry.setOwner(id, owner); }
 
-	void resetRentalRecord() { rentalRecord = null; }
+	public Household getResident() { return Model.houseRegistry.getResident(id); }
 
-	public int getQuality() { return quality; }
+	void setResident(Household resident) { Model.houseRegistry.setResident(id, resident); }
 
 	@Override
 	public int compareTo(House o) { return((int)Math.signum(id-o.id)); }
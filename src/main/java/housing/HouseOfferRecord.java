@@ -1,6 +1,8 @@
 package housing;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**************************************************************************************************
  * This class encapsulates information on a house that is to be offered on the rental or the
@@ -17,25 +19,36 @@ public class HouseOfferRecord extends HousingMarketRecord {
 	//----- Fields -----//
 	//------------------//
 
+    static final double                     MONTHLY_PRICE_DECAY = 0.95; // Monthly factor applied to decaying prices
+
     private House                           house;
-    private ArrayList<HouseBidderRecord>    matchedBids;
+    private ArrayList<HouseBidderRecord>    matchedBids; // Only created at the first match, as most offers get none
     private double                          initialListedPrice;
     private int                             tInitialListing; // Time of initial listing
-    private double                          houseSpecificYield;
     private boolean                         BTLOffer; // True if buy-to-let investor offering an investment property, false if homeowner offering home (Note that rental offers are all set to false)
+    private boolean                         BTLSeller; // True if the owner at the time of listing is a household with the BTL gene
+    int                                     orderBookPosition; // Position within the order book structures, if any, holding this offer
+    double                                  pendingPrice = Double.NaN; // New list price waiting to be applied by the market, NaN if none
+    private boolean                         decayingPrice; // True if the price decays by MONTHLY_PRICE_DECAY every month until explicitly set
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-    public HouseOfferRecord(House house, double price, boolean BTLOffer) {
+    public HouseOfferRecord(House house, double price, boolean BTLOffer) { this(house, price, BTLOffer, false); }
+
+    /**
+     * @param decayingPrice True for the price to be multiplied by MONTHLY_PRICE_DECAY at the beginning of every month
+     *                      after listing, until a new price is explicitly set
+     */
+    HouseOfferRecord(House house, double price, boolean BTLOffer, boolean decayingPrice) {
         super(price);
+        this.decayingPrice = decayingPrice;
         this.house = house;
         this.BTLOffer = BTLOffer;
+        BTLSeller = (house.getOwner() instanceof Household) && ((Household)house.getOwner()).isPropertyInvestor();
         initialListedPrice = price;
         tInitialListing = Model.getTime();
-        matchedBids = new ArrayList<>(8); // TODO: Check if this initial size of 8 is good enough or can be improved
-        recalculateHouseSpecificYield(price);
     }
 
     //-------------------//
@@ -43,29 +56,32 @@ public class HouseOfferRecord extends HousingMarketRecord {
     //-------------------//
 
     /**
-     * Expected gross rental yield for this particular property, obtained by multiplying the average flow gross rental
-     * yield for houses of this quality in this particular region by the average sale price for houses of this quality
-     * in this region and dividing by the actual listed price of this property
+     * Record the match of the offer of this property with a bid
      *
-     * @param price Updated price of the property
+     * @param bid The bid being matched to the offer
      */
-    private void recalculateHouseSpecificYield(double price) {
-        int q = house.getQuality();
-        if (price > 0) {
-            houseSpecificYield = Model.rentalMarketStats.getAvFlowYieldForQuality(q)
-                    *Model.housingMarketStats.getExpAvSalePriceForQuality(q)
-                    /price;
-        }
+    void matchWith(HouseBidderRecord bid) {
+        // TODO: Check if this initial size of 8 is good enough or can be improved
+        if (matchedBids == null) matchedBids = new ArrayList<>(8);
+        matchedBids.add(bid);
     }
 
+    //----- Getter/setter methods -----//
+
     /**
-     * Record the match of the offer of this property with a bid
-     *
-     * @param bid The bid being matched to the offer
+     * Apply the monthly decay to the price of an offer with a decaying price. Called by the market once per month for
+     * all such offers, which keeps their relative order unchanged
      */
-    void matchWith(HouseBidderRecord bid) { matchedBids.add(bid); }
+    void decayPrice() { super.setPrice(super.getPrice()*MONTHLY_PRICE_DECAY); }
 
-    //----- Getter/setter methods -----//
+    /**
+     * Set the list price for this property, which stops any monthly decay of the price
+     */
+    @Override
+    public void setPrice(double newPrice) {
+        decayingPrice = false;
+        super.setPrice(newPrice);
+    }
 
     /**
      * Quality of this property
@@ -74,29 +90,31 @@ public class HouseOfferRecord extends HousingMarketRecord {
 	public int getQuality() { return house.getQuality(); }
 
 	/**
-	 * Expected gross yield for this particular house, based on the current average flow yield and the actual listed
-     * price for the house, and taking into account both the quality and the expected occupancy levels
+	 * Expected gross yield for this particular house, obtained by multiplying the current average flow gross rental
+     * yield for houses of this quality by the current average sale price for houses of this quality and dividing by the
+     * actual listed price of this property
 	 */
 	@Override
-	public double getYield() { return houseSpecificYield; }
-
-    /**
-     * Set the listed price for this property
-     *
-     * @param newPrice The new listed price for this property
-     */
-	public void setPrice(double newPrice) {
-		super.setPrice(newPrice);
-        recalculateHouseSpecificYield(newPrice);
-	}
+	public double getYield() {
+        if (getPrice() <= 0.0) return 0.0;
+        return Model.rentalMarketStats.getAvFlowYieldForQuality(getQuality())
+                *Model.housingMarketStats.getExpAvSalePriceForQuality(getQuality())/getPrice();
+    }
 
     public House getHouse() { return house; }
 
-    ArrayList<HouseBidderRecord> getMatchedBids() { return matchedBids; }
+    List<HouseBidderRecord> getMatchedBids() {
+        if (matchedBids == null) return Collections.emptyList();
+        return matchedBids;
+    }
 
     public double getInitialListedPrice() { return initialListedPrice; }
 
     public int gettInitialListing() { return tInitialListing; }
 
     public boolean isBTLOffer() { return BTLOffer; }
+
+    public boolean isBTLSeller() { return BTLSeller; }
+
+    public boolean hasDecayingPrice() { return decayingPrice; }
 }
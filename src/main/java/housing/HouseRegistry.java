@@ -0,0 +1,134 @@
+package housing;
+
+import java.util.Arrays;
+
+/**************************************************************************************************
+ * Columnar store of the state of all houses built during a simulation, with one array per
+ * attribute (quality, owner, resident, and sale and rental offer records) indexed by house id,
+ * relative to the id of the first house built in the current simulation. House objects are then
+ * lightweight views holding only their id, and passes over the whole housing stock can simply scan
+ * these arrays. Owners and residents are kept as int columns, holding the slot of the household in
+ * the dense index maintained by Demographics (or a reserved value for no household and for the
+ * construction sector), such that, unlike reference arrays, they need not be traced by the garbage
+ * collector.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class HouseRegistry {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int    NONE = -1; // Owner or resident value for no owner or resident
+    private static final int    CONSTRUCTION = -2; // Owner value for the construction sector
+
+    private int                 firstId; // Id of the first house built in the current simulation
+    private int                 size; // Number of houses built in the current simulation
+    private int []              quality;
+    private int []              owner; // Slot of the owning household, or NONE or CONSTRUCTION
+    private int []              resident; // Slot of the resident household, or NONE
+    private HouseOfferRecord [] saleRecord;
+    private HouseOfferRecord [] rentalRecord;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param initialCapacity Number of houses for which space is initially reserved
+     */
+    HouseRegistry(int initialCapacity) {
+        quality = new int[initialCapacity];
+        owner = new int[initialCapacity];
+        resident = new int[initialCapacity];
+        saleRecord = new HouseOfferRecord[initialCapacity];
+        rentalRecord = new HouseOfferRecord[initialCapacity];
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Remove all houses from previous simulations, releasing their owners, residents and records
+     */
+    void init() {
+        Arrays.fill(saleRecord, 0, size, null);
+        Arrays.fill(rentalRecord, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Register a newly built house, with no owner nor resident and off the markets. Note that houses must be
+     * registered in increasing order of consecutive ids
+     */
+    void add(int id, int houseQuality) {
+        if (size == 0) {
+            firstId = id;
+        } else if (id != firstId + size) {
+            throw new IllegalArgumentException("House " + id + " registered out of order, expected " + (firstId + size));
+        }
+        if (size == quality.length) {
+            int capacity = Math.max(16, 2*size);
+            quality = Arrays.copyOf(quality, capacity);
+            owner = Arrays.copyOf(owner, capacity);
+            resident = Arrays.copyOf(resident, capacity);
+            saleRecord = Arrays.copyOf(saleRecord, capacity);
+            rentalRecord = Arrays.copyOf(rentalRecord, capacity);
+        }
+        owner[size] = NONE;
+        resident[size] = NONE;
+        quality[size++] = houseQuality;
+    }
+
+    //----- Getter/setter methods -----//
+
+    /**
+     * @return Number of houses built in the current simulation, so that their attributes can be scanned from index 0
+     */
+    public int size() { return size; }
+
+    public int getQuality(int id) { return quality[id - firstId]; }
+
+    public IHouseOwner getOwner(int id) {
+        int slot = owner[id - firstId];
+        if (slot >= 0) return Model.demographics.getHousehold(slot);
+        return (slot == CONSTRUCTION) ? Model.construction : null;
+    }
+
+    void setOwner(int id, IHouseOwner houseOwner) {
+        if (houseOwner instanceof Household) {
+            owner[id - firstId] = slotOf((Household)houseOwner);
+        } else if (houseOwner == null) {
+            owner[id - firstId] = NONE;
+        } else if (houseOwner == Model.construction) {
+            owner[id - firstId] = CONSTRUCTION;
+        } else {
+            throw new IllegalArgumentException("House owner " + houseOwner + " is neither a household nor the construction sector");
+        }
+    }
+
+    public Household getResident(int id) {
+        int slot = resident[id - firstId];
+        return (slot >= 0) ? Model.demographics.getHousehold(slot) : null;
+    }
+
+    void setResident(int id, Household houseResident) {
+        resident[id - firstId] = (houseResident != null) ? slotOf(houseResident) : NONE;
+    }
+
+    private static int slotOf(Household h) {
+        if (h.slot < 0) throw new IllegalArgumentException("Household " + h.id + " is not part of the population");
+        return h.slot;
+    }
+
+    HouseOfferRecord getSaleRecord(int id) { return saleRecord[id - firstId]; }
+
+    void setSaleRecord(int id, HouseOfferRecord record) { saleRecord[id - firstId] = record; }
+
+    HouseOfferRecord getRentalRecord(int id) { return rentalRecord[id - firstId]; }
+
+    void setRentalRecord(int id, HouseOfferRecord record) { rentalRecord[id - firstId] = record; }
+}
@@ -1,6 +1,6 @@
 package housing;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import utilities.Prng;
 
 /**************************************************************************************************
  * Class to represent the rental market
@@ -14,16 +14,16 @@ public class HouseRentalMarket extends HousingMarket {
     //----- Methods -----//
     //-------------------//
 
-	public HouseRentalMarket(MersenneTwister prng) {
+	public HouseRentalMarket(Prng prng) {
 	    super(prng);
     }
 
     @Override
 	public void completeTransaction(HouseBidderRecord purchase, HouseOfferRecord sale) {
         Model.rentalMarketStats.recordTransaction(sale);
-		sale.getHouse().rentalRecord = null;
+		sale.getHouse().resetRentalRecord();
 		purchase.getBidder().completeHouseRental(sale);
-		sale.getHouse().owner.completeHouseLet(sale);
+		sale.getHouse().getOwner().completeHouseLet(sale);
 		Model.rentalMarketStats.recordSale(purchase, sale);
 	}
 
@@ -1,9 +1,6 @@
 package housing;
 
-import java.util.Iterator;
-
-import org.apache.commons.math3.random.MersenneTwister;
-import utilities.PriorityQueue2D;
+import utilities.Prng;
 
 /*******************************************************
  * Class that represents market for houses for-sale.
@@ -14,64 +11,65 @@ import utilities.PriorityQueue2D;
 public class HouseSaleMarket extends HousingMarket {
 
 	private Config                                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private PriorityQueue2D<HousingMarketRecord>    offersPY;
+    private BTLYieldIndex                           offersPY; // Index of offers by yield, for buy-to-let bids
 
-	HouseSaleMarket(MersenneTwister prng) {
+	HouseSaleMarket(Prng prng) {
 		super(prng);
-		offersPY = new PriorityQueue2D<>(new HousingMarketRecord.PYComparator());
+		offersPY = new BTLYieldIndex(config.N_QUALITY);
 	}
 	
-	@Override
-	public void init() {
-		super.init();
-		offersPY.clear();
-	}
-		
+
 	/**
 	 * This method deals with doing all the stuff necessary whenever a house gets sold.
 	 */
 	public void completeTransaction(HouseBidderRecord purchase, HouseOfferRecord sale) {
         // TODO: Revise if it makes sense to have recordTransaction as a separate method from recordSale
 		Model.housingMarketStats.recordTransaction(sale);
-		sale.getHouse().saleRecord = null;
+		sale.getHouse().resetSaleRecord();
 		Household buyer = purchase.getBidder();
-		if(buyer == sale.getHouse().owner) return; // TODO: Shouldn't this if be the first line in this method?
-		sale.getHouse().owner.completeHouseSale(sale);
+		if(buyer == sale.getHouse().getOwner()) return; // TODO: Shouldn't this if be the first line in this method?
+		sale.getHouse().getOwner().completeHouseSale(sale);
 		buyer.completeHousePurchase(sale);
         Model.housingMarketStats.recordSale(purchase, sale);
-		sale.getHouse().owner = buyer;
+		sale.getHouse().setOwner(buyer);
+		buyer.updateStatsCategory(); // Only after the change of ownership does the buyer count as a homeowner
 	}
 
 	@Override
 	public HouseOfferRecord offer(House house, double price, boolean BTLOffer) {
         HouseOfferRecord hsr = super.offer(house, price, BTLOffer);
-        offersPY.add(hsr);
         house.putForSale(hsr);
         return(hsr);
 	}
+
+    /**
+     * Put a new offer on the market whose price will be multiplied by HouseOfferRecord.MONTHLY_PRICE_DECAY at the
+     * beginning of every month until sold, without any need for it to be updated
+     *
+     * @param house House to put on the market
+     * @param price Initial list price for the house
+     * @return HouseOfferRecord for the house
+     */
+    HouseOfferRecord offerWithDecayingPrice(House house, double price) {
+        HouseOfferRecord hsr = new HouseOfferRecord(house, price, false, true);
+        addOffer(hsr);
+        house.putForSale(hsr);
+        return(hsr);
+    }
 	
 	@Override
 	public void removeOffer(HouseOfferRecord hsr) {
 		super.removeOffer(hsr);
-		offersPY.remove(hsr);
 		hsr.getHouse().resetSaleRecord();
 	}
-	
-	@Override
-	public void updateOffer(HouseOfferRecord hsr, double newPrice) {
-		offersPY.remove(hsr);
-		super.updateOffer(hsr, newPrice);
-		offersPY.add(hsr);
-	}
 
     /**
-     * This method overrides the main simulation step in order to sort the price-yield priorities.
+     * This method overrides the main simulation step in order to rebuild the index of offers by yield.
      */
     @Override
     void clearMarket() {
-        // Before any use, priorities must be sorted by filling in the uncoveredElements TreeSet at the corresponding
-        // PriorityQueue2D. In particular, we sort here the price-yield priorities
-        offersPY.sortPriorities();
+        // Before any use, the yield index must be rebuilt from the offers currently on the market, using current yields
+        offersPY.rebuild(getOffersPQ());
         // Then continue with the normal HousingMarket clearMarket mechanism
         super.clearMarket();
     }
@@ -79,7 +77,7 @@ public class HouseSaleMarket extends HousingMarket {
 	@Override
 	protected HouseOfferRecord getBestOffer(HouseBidderRecord bid) {
         if (bid.isBTLBid()) { // BTL bidder (yield driven)
-			HouseOfferRecord bestOffer = (HouseOfferRecord)offersPY.peek(bid);
+			HouseOfferRecord bestOffer = offersPY.getBestOffer(bid.getPrice());
 			if (bestOffer != null) {
 					double minDownpayment = bestOffer.getPrice()*(1.0
                             - Model.rentalMarketStats.getExpAvFlowYield()
@@ -95,19 +93,6 @@ public class HouseSaleMarket extends HousingMarket {
 		}
 	}
 
-    /**
-     * Overrides corresponding method at HousingMarket in order to remove successfully matched and cleared offers from
-     * the offersPY queue
-     *
-     * @param record Iterator over the HousingMarketRecord objects contained in offersPQ
-     * @param offer Offer to remove from queues
-     */
-	@Override
-    void removeOfferFromQueues(Iterator<HousingMarketRecord> record, HouseOfferRecord offer) {
-        record.remove();
-        offersPY.remove(offer);
-    }
-
 	/*******************************************
 	 * Make a bid on the market as a Buy-to-let investor
 	 *  (i.e. make an offer on a (yet to be decided) house).
@@ -115,5 +100,5 @@ public class HouseSaleMarket extends HousingMarket {
 	 * @param buyer The household that is making the bid.
 	 * @param maxPrice The maximum price that the household is willing to pay.
 	 ******************************************/
-    void BTLbid(Household buyer, double maxPrice) { bids.add(new HouseBidderRecord(buyer, maxPrice, true)); }
+    void BTLbid(Household buyer, double maxPrice) { addBid(new HouseBidderRecord(buyer, maxPrice, true)); }
 }
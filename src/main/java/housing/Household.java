@@ -5,7 +5,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
-import org.apache.commons.math3.random.MersenneTwister;
+import utilities.Prng;
 
 /**************************************************************************************************
  * This represents a household who receives an income, consumes, saves and can buy, sell, let, and
@@ -21,47 +21,79 @@ public class Household implements IHouseOwner {
     //----- Fields -----//
     //------------------//
 
-    private static int          id_pool;
+    private static int                  id_pool;
+    // Context shared by all households, rather than referenced by each of them
+    private static Config               config = Model.config; // Passes the Model's configuration parameters object to a private field
+    private static Prng                 prng = Model.streams.births; // Stream for the characteristics of newly born households
+    private static HouseholdBehaviour   behaviour = Model.householdBehaviour; // Behavioural plugin
 
     public int                  id; // Only used for identifying households within the class MicroDataRecorder
-    private double              annualGrossEmploymentIncome;
-    private double              monthlyGrossEmploymentIncome;
-    public HouseholdBehaviour   behaviour; // Behavioural plugin
+    private double              annualGrossEmploymentIncome; // Monthly income is derived from it, rather than stored
+    private boolean             isBTLInvestor; // Whether the household has the BTL investor "gene"
+    private double              BTLCapGainCoefficient; // Sensitivity of BTL investors to capital gain, 0.0 cares only about rental yield, 1.0 cares only about cap gain
+    private double              propensityToSave;
 
     double                      incomePercentile; // Fixed for the whole lifetime of the household
 
     private House                           home;
     private Map<House, PaymentAgreement>    housePayments = new TreeMap<>(); // Houses owned and their payment agreements
-    private Config                          config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister                 prng;
+    private RentalAgreement                 tenancy; // Rental agreement for the home, if renting, also kept at housePayments
     private double                          age; // Age of the household representative person
     private double                          bankBalance;
     private double                          monthlyGrossRentalIncome; // Keeps track of monthly rental income, as only tenants keep a reference to the rental contract, not landlords
     private boolean                         isFirstTimeBuyer;
     private boolean                         isBankrupt;
+    private int                             statsCategory = -1; // Category under which householdStats currently counts this household
+    int                                     tNextSellDecision = -1; // Month of the next candidate decision to sell the home, if event-driven
+    int                                     cohort = -1; // Cohort under which Model.cohorts currently steps this household, if stepping by cohorts
+    int                                     cohortIndex; // Position of this household within its cohort
+    int                                     slot = -1; // Dense index of this household among those alive, assigned by Demographics
 
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
     /**
-     * Initialises behaviour (determine whether the household will be a BTL investor). Households start off in social
-     * housing and with their "desired bank balance" in the bank
+     * Initialises behavioural variables: propensity to save, whether the household will have the BTL investor "gene"
+     * (provided its income percentile is above a certain minimum), and whether the household will be a fundamentalist
+     * or a trend follower investor (provided it has received the BTL investor gene). Households start off in social
+     * housing and with their "desired bank balance" in the bank. Newly born households are given an age drawn from
+     * the age at birth distribution
      */
-    public Household(MersenneTwister prng) {
-        this.prng = prng; // Passes the Model's random number generator to a private field of each instance
+    public Household() {
+        this(data.Demographics.pdfHouseholdAgeAtBirth.nextDouble(prng));
+    }
+
+    /**
+     * @param age Age of the household representative person
+     */
+    Household(double age) {
         home = null;
         isFirstTimeBuyer = true;
         isBankrupt = false;
         id = ++id_pool;
-        age = data.Demographics.pdfHouseholdAgeAtBirth.nextDouble(this.prng);
-        incomePercentile = this.prng.nextDouble();
-        behaviour = new HouseholdBehaviour(this.prng, incomePercentile);
+        this.age = age;
+        incomePercentile = prng.nextDouble();
+        // Compute propensity to save, so that it is constant for a given household
+        propensityToSave = config.DESIRED_BANK_BALANCE_EPSILON*behaviour.nextGaussian(prng);
+        // Decide if household is a BTL investor and, if so, its tendency to seek capital gains or rental yields
+        BTLCapGainCoefficient = 0.0;
+        if(incomePercentile > config.MIN_INVESTOR_PERCENTILE &&
+                prng.nextDouble() < config.getPInvestor()/config.MIN_INVESTOR_PERCENTILE) {
+            isBTLInvestor = true;
+            if(prng.nextDouble() < config.P_FUNDAMENTALIST) {
+                BTLCapGainCoefficient = config.FUNDAMENTALIST_CAP_GAIN_COEFF;
+            } else {
+                BTLCapGainCoefficient = config.TREND_CAP_GAIN_COEFF;
+            }
+        } else {
+            isBTLInvestor = false;
+        }
         // Find initial values for the annual and monthly gross employment income
         annualGrossEmploymentIncome = data.EmploymentIncome.getAnnualGrossEmploymentIncome(age, incomePercentile);
-        monthlyGrossEmploymentIncome = annualGrossEmploymentIncome/config.constants.MONTHS_IN_YEAR;
-        bankBalance = behaviour.getDesiredBankBalance(getAnnualGrossTotalIncome()); // Desired bank balance is used as initial value for actual bank balance
+        bankBalance = behaviour.getDesiredBankBalance(this, getAnnualGrossTotalIncome()); // Desired bank balance is used as initial value for actual bank balance
         monthlyGrossRentalIncome = 0.0;
+        updateStatsCategory();
     }
 
     //-------------------//
@@ -77,22 +109,81 @@ public class Household implements IHouseOwner {
      * - Buy or rent if in social housing
      * - Sell house if owner-occupier
      * - Buy/sell/rent out properties if BTL investor
+     *
+     * @param market Market conditions for this time step, on which all housing decisions are based
+     */
+    public void step(MarketSnapshot market) {
+        manageFinancesAndProperties(market);
+        // Make housing decisions depending on current housing state
+        if (isInSocialHousing()) {
+            bidForAHome(market); // When BTL households are born, they enter here the first time and until they manage to buy a home!
+        } else if (isRenting()) {
+            endTenancyIfExpired(market);
+        } else if (isPropertyInvestor()) { // Only BTL investors who already own a home enter here
+            bidForInvestmentProperty(market);
+        } else if (!isHomeowner()){
+            System.out.println("Strange: this household is not a type I recognize");
+        }
+        updateStatsCategory();
+    }
+
+    //----- Steps specialised by housing state, for households stepped by cohorts (see HouseholdCohorts) -----//
+
+    void stepInSocialHousing(MarketSnapshot market) {
+        manageFinancesAndProperties(market);
+        bidForAHome(market);
+        updateStatsCategory();
+    }
+
+    void stepRenting(MarketSnapshot market) {
+        manageFinancesAndProperties(market);
+        endTenancyIfExpired(market);
+        updateStatsCategory();
+    }
+
+    void stepOwnerOccupier(MarketSnapshot market) {
+        manageFinancesAndProperties(market);
+        updateStatsCategory();
+    }
+
+    void stepBTLInvestor(MarketSnapshot market) {
+        manageFinancesAndProperties(market);
+        bidForInvestmentProperty(market);
+        updateStatsCategory();
+    }
+
+    /**
+     * Bid for the initial housing stock, before the first month of a simulation starting with the whole population in
+     * place: households in social housing bid for a home, to buy or to rent, and BTL investors owning their home bid
+     * for investment properties
+     */
+    void bidForInitialHousing(MarketSnapshot market) {
+        if (isInSocialHousing()) {
+            bidForAHome(market);
+        } else if (isHomeowner() && isPropertyInvestor()) {
+            bidForInvestmentProperty(market);
+        }
+    }
+
+    /**
+     * Part of the step common to all households: age, receive employment and other forms of income, make rent or
+     * mortgage payments, consume, and manage owned properties
      */
-    public void step() {
+    private void manageFinancesAndProperties(MarketSnapshot market) {
         isBankrupt = false; // Delete bankruptcies from previous time step
         age += 1.0/config.constants.MONTHS_IN_YEAR;
-        // Update annual and monthly gross employment income
+        // Update annual (and thus monthly) gross employment income
         annualGrossEmploymentIncome = data.EmploymentIncome.getAnnualGrossEmploymentIncome(age, incomePercentile);
-        monthlyGrossEmploymentIncome = annualGrossEmploymentIncome/config.constants.MONTHS_IN_YEAR;
         // Add monthly disposable income (net total income minus essential consumption and housing expenses) to bank balance
         bankBalance += getMonthlyDisposableIncome();
         // Consume based on monthly disposable income (after essential consumption and house payments have been subtracted)
-        bankBalance -= behaviour.getDesiredConsumption(getBankBalance(), getAnnualGrossTotalIncome()); // Old implementation: if(isFirstTimeBuyer() || !isInSocialHousing()) bankBalance -= behaviour.getDesiredConsumption(getBankBalance(), getAnnualGrossTotalIncome());
+        bankBalance -= behaviour.getDesiredConsumption(this, getBankBalance(), getAnnualGrossTotalIncome()); // Old implementation: if(isFirstTimeBuyer() || !isInSocialHousing()) bankBalance -= behaviour.getDesiredConsumption(getBankBalance(), getAnnualGrossTotalIncome());
         // Deal with bankruptcies
         // TODO: Improve bankruptcy procedures (currently, simple cash injection), such as terminating contracts!
         if (bankBalance < 0.0) {
             bankBalance = 1.0;
             isBankrupt = true;
+            Model.householdStats.countBankruptcy(isPropertyInvestor());
         }
         // Manage owned properties and close debts on previously owned properties. To this end, first, create an
         // iterator over the house-paymentAgreement pairs at the household's housePayments object
@@ -106,34 +197,38 @@ public class Household implements IHouseOwner {
             h = entry.getKey();
             payment = entry.getValue();
             // ...if the household is the owner of the house, then manage it
-            if (h.owner == this) {
-                manageHouse(h);
+            if (h.getOwner() == this) {
+                manageHouse(h, market);
             // ...otherwise, if the household is not the owner nor the resident, then it is an old debt due to
             // the household's inability to pay the remaining principal off after selling a property...
-            } else if (h.resident != this) {
+            } else if (h.getResident() != this) {
                 MortgageAgreement mortgage = (MortgageAgreement) payment;
                 // ...remove this type of houses from payments as soon as the household pays the debt off
-                if ((payment.nPayments == 0) & (mortgage.principal == 0.0)) {
+                if ((payment.isExpired) & (mortgage.principal == 0.0)) {
                     paymentIt.remove();
                 }
             }
         }
-        // Make housing decisions depending on current housing state
-        if (isInSocialHousing()) {
-            bidForAHome(); // When BTL households are born, they enter here the first time and until they manage to buy a home!
-        } else if (isRenting()) {
-            if (housePayments.get(home).nPayments == 0) { // End of rental period for this tenant
-                endTenancy();
-                bidForAHome();
-            }            
-        } else if (behaviour.isPropertyInvestor()) { // Only BTL investors who already own a home enter here
-            double price = behaviour.btlPurchaseBid(this);
-            Model.householdStats.countBTLBidsAboveExpAvSalePrice(price);
-            if (behaviour.decideToBuyInvestmentProperty(this)) {
-                Model.houseSaleMarket.BTLbid(this, price);
-            }
-        } else if (!isHomeowner()){
-            System.out.println("Strange: this household is not a type I recognize");
+    }
+
+    /**
+     * At the end of the rental period, move out and bid for a new home
+     */
+    private void endTenancyIfExpired(MarketSnapshot market) {
+        if (tenancy.isExpired) {
+            endTenancy();
+            bidForAHome(market);
+        }
+    }
+
+    /**
+     * For BTL investors owning their home, decide whether to bid for a new investment property
+     */
+    private void bidForInvestmentProperty(MarketSnapshot market) {
+        double price = behaviour.btlPurchaseBid(this, market);
+        Model.householdStats.countBTLBidsAboveExpAvSalePrice(price);
+        if (behaviour.decideToBuyInvestmentProperty(this, market)) {
+            Model.houseSaleMarket.BTLbid(this, price);
         }
     }
 
@@ -171,10 +266,10 @@ public class Household implements IHouseOwner {
      */
     public double getMonthlyGrossTotalIncome() {
         if (bankBalance > 0.0) {
-            return monthlyGrossEmploymentIncome + monthlyGrossRentalIncome
+            return getMonthlyGrossEmploymentIncome() + monthlyGrossRentalIncome
                     + bankBalance*config.RETURN_ON_FINANCIAL_WEALTH;
         } else {
-            return monthlyGrossEmploymentIncome + monthlyGrossRentalIncome;
+            return getMonthlyGrossEmploymentIncome() + monthlyGrossRentalIncome;
         }
     }
 
@@ -189,8 +284,9 @@ public class Household implements IHouseOwner {
      * - if the house is up for rent, rethink the rent demanded
      *
      * @param house A house owned by the household
+     * @param market Market conditions for this time step
      */
-    private void manageHouse(House house) {
+    private void manageHouse(House house, MarketSnapshot market) {
         HouseOfferRecord forSale, forRent;
         double newPrice;
         
@@ -201,14 +297,15 @@ public class Household implements IHouseOwner {
                 Model.houseSaleMarket.updateOffer(forSale, newPrice);
             } else {
                 Model.houseSaleMarket.removeOffer(forSale);
+                if (house == home && config.EVENT_DRIVEN_SELL_DECISIONS) Model.sellDecisions.schedule(this);
                 // TODO: Is first condition redundant?
-                if(house  != home && house.resident == null) {
-                    Model.houseRentalMarket.offer(house, buyToLetRent(house), false);
+                if(house  != home && house.getResident() == null) {
+                    Model.houseRentalMarket.offer(house, behaviour.buyToLetRent(house, market), false);
                 }
             }
-        } else if(decideToSellHouse(house)) { // put house on market?
+        } else if(decideToSellHouse(house, market)) { // put house on market?
             if(house.isOnRentalMarket()) Model.houseRentalMarket.removeOffer(house.getRentalRecord());
-            putHouseForSale(house);
+            putHouseForSale(house, market);
         }
         
         forRent = house.getRentalRecord();
@@ -218,12 +315,20 @@ public class Household implements IHouseOwner {
         }        
     }
 
+    /******************************************************
+     * Having decided to sell the home, with sell decisions being event-driven, put it up in the market.
+     *
+     * @param market Market conditions for this time step
+     ******************************************************/
+    void putHomeForSale(MarketSnapshot market) { putHouseForSale(home, market); }
+
     /******************************************************
      * Having decided to sell house h, decide its initial sale price and put it up in the market.
      *
      * @param h the house being sold
+     * @param market Market conditions for this time step
      ******************************************************/
-    private void putHouseForSale(House h) {
+    private void putHouseForSale(House h, MarketSnapshot market) {
         double principal;
         MortgageAgreement mortgage = mortgageFor(h);
         if(mortgage != null) {
@@ -232,9 +337,9 @@ public class Household implements IHouseOwner {
             principal = 0.0;
         }
         if (h == home) {
-            Model.houseSaleMarket.offer(h, behaviour.getInitialSalePrice(h.getQuality(), principal), false);
+            Model.houseSaleMarket.offer(h, behaviour.getInitialSalePrice(h.getQuality(), principal, market), false);
         } else {
-            Model.houseSaleMarket.offer(h, behaviour.getInitialSalePrice(h.getQuality(), principal), true);
+            Model.houseSaleMarket.offer(h, behaviour.getInitialSalePrice(h.getQuality(), principal, market), true);
         }
     }
 
@@ -252,34 +357,37 @@ public class Household implements IHouseOwner {
      ********************************************************/
     void completeHousePurchase(HouseOfferRecord sale) {
         if(isRenting()) { // give immediate notice to landlord and move out
-            if(sale.getHouse().resident != null) System.out.println("Strange: my new house has someone in it!");
+            if(sale.getHouse().getResident() != null) System.out.println("Strange: my new house has someone in it!");
             if(home == sale.getHouse()) {
                 System.out.println("Strange: I've just bought a house I'm renting out");
             } else {
                 endTenancy();
             }
         }
-        MortgageAgreement mortgage = Model.bank.requestLoan(this, sale.getPrice(), behaviour.decideDownPayment(this,sale.getPrice()), home == null, sale.getHouse());
+        MortgageAgreement mortgage = Model.bank.requestLoan(this, sale.getPrice(),
+                behaviour.decideDownPayment(this, sale.getPrice(), Model.getMarketSnapshot()), home == null, sale.getHouse());
         if(mortgage == null) {
             // TODO: need to either provide a way for house sales to fall through or to ensure that pre-approvals are always satisfiable
             System.out.println("Can't afford to buy house: strange");
             System.out.println("Bank balance is "+bankBalance);
-            System.out.println("Annual income is "+ monthlyGrossEmploymentIncome *config.constants.MONTHS_IN_YEAR);
+            System.out.println("Annual income is "+ getMonthlyGrossEmploymentIncome()*config.constants.MONTHS_IN_YEAR);
             if(isRenting()) System.out.println("Is renting");
             if(isHomeowner()) System.out.println("Is homeowner");
             if(isInSocialHousing()) System.out.println("Is homeless");
             if(isFirstTimeBuyer()) System.out.println("Is firsttimebuyer");
-            if(behaviour.isPropertyInvestor()) System.out.println("Is investor");
-            System.out.println("House owner = "+ sale.getHouse().owner);
+            if(isPropertyInvestor()) System.out.println("Is investor");
+            System.out.println("House owner = "+ sale.getHouse().getOwner());
             System.out.println("me = "+this);
         } else {
             bankBalance -= mortgage.downPayment;
             housePayments.put(sale.getHouse(), mortgage);
             if (home == null) { // move in to house
                 home = sale.getHouse();
-                sale.getHouse().resident = this;
-            } else if (sale.getHouse().resident == null) { // put empty buy-to-let house on rental market
-                Model.houseRentalMarket.offer(sale.getHouse(), buyToLetRent(sale.getHouse()), false);
+                sale.getHouse().setResident(this);
+                if (config.EVENT_DRIVEN_SELL_DECISIONS) Model.sellDecisions.schedule(this);
+            } else if (sale.getHouse().getResident() == null) { // put empty buy-to-let house on rental market
+                Model.houseRentalMarket.offer(sale.getHouse(),
+                        behaviour.buyToLetRent(sale.getHouse(), Model.getMarketSnapshot()), false);
             }
             isFirstTimeBuyer = false;
         }
@@ -295,7 +403,7 @@ public class Household implements IHouseOwner {
         MortgageAgreement mortgage = mortgageFor(sale.getHouse());
         bankBalance -= mortgage.payoff(bankBalance);
         // Third, if there is no more outstanding debt, remove the house from the household's housePayments object
-        if (mortgage.nPayments == 0) {
+        if (mortgage.isExpired) {
             housePayments.remove(sale.getHouse());
             // TODO: Warning, if bankBalance is not enough to pay mortgage back, then the house stays in housePayments,
             // TODO: consequences to be checked. Looking forward, properties and payment agreements should be kept apart
@@ -306,14 +414,15 @@ public class Household implements IHouseOwner {
         }
         // Fifth, if the house is the household's home, then the household moves out and becomes temporarily homeless...
         if (sale.getHouse() == home) {
-            home.resident = null;
+            home.setResident(null);
             home = null;
         // ...otherwise, if the house has a resident, it must be a renter, who must get evicted, also the rental income
         // corresponding to this tenancy must be subtracted from the owner's monthly rental income
-        } else if (sale.getHouse().resident != null) {
-            monthlyGrossRentalIncome -= sale.getHouse().resident.housePayments.get(sale.getHouse()).monthlyPayment;
-            sale.getHouse().resident.getEvicted();
+        } else if (sale.getHouse().getResident() != null) {
+            monthlyGrossRentalIncome -= sale.getHouse().getResident().housePayments.get(sale.getHouse()).monthlyPayment;
+            sale.getHouse().getResident().getEvicted();
         }
+        updateStatsCategory();
     }
     
     /********************************************************
@@ -331,10 +440,10 @@ public class Household implements IHouseOwner {
         if(!housePayments.containsKey(h)) {
             System.out.println("Strange: I don't own this house in endOfLettingAgreement");
         }
-//        if(h.resident != null) System.out.println("Strange: renting out a house that has a resident");        
-//        if(h.resident != null && h.resident == h.owner) System.out.println("Strange: renting out a house that belongs to a homeowner");        
+//        if(h.getResident() != null) System.out.println("Strange: renting out a house that has a resident");        
+//        if(h.getResident() != null && h.getResident() == h.getOwner()) System.out.println("Strange: renting out a house that belongs to a homeowner");        
         if(h.isOnRentalMarket()) System.out.println("Strange: got endOfLettingAgreement on house on rental market");
-        if(!h.isOnMarket()) Model.houseRentalMarket.offer(h, buyToLetRent(h), false);
+        if(!h.isOnMarket()) Model.houseRentalMarket.offer(h, behaviour.buyToLetRent(h, Model.getMarketSnapshot()), false);
     }
 
     /**********************************************************
@@ -343,9 +452,11 @@ public class Household implements IHouseOwner {
      * inform landlord and delete rental agreement.
      **********************************************************/
     private void endTenancy() {
-        home.owner.endOfLettingAgreement(home, housePayments.get(home));
+        home.getOwner().endOfLettingAgreement(home, tenancy);
+        Model.contracts.cancel(tenancy);
+        tenancy = null;
         housePayments.remove(home);
-        home.resident = null;
+        home.setResident(null);
         home = null;
     }
     
@@ -354,12 +465,15 @@ public class Household implements IHouseOwner {
         if(home == null) {
             System.out.println("Strange: got evicted but I'm homeless");            
         }
-        if(home.owner == this) {
+        if(home.getOwner() == this) {
             System.out.println("Strange: got evicted from a home I own");
         }
+        Model.contracts.cancel(tenancy);
+        tenancy = null;
         housePayments.remove(home);
-        home.resident = null;
-        home = null;        
+        home.setResident(null);
+        home = null;
+        updateStatsCategory();
     }
 
     
@@ -369,23 +483,23 @@ public class Household implements IHouseOwner {
      * payment contract. At present we use a MortgageApproval).
      ********************************************************/
     void completeHouseRental(HouseOfferRecord sale) {
-        if(sale.getHouse().owner != this) { // if renting own house, no need for contract
+        if(sale.getHouse().getOwner() != this) { // if renting own house, no need for contract
             RentalAgreement rent = new RentalAgreement();
             rent.monthlyPayment = sale.getPrice();
-            rent.nPayments = config.TENANCY_LENGTH_AVERAGE
-                    + prng.nextInt(2*config.TENANCY_LENGTH_EPSILON + 1) - config.TENANCY_LENGTH_EPSILON;
-//            rent.principal = rent.monthlyPayment*rent.nPayments;
+            Model.contracts.schedule(rent, behaviour.decideTenancyLength());
             housePayments.put(sale.getHouse(), rent);
+            tenancy = rent;
         }
         if(home != null) System.out.println("Strange: I'm renting a house but not homeless");
         home = sale.getHouse();
-        if(sale.getHouse().resident != null) {
+        if(sale.getHouse().getResident() != null) {
             System.out.println("Strange: tenant moving into an occupied house");
-            if(sale.getHouse().resident == this) System.out.println("...It's me!");
-            if(sale.getHouse().owner == this) System.out.println("...It's my house!");
-            if(sale.getHouse().owner == sale.getHouse().resident) System.out.println("...It's a homeowner!");
+            if(sale.getHouse().getResident() == this) System.out.println("...It's me!");
+            if(sale.getHouse().getOwner() == this) System.out.println("...It's my house!");
+            if(sale.getHouse().getOwner() == sale.getHouse().getResident()) System.out.println("...It's a homeowner!");
         }
-        sale.getHouse().resident = this;
+        sale.getHouse().setResident(this);
+        updateStatsCategory();
     }
 
 
@@ -396,20 +510,20 @@ public class Household implements IHouseOwner {
      * COST_OF_RENTING being an intrinsic psychological cost of not
      * owning. 
      ********************************************************/
-    private void bidForAHome() {
+    private void bidForAHome(MarketSnapshot market) {
         // Find household's desired housing expenditure
-        double price = behaviour.getDesiredPurchasePrice(monthlyGrossEmploymentIncome);
+        double price = behaviour.getDesiredPurchasePrice(getMonthlyGrossEmploymentIncome(), market);
         // Cap this expenditure to the maximum mortgage available to the household
         price = Math.min(price, Model.bank.getMaxMortgage(this, true));
         // Record the bid on householdStats for counting the number of bids above exponential moving average sale price
         Model.householdStats.countNonBTLBidsAboveExpAvSalePrice(price);
         // Compare costs to decide whether to buy or rent...
-        if (behaviour.decideRentOrPurchase(this, price)) {
+        if (behaviour.decideRentOrPurchase(this, price, market)) {
             // ... if buying, bid in the house sale market for the capped desired price
             Model.houseSaleMarket.bid(this, price);
         } else {
             // ... if renting, bid in the house rental market for the desired rent price
-            Model.houseRentalMarket.bid(this, behaviour.desiredRent(monthlyGrossEmploymentIncome));
+            Model.houseRentalMarket.bid(this, behaviour.desiredRent(getMonthlyGrossEmploymentIncome()));
         }
     }
     
@@ -417,11 +531,12 @@ public class Household implements IHouseOwner {
     /********************************************************
      * Decide whether to sell ones own house.
      ********************************************************/
-    private boolean decideToSellHouse(House h) {
+    private boolean decideToSellHouse(House h, MarketSnapshot market) {
         if(h == home) {
-            return(behaviour.decideToSellHome());
+            // If event-driven, owner-occupiers' decisions are made by Model.sellDecisions, only at their due months
+            return(!config.EVENT_DRIVEN_SELL_DECISIONS && behaviour.decideToSellHome(this, market));
         } else {
-            return(behaviour.decideToSellInvestmentProperty(h, this));
+            return(behaviour.decideToSellInvestmentProperty(h, this, market));
         }
     }
 
@@ -439,12 +554,6 @@ public class Household implements IHouseOwner {
         monthlyGrossRentalIncome += sale.getPrice();
     }
 
-    private double buyToLetRent(House h) {
-        return(behaviour.buyToLetRent(
-                Model.rentalMarketStats.getExpAvSalePriceForQuality(h.getQuality()),
-                Model.rentalMarketStats.getExpAvDaysOnMarket(), h));
-    }
-
     /////////////////////////////////////////////////////////
     // Inheritance behaviour
     /////////////////////////////////////////////////////////
@@ -473,19 +582,19 @@ public class Household implements IHouseOwner {
             h = entry.getKey();
             payment = entry.getValue();
             // If the deceased household owns the house, then...
-            if (h.owner == this) {
+            if (h.getOwner() == this) {
                 // ...first, withdraw the house from any market where it is currently being offered
                 if (h.isOnRentalMarket()) Model.houseRentalMarket.removeOffer(h.getRentalRecord());
                 if (h.isOnMarket()) Model.houseSaleMarket.removeOffer(h.getSaleRecord());
                 // ...then, if there is a resident in the house...
-                if (h.resident != null) {
+                if (h.getResident() != null) {
                     // ...and this resident is different from the deceased household, then this resident must be a
                     // tenant, who must get evicted
-                    if (h.resident != this) {
-                        h.resident.getEvicted(); // TODO: Explain in paper that renters always get evicted, not just if heir needs the house
+                    if (h.getResident() != this) {
+                        h.getResident().getEvicted(); // TODO: Explain in paper that renters always get evicted, not just if heir needs the house
                     // ...otherwise, if the resident is the deceased household, remove it from the house
                     } else {
-                        h.resident = null;
+                        h.setResident(null);
                     }
                 }
                 // ...finally, transfer the property to the beneficiary household
@@ -493,13 +602,15 @@ public class Household implements IHouseOwner {
             // Otherwise, if the deceased household does not own the house but it is living in it, then it must have
             // been renting it: end the letting agreement
             } else if (h == home) {
-                h.owner.endOfLettingAgreement(h, housePayments.get(h));
-                h.resident = null;
+                h.getOwner().endOfLettingAgreement(h, housePayments.get(h));
+                h.setResident(null);
             }
             // If payment agreement is a mortgage, then try to pay off as much as possible from the deceased household's bank balance
             if (payment instanceof MortgageAgreement) {
                 bankBalance -= ((MortgageAgreement) payment).payoff();
             }
+            // Any remaining payments will not be made, so the end of the agreement no longer needs to be scheduled
+            Model.contracts.cancel(payment);
             // Remove the house-paymentAgreement entry from the deceased household's housePayments object
             paymentIt.remove(); // TODO: Not sure this is necessary. Note, though, that this implies erasing all outstanding debt
         }
@@ -517,7 +628,7 @@ public class Household implements IHouseOwner {
     private void inheritHouse(House h) {
         // Create a null (zero payments) mortgage
         MortgageAgreement nullMortgage = new MortgageAgreement(this,false);
-        nullMortgage.nPayments = 0;
+        nullMortgage.isExpired = true;
         nullMortgage.downPayment = 0.0;
         nullMortgage.monthlyInterestRate = 0.0;
         nullMortgage.monthlyPayment = 0.0;
@@ -526,9 +637,9 @@ public class Household implements IHouseOwner {
         // Become the owner of the inherited house and include it in my housePayments list (with a null mortgage)
         // TODO: Make sure the paper correctly explains that no debt is inherited
         housePayments.put(h, nullMortgage);
-        h.owner = this;
+        h.setOwner(this);
         // Check for residents in the inherited house
-        if(h.resident != null) {
+        if(h.getResident() != null) {
             System.out.println("Strange: inheriting a house with a resident");
             System.exit(0);
         }
@@ -539,20 +650,22 @@ public class Household implements IHouseOwner {
                 endTenancy();                
             }
             home = h;
-            h.resident = this;
+            h.setResident(this);
+            if (config.EVENT_DRIVEN_SELL_DECISIONS) Model.sellDecisions.schedule(this);
         // If owning a home and having the BTL gene...
-        } else if(behaviour.isPropertyInvestor()) {
+        } else if(isPropertyInvestor()) {
             // ...decide whether to sell the inherited house
-            if(decideToSellHouse(h)) {
-                putHouseForSale(h);
+            if(decideToSellHouse(h, Model.getMarketSnapshot())) {
+                putHouseForSale(h, Model.getMarketSnapshot());
             // ...or rent it out
-            } else if(h.resident == null) {
-                Model.houseRentalMarket.offer(h, buyToLetRent(h), false);
+            } else if(h.getResident() == null) {
+                Model.houseRentalMarket.offer(h, behaviour.buyToLetRent(h, Model.getMarketSnapshot()), false);
             }
         // If being an owner-occupier, put inherited house for sale
         } else {
-            putHouseForSale(h);
+            putHouseForSale(h, Model.getMarketSnapshot());
         }
+        updateStatsCategory();
     }
 
     //----- Helpers -----//
@@ -561,12 +674,12 @@ public class Household implements IHouseOwner {
 
     public boolean isHomeowner() {
         if(home == null) return(false);
-        return(home.owner == this);
+        return(home.getOwner() == this);
     }
 
     public boolean isRenting() {
         if(home == null) return(false);
-        return(home.owner != this);
+        return(home.getOwner() != this);
     }
 
     public boolean isInSocialHousing() { return home == null; }
@@ -575,15 +688,34 @@ public class Household implements IHouseOwner {
 
     public boolean isBankrupt() { return isBankrupt; }
 
+    /**
+     * Let householdStats know about any change in the housing state of this household. This must be called after every
+     * change to the household's home or housePayments, including changes in the ownership of its home
+     */
+    void updateStatsCategory() {
+        statsCategory = Model.householdStats.updateCategory(statsCategory, this);
+        if (config.COHORT_STEPPING) Model.cohorts.update(this);
+    }
+
+    public int getStatsCategory() { return statsCategory; }
+
     public double getBankBalance() { return bankBalance; }
 
+    public boolean isPropertyInvestor() { return isBTLInvestor; }
+
+    public double getBTLCapGainCoefficient() { return BTLCapGainCoefficient; }
+
+    double getPropensityToSave() { return propensityToSave; }
+
     public House getHome() { return home; }
 
     public Map<House, PaymentAgreement> getHousePayments() { return housePayments; }
 
     public double getAnnualGrossEmploymentIncome() { return annualGrossEmploymentIncome; }
 
-    public double getMonthlyGrossEmploymentIncome() { return monthlyGrossEmploymentIncome; }
+    public double getMonthlyGrossEmploymentIncome() {
+        return annualGrossEmploymentIncome/config.constants.MONTHS_IN_YEAR;
+    }
 
     /***
      * @return Number of properties this household currently has on the sale market
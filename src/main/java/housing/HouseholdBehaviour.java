@@ -1,10 +1,14 @@
 package housing;
 
 import org.apache.commons.math3.distribution.LogNormalDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
+
+import utilities.FastVariates;
+import utilities.Prng;
 
 /**************************************************************************************************
- * Class to implement the behavioural decisions made by households
+ * Class to implement the behavioural decisions made by households. A single instance is shared by
+ * all households, the few behavioural parameters particular to each household (its propensity to
+ * save and its BTL investor "gene") being kept by the household itself.
  *
  * @author daniel, Adrian Carro
  *
@@ -16,10 +20,8 @@ public class HouseholdBehaviour {
     //------------------//
 
     private Config                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister	        prng;
-    private boolean                 BTLInvestor;
-    private double                  BTLCapGainCoefficient; // Sensitivity of BTL investors to capital gain, 0.0 cares only about rental yield, 1.0 cares only about cap gain
-    private double                  propensityToSave;
+    private Prng                    prng; // Stream for noise in bids, offers and other decisions
+    private Prng                    sellPrng; // Stream for decisions to sell
     private LogNormalDistribution   downpaymentDistFTB; // Size distribution for downpayments of first-time-buyers
     private LogNormalDistribution   downpaymentDistOO; // Size distribution for downpayments of owner-occupiers
 
@@ -27,34 +29,13 @@ public class HouseholdBehaviour {
     //----- Constructors -----//
     //------------------------//
 
-	/**
-	 * Initialise behavioural variables for a new household: propensity to save, whether the household will have the BTL
-     * investor "gene" (provided its income percentile is above a certain minimum), and whether the household will be a
-     * fundamentalist or a trend follower investor (provided it has received the BTL investor gene)
-	 *
-	 * @param incomePercentile Fixed income percentile for the household (assumed constant over a lifetime)
-     */
-	HouseholdBehaviour(MersenneTwister prng, double incomePercentile) {
+	HouseholdBehaviour(Prng prng, Prng sellPrng) {
 		this.prng = prng;  // initialize the random number generator
+		this.sellPrng = sellPrng;
 
         // Set downpayment distributions for both first-time-buyers and owner-occupiers
         downpaymentDistFTB = new LogNormalDistribution(this.prng, config.DOWNPAYMENT_FTB_SCALE, config.DOWNPAYMENT_FTB_SHAPE);
         downpaymentDistOO = new LogNormalDistribution(this.prng, config.DOWNPAYMENT_OO_SCALE, config.DOWNPAYMENT_OO_SHAPE);
-	    // Compute propensity to save, so that it is constant for a given household
-        propensityToSave = config.DESIRED_BANK_BALANCE_EPSILON * prng.nextGaussian();
-        // Decide if household is a BTL investor and, if so, its tendency to seek capital gains or rental yields
-		BTLCapGainCoefficient = 0.0;
-        if(incomePercentile > config.MIN_INVESTOR_PERCENTILE &&
-                prng.nextDouble() < config.getPInvestor()/config.MIN_INVESTOR_PERCENTILE) {
-            BTLInvestor = true;
-            if(prng.nextDouble() < config.P_FUNDAMENTALIST) {
-                BTLCapGainCoefficient = config.FUNDAMENTALIST_CAP_GAIN_COEFF;
-            } else {
-                BTLCapGainCoefficient = config.TREND_CAP_GAIN_COEFF;
-            }
-        } else {
-            BTLInvestor = false;
-        }
 	}
 
     //-------------------//
@@ -67,11 +48,13 @@ public class HouseholdBehaviour {
 	 * Compute the monthly non-essential or optional consumption by a household. It is calibrated so that the output
      * wealth distribution fits the ONS wealth data for Great Britain.
 	 *
+	 * @param me The household
 	 * @param bankBalance Household's liquid wealth
      * @param annualGrossTotalIncome Household's annual gross total income
 	 */
-	double getDesiredConsumption(double bankBalance, double annualGrossTotalIncome) {
-		return config.CONSUMPTION_FRACTION*Math.max(bankBalance - getDesiredBankBalance(annualGrossTotalIncome), 0.0);
+	double getDesiredConsumption(Household me, double bankBalance, double annualGrossTotalIncome) {
+		return config.CONSUMPTION_FRACTION*Math.max(bankBalance - getDesiredBankBalance(me, annualGrossTotalIncome),
+                0.0);
 	}
 
 	/**
@@ -82,11 +65,12 @@ public class HouseholdBehaviour {
      * TODO: Relationship described as log-normal here but power-law implemented! Dan's version of article described the
      * TODO: the distributions of gross income and of liquid wealth as log-normal, not their relationship. Change paper!
      *
+	 * @param me The household
 	 * @param annualGrossTotalIncome Household
      */
-	double getDesiredBankBalance(double annualGrossTotalIncome) {
+	double getDesiredBankBalance(Household me, double annualGrossTotalIncome) {
 		return Math.exp(config.DESIRED_BANK_BALANCE_ALPHA
-                + config.DESIRED_BANK_BALANCE_BETA*Math.log(annualGrossTotalIncome) + propensityToSave);
+                + config.DESIRED_BANK_BALANCE_BETA*Math.log(annualGrossTotalIncome) + me.getPropensityToSave());
 	}
 
     //----- Owner-Occupier behaviour -----//
@@ -95,17 +79,18 @@ public class HouseholdBehaviour {
      * Desired purchase price used to decide whether to buy a house and how much to bid for it
      *
 	 * @param monthlyGrossEmploymentIncome Monthly gross employment income of the household
+     * @param market Market conditions for this time step
 	 */
-	double getDesiredPurchasePrice(double monthlyGrossEmploymentIncome) {
+	double getDesiredPurchasePrice(double monthlyGrossEmploymentIncome, MarketSnapshot market) {
 	    // TODO: This product is generally so small that it barely has any impact on the results, need to rethink if
         // TODO: it is necessary and if this small value makes any sense
-        double HPAFactor = config.BUY_WEIGHT_HPA*getLongTermHPAExpectation();
+        double HPAFactor = config.BUY_WEIGHT_HPA*market.getLongTermHPAExpectation();
         // TODO: The capping of this factor intends to avoid negative and too large desired prices, the 0.9 is a
         // TODO: purely artificial fudge parameter. This formula should be reviewed and changed!
         if (HPAFactor > 0.9) HPAFactor = 0.9;
         // TODO: Note that wealth is not used here, but only monthlyGrossEmploymentIncome
 		return config.BUY_SCALE*config.constants.MONTHS_IN_YEAR*monthlyGrossEmploymentIncome
-				*Math.exp(config.BUY_EPSILON*prng.nextGaussian())
+				*Math.exp(config.BUY_EPSILON*nextGaussian())
                 /(1.0 - HPAFactor);
 	}
 
@@ -114,13 +99,13 @@ public class HouseholdBehaviour {
      *
 	 * @param quality Quality of the house ot be sold
 	 * @param principal Amount of principal left on any mortgage on this house
+     * @param market Market conditions for this time step
 	 */
-	double getInitialSalePrice(int quality, double principal) {
+	double getInitialSalePrice(int quality, double principal, MarketSnapshot market) {
         double exponent = config.SALE_MARKUP
-                + Math.log(Model.housingMarketStats.getExpAvSalePriceForQuality(quality) + 1.0)
-                - config.SALE_WEIGHT_DAYS_ON_MARKET*Math.log((Model.housingMarketStats.getExpAvDaysOnMarket()
-                + 1.0)/(config.constants.DAYS_IN_MONTH + 1.0))
-                + config.SALE_EPSILON*prng.nextGaussian();
+                + market.getLogExpAvSalePriceForQuality(quality)
+                - config.SALE_WEIGHT_DAYS_ON_MARKET*market.getLogRelativeExpAvDaysOnMarket()
+                + config.SALE_EPSILON*nextGaussian();
         // TODO: ExpAv days on market could be computed for each quality band so as to use here only the correct one
         return Math.max(Math.exp(exponent), principal);
 	}
@@ -136,15 +121,27 @@ public class HouseholdBehaviour {
      * TODO: DECISION_TO_SELL_INTEREST, which are explicitly explained otherwise in the manuscript. URGENT!
      * TODO: Basically, need to implement both exponential moving averages referred above
      *
+     * @param me The owner-occupier household
+     * @param market Market conditions for this time step
 	 * @return True if the owner-occupier decides to sell the house and false otherwise.
 	 */
-	boolean decideToSellHome() {
+	boolean decideToSellHome(Household me, MarketSnapshot market) {
         // TODO: This if implies BTL agents never sell their homes, need to explain in paper!
-        return !isPropertyInvestor() && (prng.nextDouble() < config.derivedParams.MONTHLY_P_SELL*(1.0
+        // Note that the number of houses on the market is read live, as it changes while households make their decisions
+        return !me.isPropertyInvestor() && (sellPrng.nextDouble() < getMonthlyPSellHome(market));
+    }
+
+    /**
+     * @param market Market conditions for this time step
+     * @return Monthly probability for an owner-occupier to decide to sell its home, common to all owner-occupiers
+     */
+    static double getMonthlyPSellHome(MarketSnapshot market) {
+        Config config = Model.config;
+        return config.derivedParams.MONTHLY_P_SELL*(1.0
                 + config.DECISION_TO_SELL_ALPHA*(config.DECISION_TO_SELL_HPC
                 - (double)Model.houseSaleMarket.getnHousesOnMarket()/Model.households.size())
                 + config.DECISION_TO_SELL_BETA*(config.DECISION_TO_SELL_INTEREST
-                - Model.bank.getMortgageInterestRate())));
+                - market.getMortgageInterestRate()));
     }
 
 	/**
@@ -152,8 +149,9 @@ public class HouseholdBehaviour {
      *
 	 * @param me the household
 	 * @param housePrice the price of the house
+     * @param market Market conditions for this time step
      */
-	double decideDownPayment(Household me, double housePrice) {
+	double decideDownPayment(Household me, double housePrice, MarketSnapshot market) {
 		if (me.getBankBalance() > housePrice*config.BANK_BALANCE_FOR_CASH_DOWNPAYMENT) {
 			return housePrice;
 		}
@@ -161,13 +159,13 @@ public class HouseholdBehaviour {
 		if (me.isFirstTimeBuyer()) {
 		    // Since the function of the HPI is to move the down payments distribution upwards or downwards to
             // accommodate current price levels, and the distribution is itself aggregate, we use the aggregate HPI
-			downpayment = Model.housingMarketStats.getHPI()*downpaymentDistFTB.inverseCumulativeProbability(Math.max(0.0,
+			downpayment = market.getHPI()*downpaymentDistFTB.inverseCumulativeProbability(Math.max(0.0,
                     (me.incomePercentile - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
-		} else if (isPropertyInvestor()) {
+		} else if (me.isPropertyInvestor()) {
 			downpayment = housePrice*(Math.max(0.0,
-					config.DOWNPAYMENT_BTL_MEAN + config.DOWNPAYMENT_BTL_EPSILON * prng.nextGaussian()));
+					config.DOWNPAYMENT_BTL_MEAN + config.DOWNPAYMENT_BTL_EPSILON * nextGaussian()));
 		} else {
-			downpayment = Model.housingMarketStats.getHPI()*downpaymentDistOO.inverseCumulativeProbability(Math.max(0.0,
+			downpayment = market.getHPI()*downpaymentDistOO.inverseCumulativeProbability(Math.max(0.0,
                     (me.incomePercentile - config.DOWNPAYMENT_MIN_INCOME)/(1 - config.DOWNPAYMENT_MIN_INCOME)));
 		}
 		if (downpayment > me.getBankBalance()) downpayment = me.getBankBalance();
@@ -187,7 +185,7 @@ public class HouseholdBehaviour {
 	 ********************************************************/
 	double rethinkHouseSalePrice(HouseOfferRecord sale) {
 		if(prng.nextDouble() < config.P_SALE_PRICE_REDUCE) {
-			double logReduction = config.REDUCTION_MU + (prng.nextGaussian()*config.REDUCTION_SIGMA);
+			double logReduction = config.REDUCTION_MU + (nextGaussian()*config.REDUCTION_SIGMA);
 			return(sale.getPrice()*(1.0 - Math.exp(logReduction)/100.0));
 		}
 		return(sale.getPrice());
@@ -203,15 +201,15 @@ public class HouseholdBehaviour {
 	 *  is assumed to be the difference in rental price between the two qualities.
 	 *  @return true if we should buy a house, false if we should rent
 	 */
-    boolean decideRentOrPurchase(Household me, double purchasePrice) {
-        if(isPropertyInvestor()) return(true);
+    boolean decideRentOrPurchase(Household me, double purchasePrice, MarketSnapshot market) {
+        if(me.isPropertyInvestor()) return(true);
         MortgageAgreement mortgageApproval = Model.bank.requestApproval(me, purchasePrice,
-                decideDownPayment(me, purchasePrice), true);
-        int newHouseQuality = Model.housingMarketStats.getMaxQualityForPrice(purchasePrice);
+                decideDownPayment(me, purchasePrice, market), true);
+        int newHouseQuality = market.getMaxQualityForPrice(purchasePrice);
         if (newHouseQuality < 0) return false; // can't afford a house anyway
         double costOfHouse = mortgageApproval.monthlyPayment*config.constants.MONTHS_IN_YEAR
-				- purchasePrice*getLongTermHPAExpectation();
-        double costOfRent = Model.rentalMarketStats.getExpAvSalePriceForQuality(newHouseQuality)
+				- purchasePrice*market.getLongTermHPAExpectation();
+        double costOfRent = market.getExpAvRentForQuality(newHouseQuality)
                 *config.constants.MONTHS_IN_YEAR;
         return prng.nextDouble() < sigma(config.SENSITIVITY_RENT_OR_PURCHASE*(costOfRent*(1.0
                 + config.PSYCHOLOGICAL_COST_OF_RENTING) - costOfHouse));
@@ -237,9 +235,10 @@ public class HouseholdBehaviour {
 	 * 
 	 * @param h The house in question
 	 * @param me The investor household
+     * @param market Market conditions for this time step
 	 * @return True if investor me decides to sell investment property h
 	 */
-	boolean decideToSellInvestmentProperty(House h, Household me) {
+	boolean decideToSellInvestmentProperty(House h, Household me, MarketSnapshot market) {
 		// Fast decisions...
         // ...always keep at least one investment property
 		if(me.nInvestmentProperties() < 2) return false;
@@ -251,7 +250,7 @@ public class HouseholdBehaviour {
         // ...find the mortgage agreement for this property
         MortgageAgreement mortgage = me.mortgageFor(h);
         // ...find its current (fair market value) sale price
-        double currentMarketPrice = Model.housingMarketStats.getExpAvSalePriceForQuality(h.getQuality());
+        double currentMarketPrice = market.getExpAvSalePriceForQuality(h.getQuality());
         // ...find equity, or assets minus liabilities
         double equity = Math.max(0.01, currentMarketPrice - mortgage.principal); // The 0.01 prevents possible divisions by zero later on
         // ...find the leverage on that mortgage (Assets divided by equity, or return on equity)
@@ -262,21 +261,22 @@ public class HouseholdBehaviour {
         // ...find the mortgage rate (pounds paid a year per pound of equity)
 		double mortgageRate = mortgage.nextPayment()*config.constants.MONTHS_IN_YEAR/equity;
         // ...finally, find expected equity yield, or yield on equity
+        double capGainCoefficient = me.getBTLCapGainCoefficient();
 		double expectedEquityYield;
 		if(config.BTL_YIELD_SCALING) {
-			expectedEquityYield = leverage*((1.0 - BTLCapGainCoefficient)*currentRentalYield
-                    + BTLCapGainCoefficient*(Model.rentalMarketStats.getLongTermExpAvFlowYield()
-					+ getLongTermHPAExpectation())) - mortgageRate;
+			expectedEquityYield = leverage*((1.0 - capGainCoefficient)*currentRentalYield
+                    + capGainCoefficient*(market.getLongTermExpAvFlowYield()
+					+ market.getLongTermHPAExpectation())) - mortgageRate;
 		} else {
-			expectedEquityYield = leverage*((1.0 - BTLCapGainCoefficient)*currentRentalYield
-                    + BTLCapGainCoefficient*getLongTermHPAExpectation())
+			expectedEquityYield = leverage*((1.0 - capGainCoefficient)*currentRentalYield
+                    + capGainCoefficient*market.getLongTermHPAExpectation())
                     - mortgageRate;
 		}
 		// Compute a probability to keep the property as a function of the effective yield
 		double pKeep = Math.pow(sigma(config.BTL_CHOICE_INTENSITY*expectedEquityYield),
                 1.0/config.constants.MONTHS_IN_YEAR);
 		// Return true or false as a random draw from the computed probability
-		return prng.nextDouble() < (1.0 - pKeep);
+		return sellPrng.nextDouble() < (1.0 - pKeep);
 	}
 
     /**
@@ -288,19 +288,20 @@ public class HouseholdBehaviour {
      * corresponding weights which depend on the type of investor)
      *
      * @param me The investor household
+     * @param market Market conditions for this time step
      * @return True if investor me decides to try to buy a new investment property
      */
-    boolean decideToBuyInvestmentProperty(Household me) {
+    boolean decideToBuyInvestmentProperty(Household me, MarketSnapshot market) {
         // Fast decisions...
         // ...always decide to buy if owning no investment property yet
         if (me.nInvestmentProperties() < 1) { return true ; }
         // ...never buy (keep on saving) if bank balance is below the household's desired bank balance
         // TODO: This mechanism and its parameter are not declared in the article! Any reference for the value of the parameter?
-        if (me.getBankBalance() < getDesiredBankBalance(me.getAnnualGrossTotalIncome())*config.BTL_CHOICE_MIN_BANK_BALANCE) { return false; }
+        if (me.getBankBalance() < getDesiredBankBalance(me, me.getAnnualGrossTotalIncome())*config.BTL_CHOICE_MIN_BANK_BALANCE) { return false; }
         // ...find maximum price (maximum mortgage) the household could pay
         double maxPrice = Model.bank.getMaxMortgage(me, false);
         // ...never buy if that maximum price is below the average price for the lowest quality
-        if (maxPrice < Model.housingMarketStats.getExpAvSalePriceForQuality(0)) { return false; }
+        if (maxPrice < market.getExpAvSalePriceForQuality(0)) { return false; }
 
         // Find the expected equity yield rate for a hypothetical house maximising the leverage available to the
         // household and assuming an average rental yield (over all qualities). This is found as a weighted mix of both
@@ -312,18 +313,19 @@ public class HouseholdBehaviour {
         // ...find the leverage on that mortgage (Assets divided by equity, or return on equity)
         double leverage = mortgage.purchasePrice/equity;
         // ...find the expected rental yield as an (exponential) average over all house qualities
-        double rentalYield = Model.rentalMarketStats.getExpAvFlowYield();
+        double rentalYield = market.getExpAvFlowYield();
         // ...find the mortgage rate (pounds paid a year per pound of equity)
         double mortgageRate = mortgage.nextPayment()*config.constants.MONTHS_IN_YEAR/equity;
         // ...finally, find expected equity yield, or yield on equity
+        double capGainCoefficient = me.getBTLCapGainCoefficient();
         double expectedEquityYield;
         if(config.BTL_YIELD_SCALING) {
-            expectedEquityYield = leverage*((1.0 - BTLCapGainCoefficient)*rentalYield
-                    + BTLCapGainCoefficient*(Model.rentalMarketStats.getLongTermExpAvFlowYield()
-                    + getLongTermHPAExpectation())) - mortgageRate;
+            expectedEquityYield = leverage*((1.0 - capGainCoefficient)*rentalYield
+                    + capGainCoefficient*(market.getLongTermExpAvFlowYield()
+                    + market.getLongTermHPAExpectation())) - mortgageRate;
         } else {
-            expectedEquityYield = leverage*((1.0 - BTLCapGainCoefficient)*rentalYield
-                    + BTLCapGainCoefficient*getLongTermHPAExpectation())
+            expectedEquityYield = leverage*((1.0 - capGainCoefficient)*rentalYield
+                    + capGainCoefficient*market.getLongTermHPAExpectation())
                     - mortgageRate;
         }
         // Compute the probability to decide to buy an investment property as a function of the expected equity yield
@@ -337,31 +339,31 @@ public class HouseholdBehaviour {
         return prng.nextDouble() < pBuy;
     }
 
-    double btlPurchaseBid(Household me) {
+    double btlPurchaseBid(Household me, MarketSnapshot market) {
         // TODO: What is this 1.1 factor? Another fudge parameter? It prevents wealthy investors from offering more than
         // TODO: 10% above the average price of top quality houses. The effect of this is to prevent fast increases of
         // TODO: price as BTL investors buy all supply till prices are too high for everybody. Fairly unclear mechanism,
         // TODO: check for removal!
         return(Math.min(Model.bank.getMaxMortgage(me, false),
-                1.1*Model.housingMarketStats.getExpAvSalePriceForQuality(config.N_QUALITY-1)));
+                1.1*market.getExpAvSalePriceForQuality(config.N_QUALITY-1)));
     }
 
 	/**
-	 * How much rent does an investor decide to charge on a buy-to-let house? 
-	 * @param rbar exponential average rent for house of this quality
-	 * @param d average days on market
+	 * How much rent does an investor decide to charge on a buy-to-let house? This is based on the exponential average
+	 * rent for houses of this quality and the average days on the rental market
 	 * @param h house being offered for rent
+	 * @param market Market conditions for this time step
 	 */
-	double buyToLetRent(double rbar, double d, House h) {
+	double buyToLetRent(House h, MarketSnapshot market) {
 		// TODO: What? Where does this equation come from?
 		final double beta = config.RENT_MARKUP/Math.log(config.RENT_EQ_MONTHS_ON_MARKET); // Weight of days-on-market effect
 
-		double exponent = config.RENT_MARKUP + Math.log(rbar + 1.0)
-                - beta*Math.log((d + 1.0)/(config.constants.DAYS_IN_MONTH + 1))
-                + config.RENT_EPSILON * prng.nextGaussian();
+		double exponent = config.RENT_MARKUP + market.getLogExpAvRentForQuality(h.getQuality())
+                - beta*market.getLogRelativeExpAvDaysOnRentalMarket()
+                + config.RENT_EPSILON * nextGaussian();
 		double result = Math.exp(exponent);
         // TODO: The following contains a fudge (config.RENT_MAX_AMORTIZATION_PERIOD) to keep rental yield up
-		double minAcceptable = Model.housingMarketStats.getExpAvSalePriceForQuality(h.getQuality())
+		double minAcceptable = market.getExpAvSalePriceForQuality(h.getQuality())
                 /(config.RENT_MAX_AMORTIZATION_PERIOD*config.constants.MONTHS_IN_YEAR);
 		if (result < minAcceptable) result = minAcceptable;
 		return result;
@@ -376,6 +378,14 @@ public class HouseholdBehaviour {
      */
 	double rethinkBuyToLetRent(HouseOfferRecord sale) { return (1.0 - config.RENT_REDUCTION)*sale.getPrice(); }
 
+    /**
+     * @return Number of monthly payments of a new tenancy, drawn uniformly around the average tenancy length
+     */
+    int decideTenancyLength() {
+        return config.TENANCY_LENGTH_AVERAGE + prng.nextInt(2*config.TENANCY_LENGTH_EPSILON + 1)
+                - config.TENANCY_LENGTH_EPSILON;
+    }
+
     /**
      * Logistic function, sometimes called sigma function, 1/1+e^(-x)
      *
@@ -383,16 +393,15 @@ public class HouseholdBehaviour {
      */
     private double sigma(double x) { return 1.0/(1.0 + Math.exp(-1.0*x)); }
 
-	/**
-     * @return expectation value of HPI in one year's time divided by today's HPI
+    /**
+     * Standard normal variate for behavioural draws, by the ziggurat method if FAST_VARIATES is set
      */
-	private double getLongTermHPAExpectation() {
-		// Dampening or multiplier factor, depending on its value being <1 or >1, for the current trend of HPA when
-		// computing expectations as in HPI(t+DT) = HPI(t) + FACTOR*DT*dHPI/dt (double)
-		return(Model.housingMarketStats.getLongTermHPA()*config.HPA_EXPECTATION_FACTOR);
-    }
-
-    public double getBTLCapGainCoefficient() { return BTLCapGainCoefficient; }
+    double nextGaussian() { return nextGaussian(prng); }
 
-    public boolean isPropertyInvestor() { return BTLInvestor; }
+    /**
+     * Draw a standard normal variate from the given stream, by the method selected with FAST_VARIATES
+     */
+    double nextGaussian(Prng stream) {
+        return config.FAST_VARIATES ? FastVariates.nextGaussian(stream) : stream.nextGaussian();
+    }
 }
@@ -0,0 +1,140 @@
+package housing;
+
+import java.util.ArrayList;
+
+/**************************************************************************************************
+ * Partition of the households into cohorts according to their housing state, which determines the
+ * housing decisions they make every month: households in social housing, renters, owner-occupiers
+ * and BTL investors owning their home. Each household is moved between cohorts whenever its state
+ * changes, at the same points where its statistics category is updated, so that each cohort can be
+ * stepped by its own loop, calling only the step method specialised for that state.
+ *
+ * Renters are stepped first, so that houses vacated by tenants whose tenancies end are back on the
+ * rental market before landlords decide what to do with them, followed by households in social
+ * housing (other than those tenants, who have already bid for a new home), BTL investors and
+ * owner-occupiers. Cohorts are stepped in reverse order of their members, so that households leaving
+ * a cohort while it is being stepped are not skipped. Note that, as households step in a different
+ * order than in the main households list, results differ from those of the default stepping.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class HouseholdCohorts {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    // Cohorts, -1 meaning not in any cohort
+    static final int IN_SOCIAL_HOUSING = 0;
+    static final int RENTING = 1;
+    static final int OWNER_OCCUPIER = 2;
+    static final int BTL_INVESTOR = 3;
+
+    private ArrayList<Household>    inSocialHousing = new ArrayList<>();
+    private ArrayList<Household>    renting = new ArrayList<>();
+    private ArrayList<Household>    ownerOccupiers = new ArrayList<>();
+    private ArrayList<Household>    btlInvestors = new ArrayList<>(); // BTL investors owning their home
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    void init() {
+        inSocialHousing.clear();
+        renting.clear();
+        ownerOccupiers.clear();
+        btlInvestors.clear();
+    }
+
+    /**
+     * Step all households, cohort by cohort
+     *
+     * @param market Market conditions for this time step
+     */
+    void step(MarketSnapshot market) {
+        // Tenants whose tenancies end move into social housing after having bid for a new home, so they must be skipped
+        int nInSocialHousing = inSocialHousing.size();
+        stepRenting(market);
+        stepInSocialHousing(market, nInSocialHousing);
+        stepBTLInvestors(market);
+        stepOwnerOccupiers(market);
+    }
+
+    private void stepInSocialHousing(MarketSnapshot market, int n) {
+        for (int i = n - 1; i >= 0; --i) inSocialHousing.get(i).stepInSocialHousing(market);
+    }
+
+    private void stepOwnerOccupiers(MarketSnapshot market) {
+        for (int i = ownerOccupiers.size() - 1; i >= 0; --i) ownerOccupiers.get(i).stepOwnerOccupier(market);
+    }
+
+    private void stepBTLInvestors(MarketSnapshot market) {
+        for (int i = btlInvestors.size() - 1; i >= 0; --i) btlInvestors.get(i).stepBTLInvestor(market);
+    }
+
+    private void stepRenting(MarketSnapshot market) {
+        for (int i = renting.size() - 1; i >= 0; --i) renting.get(i).stepRenting(market);
+    }
+
+    /**
+     * Find the cohort of a household given its current state, following the same criteria as Household.step
+     *
+     * @return Cohort of the household, -1 if it does not fit in any cohort
+     */
+    static int cohortOf(Household h) {
+        if (h.isInSocialHousing()) {
+            return IN_SOCIAL_HOUSING;
+        } else if (h.isRenting()) {
+            return RENTING;
+        } else if (h.isPropertyInvestor()) {
+            return BTL_INVESTOR;
+        } else if (h.isHomeowner()) {
+            return OWNER_OCCUPIER;
+        }
+        return -1;
+    }
+
+    /**
+     * Move a household to the cohort corresponding to its current state, if different from its current cohort
+     */
+    void update(Household h) {
+        int newCohort = cohortOf(h);
+        if (newCohort != h.cohort) {
+            remove(h);
+            if (newCohort >= 0) {
+                ArrayList<Household> members = getMembers(newCohort);
+                h.cohort = newCohort;
+                h.cohortIndex = members.size();
+                members.add(h);
+            }
+        }
+    }
+
+    /**
+     * Remove a household from its current cohort, if any, by moving the last member of that cohort into its place
+     */
+    void remove(Household h) {
+        if (h.cohort < 0) return;
+        ArrayList<Household> members = getMembers(h.cohort);
+        Household last = members.remove(members.size() - 1);
+        if (last != h) {
+            members.set(h.cohortIndex, last);
+            last.cohortIndex = h.cohortIndex;
+        }
+        h.cohort = -1;
+    }
+
+    private ArrayList<Household> getMembers(int cohort) {
+        switch (cohort) {
+            case IN_SOCIAL_HOUSING:
+                return inSocialHousing;
+            case RENTING:
+                return renting;
+            case OWNER_OCCUPIER:
+                return ownerOccupiers;
+            default:
+                return btlInvestors;
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package housing;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 
-import org.apache.commons.math3.distribution.GeometricDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
-
-import utilities.PriorityQueue2D;
+import utilities.FastVariates;
+import utilities.Prng;
 
 /**************************************************************************************************
  * Class that implements the market mechanism behind both the sale and the rental markets
@@ -21,17 +22,44 @@ public abstract class HousingMarket {
     //------------------//
 
     private Config                                  config = Model.config; // Passes the Model's configuration parameters object to a private field
-    private MersenneTwister                         prng;
-    private PriorityQueue2D<HousingMarketRecord>    offersPQ;
+    private Prng                                    prng;
+    private DecayingPriceOrderBook                  offersPQ; // Order book of offers, by price and quality
+    private Comparator<HouseOfferRecord>            xyComparator; // Iteration order of the order book
+    private int                                     nRepricedOffers; // Number of offers with a pending price change
+    private HouseOfferRecord []                     unchangedOffers = new HouseOfferRecord[0]; // Reusable buffer for rebuilding the order book
+    private HouseOfferRecord []                     repricedOffers = new HouseOfferRecord[0]; // Reusable buffer for rebuilding the order book
+    private HouseOfferRecord []                     sortedOffers = new HouseOfferRecord[0]; // Reusable buffer for rebuilding the order book
+    private HouseBidderRecord []                    bidsAbove = new HouseBidderRecord[16]; // Reusable buffer for choosing winning bids
+    private static HouseBidderRecord.PComparator    bidComparator = new HouseBidderRecord.PComparator(); // Bid order by price and id
 
     ArrayList<HouseBidderRecord>                     bids;
 
+    // Aggregates over the offers currently on the market, kept up to date as offers are added, updated and removed
+    private int                                     tPriceDecay; // Time up to which the monthly decay has been applied to decaying prices
+    private int                                     nBTLSellerOffers; // Number of offers from households with the BTL gene
+    private int                                     nNewOffers; // Number of offers on the market first listed at time tNewOffers
+    private int                                     tNewOffers;
+
+    // Aggregates over the bids made since the last market clearing, kept up to date as bids are made
+    private double                                  sumBidPrices;
+    private int                                     nBTLBidderBids; // Number of bids from households with the BTL gene and a home
+
     //------------------------//
     //----- Constructors -----//
     //------------------------//
 
-    HousingMarket(MersenneTwister prng) {
-        offersPQ = new PriorityQueue2D<>(new HousingMarketRecord.PQComparator()); //Priority Queue of (Price, Quality)
+    HousingMarket(Prng prng) {
+        // Offers with a decaying price are kept in a separate order book, wrapping the one chosen for the rest of offers
+        if (config.QUALITY_BUCKETED_ORDER_BOOK) {
+            offersPQ = new DecayingPriceOrderBook(new QualityBucketOrderBook(config.N_QUALITY), config.N_QUALITY);
+        } else {
+            offersPQ = new DecayingPriceOrderBook(new PriorityQueue2DOrderBook(), config.N_QUALITY);
+        }
+        final HousingMarketRecord.PQComparator comparator = new HousingMarketRecord.PQComparator();
+        xyComparator = new Comparator<HouseOfferRecord>() {
+            @Override
+            public int compare(HouseOfferRecord arg0, HouseOfferRecord arg1) { return comparator.XYCompare(arg0, arg1); }
+        };
         // The integer passed to the ArrayList constructor is an initially declared capacity (for initial memory
         // allocation purposes), it will actually have size zero and only grow by adding elements
         // TODO: Check if this integer is too large or small, check speed penalty for using ArrayList as opposed to
@@ -46,7 +74,15 @@ public abstract class HousingMarket {
 
     //----- Initialisation methods -----//
     
-    public void init() { offersPQ.clear(); }
+    public void init() {
+        offersPQ.clear();
+        nRepricedOffers = 0;
+        tPriceDecay = 0; // Note that markets are initialised before the time is reset for a new run
+        nBTLSellerOffers = 0;
+        nNewOffers = 0;
+        tNewOffers = -1;
+        resetBidAggregates();
+    }
 
     //----- Methods to add, update, remove offers and bids -----//
     
@@ -59,20 +95,32 @@ public abstract class HousingMarket {
      */
     public HouseOfferRecord offer(House house, double price, boolean BTLOffer) {
         HouseOfferRecord hsr = new HouseOfferRecord(house, price, BTLOffer);
-        offersPQ.add(hsr);
+        addOffer(hsr);
         return hsr;
     }
+
+    /**
+     * Add an already created offer to the market, keeping offer aggregates up to date
+     */
+    void addOffer(HouseOfferRecord hsr) {
+        applyPriceDecay();
+        offersPQ.add(hsr);
+        addToOfferAggregates(hsr);
+    }
     
     /**
-     * Change the list-price on a house that is already on the market
+     * Change the list-price on a house that is already on the market. Note that, rather than re-sorting the order book
+     * after each price change, all price changes requested during a time step are collected and then applied at once,
+     * before the order book is next used (in particular, before clearing the market). Note that setting a new price stops
+     * any monthly decay of the price of the offer
      * 
      * @param hsr The HouseOfferRecord of the house to change the price for
      * @param newPrice The new price of the house
      */
     public void updateOffer(HouseOfferRecord hsr, double newPrice) {
-        offersPQ.remove(hsr);
-        hsr.setPrice(newPrice);
-        offersPQ.add(hsr);
+        applyPriceDecay();
+        if (Double.isNaN(hsr.pendingPrice)) nRepricedOffers++;
+        hsr.pendingPrice = newPrice;
     }
     
     /**
@@ -80,7 +128,76 @@ public abstract class HousingMarket {
      * 
      * @param hsr The HouseOfferRecord of the house to take off the market
      */
-    public void removeOffer(HouseOfferRecord hsr) { offersPQ.remove(hsr); }
+    public void removeOffer(HouseOfferRecord hsr) {
+        applyPriceDecay();
+        if (offersPQ.remove(hsr)) {
+            // Any pending price change is applied once the offer is out of the order book
+            if (!Double.isNaN(hsr.pendingPrice)) {
+                hsr.setPrice(hsr.pendingPrice);
+                hsr.pendingPrice = Double.NaN;
+                nRepricedOffers--;
+            }
+            removeFromOfferAggregates(hsr);
+        }
+    }
+
+    /**
+     * Apply the monthly decay, for every month elapsed since it was last applied, to the prices of all offers with a
+     * decaying price. This is done explicitly, before offers are next added, updated, removed or
+     * queried, rather than lazily within price getters, so that prices never change while the order book compares them
+     */
+    private void applyPriceDecay() {
+        while (tPriceDecay < Model.getTime()) {
+            offersPQ.applyPriceDecay();
+            tPriceDecay++;
+        }
+    }
+
+    /**
+     * Apply all pending price changes at once. To this end, split the offers, in their current order, into those keeping
+     * and those changing their price, sort the latter according to their new prices and merge both sorted sequences into
+     * a single rebuild of the order book
+     */
+    private void applyPriceUpdates() {
+        applyPriceDecay();
+        if (nRepricedOffers == 0) return;
+        int n = offersPQ.size();
+        if (sortedOffers.length < n) {
+            unchangedOffers = new HouseOfferRecord[2*n];
+            repricedOffers = new HouseOfferRecord[2*n];
+            sortedOffers = new HouseOfferRecord[2*n];
+        }
+        int nUnchanged = 0;
+        int nRepriced = 0;
+        for (HouseOfferRecord offer : offersPQ) {
+            if (Double.isNaN(offer.pendingPrice)) {
+                unchangedOffers[nUnchanged++] = offer;
+            } else {
+                repricedOffers[nRepriced++] = offer;
+            }
+        }
+        for (int i = 0; i < nRepriced; i++) {
+            repricedOffers[i].setPrice(repricedOffers[i].pendingPrice);
+            repricedOffers[i].pendingPrice = Double.NaN;
+        }
+        Arrays.sort(repricedOffers, 0, nRepriced, xyComparator);
+        // Merge both sorted sequences
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < n; k++) {
+            if (j == nRepriced || (i < nUnchanged && xyComparator.compare(unchangedOffers[i], repricedOffers[j]) < 0)) {
+                sortedOffers[k] = unchangedOffers[i++];
+            } else {
+                sortedOffers[k] = repricedOffers[j++];
+            }
+        }
+        offersPQ.rebuild(sortedOffers, n);
+        // Release references held by the buffers
+        Arrays.fill(unchangedOffers, 0, nUnchanged, null);
+        Arrays.fill(repricedOffers, 0, nRepriced, null);
+        Arrays.fill(sortedOffers, 0, n, null);
+        nRepricedOffers = 0;
+    }
 
     /**
      * Make a non-BTL bid on the market, i.e. make an offer on a (yet to be decided) house to become the household's home
@@ -89,7 +206,35 @@ public abstract class HousingMarket {
      * @param price The price that the household is willing to pay
      */
     public void bid(Household buyer, double price) {
-        bids.add(new HouseBidderRecord(buyer, price, false));
+        addBid(new HouseBidderRecord(buyer, price, false));
+    }
+
+    /**
+     * Add a bid to the market, keeping bid aggregates up to date
+     */
+    void addBid(HouseBidderRecord bid) {
+        bids.add(bid);
+        sumBidPrices += bid.getPrice();
+        if (bid.getBidder().isPropertyInvestor() && bid.getBidder().getHome() != null) nBTLBidderBids++;
+    }
+
+    private void resetBidAggregates() {
+        sumBidPrices = 0.0;
+        nBTLBidderBids = 0;
+    }
+
+    private void addToOfferAggregates(HouseOfferRecord hsr) {
+        if (hsr.isBTLSeller()) nBTLSellerOffers++;
+        if (hsr.gettInitialListing() != tNewOffers) {
+            tNewOffers = hsr.gettInitialListing();
+            nNewOffers = 0;
+        }
+        nNewOffers++;
+    }
+
+    private void removeFromOfferAggregates(HouseOfferRecord hsr) {
+        if (hsr.isBTLSeller()) nBTLSellerOffers--;
+        if (hsr.gettInitialListing() == tNewOffers) nNewOffers--;
     }
 
     //----- Market clearing methods -----//
@@ -98,14 +243,17 @@ public abstract class HousingMarket {
      * Main simulation step. For a number of rounds, matches bids with offers and clears the matches.
      */
     void clearMarket() {
-        // Before any use, priorities must be sorted by filling in the uncoveredElements TreeSet at the corresponding
-        // PriorityQueue2D, in this case, the offersPQ object contains a Price-Quality 2D-priority queue of offers
+        // First, apply all price changes requested during this time step
+        applyPriceUpdates();
+        // Before any use, priorities must be sorted (for a PriorityQueue2D order book, by filling in its
+        // uncoveredElements TreeSet), in this case, the offersPQ object contains a Price-Quality order book of offers
         offersPQ.sortPriorities();
         while (bids.size() > 0 && offersPQ.size() > 0) {
             matchBidsWithOffers(); // Step 1: iterate through bids
             clearMatches(); // Step 2: iterate through offers
         }
         bids.clear();
+        resetBidAggregates();
     }
 
     /**
@@ -120,7 +268,7 @@ public abstract class HousingMarket {
             // If buyer and seller is the same household, then the bid falls through and the household will need to
             // reissue it next month. Also, if the bid price is not enough to buy anything in this market and at this
             // time, the bid also falls through
-            if(offer != null && (offer.getHouse().owner != bid.getBidder())) {
+            if(offer != null && (offer.getHouse().getOwner() != bid.getBidder())) {
                 offer.matchWith(bid);
             }
         }
@@ -132,78 +280,123 @@ public abstract class HousingMarket {
     /**
      * Second step to clear the market. Iterate through all offers and, for each offer, loop through its matched bids.
      * If BIDUP is activated, the offer price is bid up according to a geometric distribution with mean dependent on the
-     * number of matched bids.
+     * number of matched bids. Among the matched bids at or above the resulting price, the winner is drawn as the one at
+     * a random position of their ascending price order (id order for equal prices), found by partial selection rather
+     * than by sorting all matched bids. Failed bids are put back on the bids array, whose order is irrelevant here.
      */
     private void clearMatches() {
         // Clear and resolve oversubscribed offers
         HouseOfferRecord offer;
-        GeometricDistribution geomDist;
+        List<HouseBidderRecord> matchedBids;
         int nBids;
+        int nBidsAbove; // Number of bids at or above the sale price
         double pSuccessfulBid;
         double salePrice;
-        int winningBid;
+        HouseBidderRecord winningBid;
         int enoughBids; // Upper bounded number of bids on one house
-        Iterator<HousingMarketRecord> record = getOffersIterator();
+        Iterator<HouseOfferRecord> record = getOffersIterator();
         while(record.hasNext()) {
-            offer = (HouseOfferRecord)record.next();
-            nBids = offer.getMatchedBids().size();
+            offer = record.next();
+            matchedBids = offer.getMatchedBids();
+            nBids = matchedBids.size();
             // If matches for this offer are multiple...
             if(nBids > 1) {
                 // ...first bid up the price
                 if(config.BIDUP > 1.0) {
                     // TODO: All this enough bids mechanism is not explained! The 10000/N factor, the 0.5 added, and the
                     // TODO: topping of the function at 4 are not declared in the paper. Remove or explain!
-                    enoughBids = Math.min(4, (int)(0.5 + nBids*10000.0/config.TARGET_POPULATION));
+                    // Note that N is the number of real households represented, such that weighted runs with fewer
+                    // households bid up prices as the corresponding full-size runs
+                    enoughBids = Math.min(4, (int)(0.5 + nBids*10000.0/config.getRepresentedPopulation()));
                     // TODO: Also, the role of MONTHS_UNDER_OFFER is not explained or declared!
                     pSuccessfulBid = Math.exp(-enoughBids*config.derivedParams.MONTHS_UNDER_OFFER);
-                    geomDist = new GeometricDistribution(prng, pSuccessfulBid);
-                    salePrice = offer.getPrice()*Math.pow(config.BIDUP, geomDist.sample());
+                    salePrice = offer.getPrice()*Math.pow(config.BIDUP, config.FAST_VARIATES ?
+                            FastVariates.nextGeometric(prng, pSuccessfulBid) :
+                            FastVariates.nextGeometricCompatible(prng, pSuccessfulBid));
                 } else {
                     salePrice = offer.getPrice();                    
                 }
-                // ...then choose a bid above the new price
-                offer.getMatchedBids().sort(new HouseBidderRecord.PComparator()); // This orders the list with the highest price last
-                while(nBids > 0 && offer.getMatchedBids().get(nBids - 1).getPrice() >= salePrice) {
-                    --nBids; // This counts the number of bids above the new price
+                // ...then collect the bids above the new price
+                if (bidsAbove.length < nBids) bidsAbove = new HouseBidderRecord[2*nBids];
+                nBidsAbove = 0;
+                for (int i = 0; i < nBids; i++) {
+                    if (matchedBids.get(i).getPrice() >= salePrice) bidsAbove[nBidsAbove++] = matchedBids.get(i);
                 }
-                if (offer.getMatchedBids().size() - nBids > 1) {
-                    winningBid = nBids + prng.nextInt(offer.getMatchedBids().size()- nBids); // This chooses a random one if they are multiple
-                } else if (offer.getMatchedBids().size() - nBids == 1) {
-                    winningBid = nBids; // This chooses the only one if there is only one
+                if (nBidsAbove > 1) {
+                    winningBid = select(bidsAbove, nBidsAbove, prng.nextInt(nBidsAbove)); // This chooses a random one if they are multiple
+                } else if (nBidsAbove == 1) {
+                    winningBid = bidsAbove[0]; // This chooses the only one if there is only one
                 } else {
-                    winningBid = nBids - 1;
-                    salePrice = offer.getMatchedBids().get(winningBid).getPrice(); // This chooses the highest bid if all of them are below the new price
+                    winningBid = matchedBids.get(0);
+                    for (int i = 1; i < nBids; i++) {
+                        if (bidComparator.compare(matchedBids.get(i), winningBid) > 0) winningBid = matchedBids.get(i);
+                    }
+                    salePrice = winningBid.getPrice(); // This chooses the highest bid if all of them are below the new price
                 }
-                // Remove this offer from the offers priority queue, offersPQ, underlying the record iterator (and, for HouseSaleMarket, also from the PY queue)
-                // Note that this needs to be done before modifying offer, so that it can be also found in the PY queue for the HouseSaleMarket case
+                Arrays.fill(bidsAbove, 0, nBidsAbove, null);
+                // Remove this offer from the offers order book, offersPQ, underlying the record iterator
+                // Note that this needs to be done before modifying offer, so that it can be found in the order book
                 removeOfferFromQueues(record, offer);
                 // ...update price for the offer
                 offer.setPrice(salePrice);
                 // ...complete successful transaction and record it into the corresponding housingMarketStats
-                completeTransaction(offer.getMatchedBids().get(winningBid), offer);
+                completeTransaction(winningBid, offer);
                 // Put the rest of the bids for this property (failed bids) back on bids array
-                bids.addAll(offer.getMatchedBids().subList(0, winningBid));
-                bids.addAll(offer.getMatchedBids().subList(winningBid + 1, offer.getMatchedBids().size()));
+                for (int i = 0; i < nBids; i++) {
+                    if (matchedBids.get(i) != winningBid) bids.add(matchedBids.get(i));
+                }
             // If there is only one match...
             } else if (nBids == 1) {
                 // ...complete successful transaction and record it into the corresponding housingMarketStats
-                completeTransaction(offer.getMatchedBids().get(0), offer);
-                // ...remove this offer from the offers priority queue, offersPQ, underlying the record iterator (and, for HouseSaleMarket, also from the PY queue)
+                completeTransaction(matchedBids.get(0), offer);
+                // ...remove this offer from the offers order book, offersPQ, underlying the record iterator
                 removeOfferFromQueues(record, offer);
             }
             // Note that we skip the whole process if there are no matches
         }
     }
 
+    /**
+     * Find the bid at position k of the ascending price order (id order for equal prices) of the first n bids of the
+     * array, partially reordering them in the process (quickselect with middle element pivots)
+     */
+    private static HouseBidderRecord select(HouseBidderRecord [] bidArray, int n, int k) {
+        int left = 0;
+        int right = n - 1;
+        while (left < right) {
+            HouseBidderRecord pivot = bidArray[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (bidComparator.compare(bidArray[i], pivot) < 0) i++;
+                while (bidComparator.compare(bidArray[j], pivot) > 0) j--;
+                if (i <= j) {
+                    HouseBidderRecord temp = bidArray[i];
+                    bidArray[i++] = bidArray[j];
+                    bidArray[j--] = temp;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break; // Elements between j and i are equal to the pivot, which is thus the one at position k
+            }
+        }
+        return bidArray[k];
+    }
+
     /**
      * Extracts the removal of successfully matched and cleared offers from the priority queues from the clearMatches
-     * method, so that only this part can be overridden at HouseSaleMarket
+     * method, so that only this part can be overridden by subclasses
      *
-     * @param record Iterator over the HousingMarketRecord objects contained in offersPQ
+     * @param record Iterator over the HouseOfferRecord objects contained in offersPQ
      * @param offer Offer to remove from queues
      */
-    void removeOfferFromQueues(Iterator<HousingMarketRecord> record, HouseOfferRecord offer) {
+    void removeOfferFromQueues(Iterator<HouseOfferRecord> record, HouseOfferRecord offer) {
         record.remove();
+        removeFromOfferAggregates(offer);
     }
 
     /**
@@ -219,16 +412,51 @@ public abstract class HousingMarket {
 
     public ArrayList<HouseBidderRecord> getBids() { return bids; }
 
-    public PriorityQueue2D<HousingMarketRecord> getOffersPQ() { return offersPQ; }
+    public OrderBook getOffersPQ() {
+        applyPriceUpdates();
+        return offersPQ;
+    }
 
-    Iterator<HousingMarketRecord> getOffersIterator() { return(offersPQ.iterator()); }
+    Iterator<HouseOfferRecord> getOffersIterator() { return(getOffersPQ().iterator()); }
 
     /**
      * Get the highest quality house being offered for a price up to that of the bid (OfferPrice <= bidPrice)
      *
      * @param bid The highest possible price the buyer is ready to pay
      */
-    protected HouseOfferRecord getBestOffer(HouseBidderRecord bid) { return (HouseOfferRecord)offersPQ.peek(bid); }
+    protected HouseOfferRecord getBestOffer(HouseBidderRecord bid) { return offersPQ.peek(bid); }
 
     int getnHousesOnMarket() { return offersPQ.size(); }
+
+    public int getnOffers() { return offersPQ.size(); }
+
+    /**
+     * Sum the prices of all offers on the market, with any pending price changes applied. Unlike the rest of offer
+     * aggregates, this is not kept up to date incrementally, since the successive additions and subtractions of prices
+     * (and the monthly decay of some of them) would drift away, in the last digits, from a fresh summation. Instead, it
+     * is summed anew, in the iteration order of the order book, at a cost similar to that of a single market clearing
+     * round
+     */
+    public double getSumOfferPrices() {
+        double sum = 0.0;
+        for (HouseOfferRecord offer : getOffersPQ()) sum += offer.getPrice();
+        return sum;
+    }
+
+    public int getnBTLSellerOffers() { return nBTLSellerOffers; }
+
+    /**
+     * @return Number of offers on the market first listed during the current time step
+     */
+    public int getnNewOffers() { return (tNewOffers == Model.getTime()) ? nNewOffers : 0; }
+
+    public int getnBids() { return bids.size(); }
+
+    /**
+     * @return Sum of the prices of all bids made since the last market clearing. Note that, since bids are only ever
+     * added to this sum, and in the same order as they are stored, it equals exactly a fresh summation over the bids
+     */
+    public double getSumBidPrices() { return sumBidPrices; }
+
+    public int getnBTLBidderBids() { return nBTLBidderBids; }
 }
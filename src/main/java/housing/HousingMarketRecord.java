@@ -46,7 +46,7 @@ public abstract class HousingMarketRecord {
          */
         @Override
         public int XYCompare(HousingMarketRecord arg0, HousingMarketRecord arg1) {
-            double diff = arg0.price - arg1.price;
+            double diff = arg0.getPrice() - arg1.getPrice();
             if (diff == 0.0) {
                 diff = arg1.getQuality() - arg0.getQuality(); // Note the reverse ordering here
                 if (diff == 0.0) {
@@ -61,7 +61,7 @@ public abstract class HousingMarketRecord {
          */
         @Override
         public int XCompare(HousingMarketRecord arg0, HousingMarketRecord arg1) {
-            return (int) Math.signum(arg0.price - arg1.price);
+            return (int) Math.signum(arg0.getPrice() - arg1.getPrice());
         }
 
         /**
@@ -86,7 +86,7 @@ public abstract class HousingMarketRecord {
          */
         @Override
         public int XYCompare(HousingMarketRecord arg0, HousingMarketRecord arg1) {
-            double diff = arg0.price - arg1.price;
+            double diff = arg0.getPrice() - arg1.getPrice();
             if (diff == 0.0) {
                 diff = arg1.getYield() - arg0.getYield(); // Note the reverse ordering here
                 if (diff == 0.0) {
@@ -101,7 +101,7 @@ public abstract class HousingMarketRecord {
          */
         @Override
         public int XCompare(HousingMarketRecord arg0, HousingMarketRecord arg1) {
-            return (int) Math.signum(arg0.price - arg1.price);
+            return (int) Math.signum(arg0.getPrice() - arg1.getPrice());
         }
 
         /**
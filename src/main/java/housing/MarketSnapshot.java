@@ -0,0 +1,104 @@
+package housing;
+
+import collectors.HousingMarketStats;
+import collectors.RentalMarketStats;
+
+/**************************************************************************************************
+ * Immutable view of the market conditions on which households base their decisions during a time
+ * step, taken at the beginning of the step. These conditions (exponential averages of prices and
+ * days on market, price appreciation and yield expectations, and the mortgage interest rate) only
+ * change once the markets have been cleared and the bank has set its new rate, so that all
+ * decisions made from the beginning of a step until the sale market statistics are recorded see the
+ * same values. Derived terms used by several decisions, such as the logarithms of average prices,
+ * are computed here once per step.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public final class MarketSnapshot {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    // Sale market
+    private final double    HPI;
+    private final double    longTermHPAExpectation; // Expected house price appreciation over one year
+    private final double [] expAvSalePricePerQuality;
+    private final double [] logExpAvSalePricePerQuality; // Logarithm of 1 plus the average sale price, per quality
+    private final double    logRelativeExpAvDaysOnMarket; // Logarithm of the ratio of average days on market plus 1 to days in a month plus 1
+
+    // Rental market
+    private final double [] expAvRentPerQuality;
+    private final double [] logExpAvRentPerQuality; // Logarithm of 1 plus the average rent, per quality
+    private final double    logRelativeExpAvDaysOnRentalMarket; // Same as logRelativeExpAvDaysOnMarket, for the rental market
+    private final double    expAvFlowYield;
+    private final double    longTermExpAvFlowYield;
+
+    // Credit conditions
+    private final double    mortgageInterestRate;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    MarketSnapshot(Config config, HousingMarketStats housingMarketStats, RentalMarketStats rentalMarketStats,
+                   Bank bank) {
+        HPI = housingMarketStats.getHPI();
+        longTermHPAExpectation = housingMarketStats.getLongTermHPA()*config.HPA_EXPECTATION_FACTOR;
+        expAvSalePricePerQuality = new double[config.N_QUALITY];
+        logExpAvSalePricePerQuality = new double[config.N_QUALITY];
+        expAvRentPerQuality = new double[config.N_QUALITY];
+        logExpAvRentPerQuality = new double[config.N_QUALITY];
+        for (int q = 0; q < config.N_QUALITY; q++) {
+            expAvSalePricePerQuality[q] = housingMarketStats.getExpAvSalePriceForQuality(q);
+            logExpAvSalePricePerQuality[q] = Math.log(expAvSalePricePerQuality[q] + 1.0);
+            expAvRentPerQuality[q] = rentalMarketStats.getExpAvSalePriceForQuality(q);
+            logExpAvRentPerQuality[q] = Math.log(expAvRentPerQuality[q] + 1.0);
+        }
+        logRelativeExpAvDaysOnMarket = Math.log((housingMarketStats.getExpAvDaysOnMarket() + 1.0)
+                /(config.constants.DAYS_IN_MONTH + 1.0));
+        logRelativeExpAvDaysOnRentalMarket = Math.log((rentalMarketStats.getExpAvDaysOnMarket() + 1.0)
+                /(config.constants.DAYS_IN_MONTH + 1.0));
+        expAvFlowYield = rentalMarketStats.getExpAvFlowYield();
+        longTermExpAvFlowYield = rentalMarketStats.getLongTermExpAvFlowYield();
+        mortgageInterestRate = bank.getMortgageInterestRate();
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * @return Highest quality band whose exponential average sale price is not above the given price, -1 if none
+     */
+    public int getMaxQualityForPrice(double price) {
+        int q = expAvSalePricePerQuality.length - 1;
+        while(q >= 0 && expAvSalePricePerQuality[q] > price) --q;
+        return q;
+    }
+
+    //----- Getter/setter methods -----//
+
+    public double getHPI() { return HPI; }
+
+    public double getLongTermHPAExpectation() { return longTermHPAExpectation; }
+
+    public double getExpAvSalePriceForQuality(int quality) { return expAvSalePricePerQuality[quality]; }
+
+    public double getLogExpAvSalePriceForQuality(int quality) { return logExpAvSalePricePerQuality[quality]; }
+
+    public double getLogRelativeExpAvDaysOnMarket() { return logRelativeExpAvDaysOnMarket; }
+
+    public double getExpAvRentForQuality(int quality) { return expAvRentPerQuality[quality]; }
+
+    public double getLogExpAvRentForQuality(int quality) { return logExpAvRentPerQuality[quality]; }
+
+    public double getLogRelativeExpAvDaysOnRentalMarket() { return logRelativeExpAvDaysOnRentalMarket; }
+
+    public double getExpAvFlowYield() { return expAvFlowYield; }
+
+    public double getLongTermExpAvFlowYield() { return longTermExpAvFlowYield; }
+
+    public double getMortgageInterestRate() { return mortgageInterestRate; }
+}
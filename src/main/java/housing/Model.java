@@ -8,10 +8,15 @@ import java.time.Instant;
 
 import collectors.*;
 
-import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.cli.*;
 import org.apache.commons.io.FileUtils;
 
+import utilities.MersenneTwisterPrng;
+import utilities.Pcg32Prng;
+import utilities.Prng;
+import utilities.SplittableRandomPrng;
+import utilities.Xoroshiro128PlusPlusPrng;
+
 /**************************************************************************************************
  * This is the root object of the simulation. Upon creation it creates and initialises all the
  * agents in the model.
@@ -53,13 +58,21 @@ public class Model {
     public static HousingMarketStats    housingMarketStats;
     public static RentalMarketStats     rentalMarketStats;
     public static MicroDataRecorder     transactionRecorder;
+    public static BurnInDetector        burnIn;
     public static int	                nSimulation; // To keep track of the simulation number
     public static int	                t; // To keep track of time (in months)
 
     static Government		            government;
-
-    private static MersenneTwister      prng;
-    private static Demographics		    demographics;
+    static ContractScheduler            contracts; // Fires the end of mortgages and tenancies
+    static HouseholdCohorts             cohorts; // Only used if households are stepped by cohorts
+    static SellDecisionScheduler        sellDecisions; // Only used if owner-occupiers' sell decisions are event-driven
+    static HouseholdBehaviour           householdBehaviour; // Behavioural decisions, shared by all households
+    static HouseRegistry                houseRegistry; // Columnar storage of the attributes of all houses
+    static RandomStreams                streams; // Streams of random numbers for each kind of random event
+    static Demographics                 demographics; // Births and deaths, and the dense index of households alive
+
+    private static Prng                 prng;
+    private static MarketSnapshot       marketSnapshot; // Market conditions for household decisions during this time step
     private static Recorder             recorder;
     private static String               configFileName;
     private static String               outputFolder;
@@ -74,16 +87,22 @@ public class Model {
      */
     public Model(String configFileName, String outputFolder) {
         config = new Config(configFileName);
-        prng = new MersenneTwister(config.SEED);
+        prng = createPrng(config.PRNG_BACKEND, config.SEED);
+        streams = new RandomStreams(config, prng);
 
         government = new Government();
-        demographics = new Demographics(prng);
-        construction = new Construction(prng);
+        demographics = new Demographics(streams.births, streams.deaths);
+        houseRegistry = new HouseRegistry((int)(config.TARGET_POPULATION*config.CONSTRUCTION_HOUSES_PER_HOUSEHOLD*1.1));
+        construction = new Construction(streams.construction);
         centralBank = new CentralBank();
         bank = new Bank();
         households = new ArrayList<>(config.TARGET_POPULATION*2);
-        houseSaleMarket = new HouseSaleMarket(prng);
-        houseRentalMarket = new HouseRentalMarket(prng);
+        houseSaleMarket = new HouseSaleMarket(streams.saleBidUp);
+        houseRentalMarket = new HouseRentalMarket(streams.rentalBidUp);
+        contracts = new ContractScheduler(config);
+        householdBehaviour = new HouseholdBehaviour(streams.bidNoise, streams.sellDecisions);
+        cohorts = new HouseholdCohorts();
+        sellDecisions = new SellDecisionScheduler(streams.sellDecisions);
 
         recorder = new collectors.Recorder(outputFolder);
         transactionRecorder = new collectors.MicroDataRecorder(outputFolder);
@@ -92,6 +111,7 @@ public class Model {
         householdStats = new collectors.HouseholdStats();
         housingMarketStats = new collectors.HousingMarketStats(houseSaleMarket);
         rentalMarketStats = new collectors.RentalMarketStats(housingMarketStats, houseRentalMarket);
+        burnIn = new collectors.BurnInDetector();
 
         nSimulation = 0;
     }
@@ -130,15 +150,29 @@ public class Model {
                 // respective variables
                 modelStep();
 
-//                if (t >= config.TIME_TO_START_RECORDING) {
+                // Test whether key series have settled, if the recording start is to be detected automatically
+                if (config.AUTO_BURN_IN) {
+                    burnIn.step();
+                    if (burnIn.getTimeStationary() == t) {
+                        System.out.println("Simulation: " + nSimulation + ", stationary from time: " + t);
+                    }
+                }
+
+                if (isRecording()) {
                     // Write results of this time step and run to both multi- and single-run files
                     recorder.writeTimeStampResults(config.recordCoreIndicators, t);
-//                }
+                }
 
                 // Print time information to screen
                 if (t % 100 == 0) {
                     System.out.println("Simulation: " + nSimulation + ", time: " + t);
                 }
+
+                // End the simulation early if enough stationary time steps have been recorded
+                if (config.AUTO_BURN_IN && config.N_STATIONARY_STEPS > 0
+                        && burnIn.getnStationarySteps() >= config.N_STATIONARY_STEPS) {
+                    break;
+                }
             }
 
 			// Finish each simulation within the recorders (closing single-run files, changing line in multi-run files)
@@ -155,6 +189,27 @@ public class Model {
 		System.exit(0);
 	}
 
+    /**
+     * Create the random number generator selected in the configuration file
+     *
+     * @param backend Name of the generator: MersenneTwister, Xoroshiro128PlusPlus, SplittableRandom or PCG32
+     * @param seed Seed for the generator
+     */
+    static Prng createPrng(String backend, int seed) {
+        switch (backend) {
+            case "MersenneTwister":
+                return new MersenneTwisterPrng(seed);
+            case "Xoroshiro128PlusPlus":
+                return new Xoroshiro128PlusPlusPrng(seed);
+            case "SplittableRandom":
+                return new SplittableRandomPrng(seed);
+            case "PCG32":
+                return new Pcg32Prng(seed);
+            default:
+                throw new IllegalArgumentException("Unknown random number generator \"" + backend + "\"");
+        }
+    }
+
 	private static void setupStatics() {
         setRecordGeneral();
 		setRecordCoreIndicators(config.recordCoreIndicators);
@@ -162,24 +217,94 @@ public class Model {
 	}
 
 	private static void init() {
-		construction.init();
+        streams.init(nSimulation);
+        houseRegistry.init();
 		houseSaleMarket.init();
 		houseRentalMarket.init();
+        contracts.init();
+        sellDecisions.init();
 		bank.init();
 		centralBank.init();
         housingMarketStats.init();
         rentalMarketStats.init();
         householdStats.init();
+        burnIn.init();
         households.clear();
+        demographics.init();
+        cohorts.init();
+        // Any initial housing stock is built and allocated in the month before the first one, so that contracts
+        // arranged then start paying in the first month
+        t = -1;
+        construction.init();
+        if (config.STATIONARY_INITIAL_POPULATION) {
+            demographics.initStationaryPopulation();
+            allocateInitialHousingStock();
+        }
 	}
 
+    /**
+     * Allocate the initial housing stock, offered for sale by the construction sector, among the initial population
+     * through the same bids, market clearing, mortgage approvals and contracts as during the simulation. Rounds of
+     * bids are repeated as long as they allocate any house or tenancy: households in social housing bid for a home, to
+     * buy or to rent, and BTL investors owning their home bid for investment properties, which they then offer for
+     * rent. The resulting contracts are then backdated to random times in the past, with mortgages keeping their
+     * monthly payments but only the balance left of their principal. Note that backdating draws from its own stream,
+     * initialContracts, since the number of contracts depends on behaviour, and drawing for them from any stream used
+     * later on (births, deaths or construction) would shift the exogenous shocks shared by paired common random
+     * numbers runs
+     */
+    private static void allocateInitialHousingStock() {
+        marketSnapshot = new MarketSnapshot(config, housingMarketStats, rentalMarketStats, bank);
+        int nUnallocated = countUnallocated();
+        int nUnallocatedBefore;
+        do {
+            nUnallocatedBefore = nUnallocated;
+            for (Household h : households) h.bidForInitialHousing(marketSnapshot);
+            houseSaleMarket.clearMarket();
+            houseRentalMarket.clearMarket();
+            nUnallocated = countUnallocated();
+        } while (nUnallocated < nUnallocatedBefore);
+        for (Household h : households) {
+            for (PaymentAgreement payment : h.getHousePayments().values()) {
+                int nPaymentsLeft = contracts.backdate(payment, streams.initialContracts);
+                if (nPaymentsLeft > 0 && payment instanceof MortgageAgreement) {
+                    ((MortgageAgreement)payment).amortise(nPaymentsLeft);
+                }
+            }
+        }
+        // Bids and loans for the initial housing stock are not to be counted as those of the first month
+        bank.resetMonthlyCounters();
+        householdStats.resetBidCounters();
+        creditSupply.resetLoanCounters();
+    }
+
+    /**
+     * @return Number of houses still offered for sale plus number of households in social housing, which decreases
+     * with every sale or tenancy
+     */
+    private static int countUnallocated() {
+        int n = houseSaleMarket.getnOffers();
+        for (Household h : households) if (h.isInSocialHousing()) n++;
+        return n;
+    }
+
 	private static void modelStep() {
+        // Freeze market conditions for all household decisions made until the sale market statistics are recorded
+        marketSnapshot = new MarketSnapshot(config, housingMarketStats, rentalMarketStats, bank);
         // Update population with births and deaths
         demographics.step();
         // Update number of houses
         construction.step();
+        // Flags mortgages and tenancies whose last payments are due this month, to expire once these are made
+        contracts.step();
         // Updates regional households consumption, housing decisions, and corresponding regional bids and offers
-		for(Household h : households) h.step();
+        if (config.COHORT_STEPPING) {
+            cohorts.step(marketSnapshot);
+        } else {
+            for (Household h : households) h.step(marketSnapshot);
+        }
+        // If event-driven, make the sell decisions of those owner-occupiers due this month
+        if (config.EVENT_DRIVEN_SELL_DECISIONS) sellDecisions.step(marketSnapshot);
         // Stores sale market bid and offer prices and averages before bids are matched by clearing the market
         housingMarketStats.preClearingRecord();
         // Clears sale market and updates the HPI
@@ -314,7 +439,20 @@ public class Model {
      */
 	static public int getMonth() { return t%12 + 1; }
 
-    public MersenneTwister getPrng() { return prng; }
+    static public Prng getPrng() { return prng; }
+
+    /**
+     * @return True if results are to be recorded at the current time step, that is, once TIME_TO_START_RECORDING has
+     * been reached and, if the burn-in period is detected automatically, once key series have settled
+     */
+    static public boolean isRecording() {
+        return t >= config.TIME_TO_START_RECORDING && (!config.AUTO_BURN_IN || burnIn.isStationary());
+    }
+
+    /**
+     * @return Market conditions taken at the beginning of the current time step
+     */
+    static MarketSnapshot getMarketSnapshot() { return marketSnapshot; }
 
     private static void setRecordGeneral() {
         creditSupply.setActive(true);
@@ -44,7 +44,7 @@ public class MortgageAgreement extends PaymentAgreement {
 	@Override
     public double makeMonthlyPayment() {
 	    // If no more payments are due...
-        if (nPayments == 0) {
+        if (isExpired) {
             // ...but mortgage is still active...
             if (isActive) {
                 isActive = false; // ...then deactivate the mortgage...
@@ -55,7 +55,7 @@ public class MortgageAgreement extends PaymentAgreement {
             }
         // If more payments are still due...
         } else {
-            nPayments -= 1; // ...then reduce number of payments due by one,
+            isExpired = isEnding; // ...then expire the mortgage if this is the last payment,
             principal = principal*(1.0 + monthlyInterestRate) - monthlyPayment; // ...reduce amount due by amount to be paid this month
             return monthlyPayment; // ...and return the monthly payment
         }
@@ -72,7 +72,8 @@ public class MortgageAgreement extends PaymentAgreement {
             amount = principal;
             principal = 0.0;
             monthlyPayment = 0.0;
-            nPayments = 0;
+            isExpired = true;
+            Model.contracts.cancel(this);
             Model.bank.endMortgageContract(this);
 		} else {
 			monthlyPayment *= (principal - amount)/principal;
@@ -81,6 +82,22 @@ public class MortgageAgreement extends PaymentAgreement {
         return amount;
     }
 
+    /**
+     * Turn a mortgage just arranged into one arranged in the past with the same monthly payment, by reducing its
+     * principal to the balance left with the given number of payments to go. Interest-only (BTL) mortgages keep their
+     * principal
+     *
+     * @param nPaymentsLeft Number of monthly payments left
+     */
+    void amortise(int nPaymentsLeft) {
+        if (isBuyToLet) return;
+        if (monthlyInterestRate > 0.0) {
+            principal = monthlyPayment*(1.0 - Math.pow(1.0 + monthlyInterestRate, -nPaymentsLeft))/monthlyInterestRate;
+        } else {
+            principal = monthlyPayment*nPaymentsLeft;
+        }
+    }
+
     /**
      * Pay off method in case no specific amount is provided. It assumes full principal payment.
      *
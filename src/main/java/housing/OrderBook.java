@@ -0,0 +1,52 @@
+package housing;
+
+/**************************************************************************************************
+ * Interface for the order books holding the offers made on a housing market. Apart from adding and
+ * removing offers, an order book must be able to find, for a given bid, the highest quality offer
+ * with a price not above the bid price (the cheapest of them, if several), and to iterate through
+ * all its offers in ascending price order (descending quality and ascending id for equal prices),
+ * as the clearing of the market depends on this order. Note that the iterator must support removal
+ * of the last element returned.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public interface OrderBook extends Iterable<HouseOfferRecord> {
+
+    /**
+     * Add a new offer to the order book. The price and quality of the offer must not change while it is in the book
+     */
+    void add(HouseOfferRecord offer);
+
+    /**
+     * Remove an offer from the order book
+     *
+     * @return True if the offer was found and removed, false otherwise
+     */
+    boolean remove(HouseOfferRecord offer);
+
+    /**
+     * Prepare the order book for best offer queries, to be called before any such query after offers have been added
+     */
+    void sortPriorities();
+
+    /**
+     * Find the highest quality offer with a price not above that of the bid, the cheapest one if several
+     *
+     * @param bid Bid whose price is the highest price the bidder is ready to pay
+     * @return The best offer, null if no offer is cheap enough
+     */
+    HouseOfferRecord peek(HousingMarketRecord bid);
+
+    /**
+     * Replace all offers in the order book with the given ones, already sorted in the iteration order of the book
+     *
+     * @param sortedOffers Array of offers in ascending price, descending quality and ascending id order
+     * @param n Number of offers to take from the array
+     */
+    void rebuild(HouseOfferRecord [] sortedOffers, int n);
+
+    int size();
+
+    void clear();
+}
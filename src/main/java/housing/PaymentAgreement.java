@@ -2,8 +2,10 @@ package housing;
 
 /**************************************************************************************************
  * Class to represent a payment contract in general, so as to include both mortgage and rental
- * contracts. It keeps track of the monthly payments associated to the contract and the number of
- * payments left.
+ * contracts. It keeps track of the monthly payments associated to the contract and whether any
+ * payments are still due. Rather than counting down the payments left every month, the month of
+ * the last payment is scheduled at the contract's creation with the ContractScheduler, which flags
+ * the contract as ending that month, so that it expires as soon as that payment is made.
  *
  * @author daniel, davidrpugh, Adrian Carro
  *
@@ -14,7 +16,9 @@ public class PaymentAgreement {
     //----- Fields -----//
     //------------------//
 
-    int 		    nPayments;
+    boolean         isEnding; // True from the month of the last payment, set by the ContractScheduler
+    boolean         isExpired; // True once the last payment is made
+    int             tLastPayment = -1; // Month of the last payment while scheduled with the ContractScheduler, -1 otherwise
     public double 	monthlyPayment;
 
     //-------------------//
@@ -28,10 +32,10 @@ public class PaymentAgreement {
      * @return The amount of the monthly payment
      */
 	public double makeMonthlyPayment() {
-		if (nPayments == 0) {
+		if (isExpired) {
 		    return 0.0;
         } else {
-            nPayments -= 1;
+		    isExpired = isEnding;
             return monthlyPayment;
         }
 	}
@@ -43,7 +47,7 @@ public class PaymentAgreement {
 	 * @return The amount of the next monthly payment
 	 */
 	double nextPayment() {
-		if (nPayments == 0) {
+		if (isExpired) {
 		    return 0.0;
         } else {
 		    return monthlyPayment;
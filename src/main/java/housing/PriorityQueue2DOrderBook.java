@@ -0,0 +1,68 @@
+package housing;
+
+import java.util.Iterator;
+
+import utilities.PriorityQueue2D;
+
+/**************************************************************************************************
+ * Order book backed by a general-purpose price-quality 2D priority queue, which keeps the set of
+ * offers not covered by any cheaper offer of equal or higher quality, to be rebuilt before queries
+ * by calling sortPriorities.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+class PriorityQueue2DOrderBook implements OrderBook {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private PriorityQueue2D<HousingMarketRecord>    offersPQ;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    PriorityQueue2DOrderBook() {
+        offersPQ = new PriorityQueue2D<>(new HousingMarketRecord.PQComparator()); //Priority Queue of (Price, Quality)
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void add(HouseOfferRecord offer) { offersPQ.add(offer); }
+
+    @Override
+    public boolean remove(HouseOfferRecord offer) { return offersPQ.remove(offer); }
+
+    @Override
+    public void sortPriorities() { offersPQ.sortPriorities(); }
+
+    @Override
+    public HouseOfferRecord peek(HousingMarketRecord bid) { return (HouseOfferRecord)offersPQ.peek(bid); }
+
+    @Override
+    public void rebuild(HouseOfferRecord [] sortedOffers, int n) { offersPQ.rebuild(sortedOffers, n); }
+
+    @Override
+    public int size() { return offersPQ.size(); }
+
+    @Override
+    public void clear() { offersPQ.clear(); }
+
+    @Override
+    public Iterator<HouseOfferRecord> iterator() {
+        final Iterator<HousingMarketRecord> it = offersPQ.iterator();
+        return new Iterator<HouseOfferRecord>() {
+            @Override
+            public boolean hasNext() { return it.hasNext(); }
+            @Override
+            public HouseOfferRecord next() { return (HouseOfferRecord)it.next(); }
+            @Override
+            public void remove() { it.remove(); }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package housing;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import utilities.SortedArrays;
+
+/**************************************************************************************************
+ * Order book exploiting the small number of discrete house qualities. Offers are kept in one binary
+ * min-heap per quality band, ordered by price (and id, for equal prices), such that the best offer
+ * for a given bid is found by scanning, from the highest quality down, the cheapest offer of each
+ * band until one is found with a price not above the bid price. Offers are also kept in a single
+ * price-quality sorted set, only used to iterate through them in the order needed for clearing the
+ * market. Heaps are always up to date, so no sorting is needed before queries.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+class QualityBucketOrderBook implements OrderBook {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private Comparator<HouseOfferRecord> xyComparator; // Comparator used by xySortedOffers
+    private TreeSet<HouseOfferRecord>   xySortedOffers; // Offers in ascending price, descending quality, ascending id order
+    private HouseOfferRecord [][]       buckets; // Min-heap of offers for each quality band, by price and id
+    private int []                      bucketSizes; // Number of offers in each heap
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    QualityBucketOrderBook(int nQualities) {
+        final HousingMarketRecord.PQComparator comparator = new HousingMarketRecord.PQComparator();
+        xyComparator = new Comparator<HouseOfferRecord>() {
+            @Override
+            public int compare(HouseOfferRecord arg0, HouseOfferRecord arg1) { return comparator.XYCompare(arg0, arg1); }
+        };
+        xySortedOffers = new TreeSet<>(xyComparator);
+        buckets = new HouseOfferRecord[nQualities][16];
+        bucketSizes = new int[nQualities];
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void add(HouseOfferRecord offer) {
+        if (!xySortedOffers.add(offer)) return;
+        int q = offer.getQuality();
+        if (bucketSizes[q] == buckets[q].length) {
+            HouseOfferRecord [] newBucket = new HouseOfferRecord[2*buckets[q].length];
+            System.arraycopy(buckets[q], 0, newBucket, 0, bucketSizes[q]);
+            buckets[q] = newBucket;
+        }
+        siftUp(buckets[q], bucketSizes[q]++, offer);
+    }
+
+    @Override
+    public boolean remove(HouseOfferRecord offer) {
+        if (!xySortedOffers.remove(offer)) return false;
+        removeFromBucket(offer);
+        return true;
+    }
+
+    @Override
+    public void sortPriorities() {} // Heaps are always up to date
+
+    @Override
+    public HouseOfferRecord peek(HousingMarketRecord bid) {
+        for (int q = buckets.length - 1; q >= 0; q--) {
+            if (bucketSizes[q] > 0 && buckets[q][0].getPrice() <= bid.getPrice()) return buckets[q][0];
+        }
+        return null;
+    }
+
+    /**
+     * Bulk-load the sorted set in linear time and fill in the heaps in ascending price order, which makes each of them a
+     * valid min-heap without any sifting
+     */
+    @Override
+    public void rebuild(HouseOfferRecord [] sortedOffers, int n) {
+        clear();
+        SortedArrays.addAllSorted(xySortedOffers, sortedOffers, n);
+        for (int i = 0; i < n; i++) {
+            HouseOfferRecord offer = sortedOffers[i];
+            int q = offer.getQuality();
+            if (bucketSizes[q] == buckets[q].length) {
+                HouseOfferRecord [] newBucket = new HouseOfferRecord[2*buckets[q].length];
+                System.arraycopy(buckets[q], 0, newBucket, 0, bucketSizes[q]);
+                buckets[q] = newBucket;
+            }
+            offer.orderBookPosition = bucketSizes[q];
+            buckets[q][bucketSizes[q]++] = offer;
+        }
+    }
+
+    @Override
+    public int size() { return xySortedOffers.size(); }
+
+    @Override
+    public void clear() {
+        xySortedOffers.clear();
+        for (int q = 0; q < buckets.length; q++) {
+            for (int i = 0; i < bucketSizes[q]; i++) buckets[q][i] = null;
+            bucketSizes[q] = 0;
+        }
+    }
+
+    @Override
+    public Iterator<HouseOfferRecord> iterator() {
+        final Iterator<HouseOfferRecord> it = xySortedOffers.iterator();
+        return new Iterator<HouseOfferRecord>() {
+            private HouseOfferRecord last;
+            @Override
+            public boolean hasNext() { return it.hasNext(); }
+            @Override
+            public HouseOfferRecord next() {
+                last = it.next();
+                return last;
+            }
+            @Override
+            public void remove() {
+                it.remove();
+                removeFromBucket(last);
+            }
+        };
+    }
+
+    //----- Heap methods -----//
+
+    private void removeFromBucket(HouseOfferRecord offer) {
+        int q = offer.getQuality();
+        HouseOfferRecord [] heap = buckets[q];
+        int i = offer.orderBookPosition;
+        int last = --bucketSizes[q];
+        HouseOfferRecord moved = heap[last];
+        heap[last] = null;
+        if (i == last) return;
+        // Fill the gap with the last element of the heap, moving it up or down as needed
+        if (i > 0 && isCheaper(moved, heap[(i - 1)/2])) {
+            siftUp(heap, i, moved);
+        } else {
+            siftDown(heap, last, i, moved);
+        }
+    }
+
+    private static void siftUp(HouseOfferRecord [] heap, int i, HouseOfferRecord offer) {
+        while (i > 0) {
+            int parent = (i - 1)/2;
+            if (!isCheaper(offer, heap[parent])) break;
+            heap[i] = heap[parent];
+            heap[i].orderBookPosition = i;
+            i = parent;
+        }
+        heap[i] = offer;
+        offer.orderBookPosition = i;
+    }
+
+    private static void siftDown(HouseOfferRecord [] heap, int size, int i, HouseOfferRecord offer) {
+        while (2*i + 1 < size) {
+            int child = 2*i + 1;
+            if (child + 1 < size && isCheaper(heap[child + 1], heap[child])) child++;
+            if (!isCheaper(heap[child], offer)) break;
+            heap[i] = heap[child];
+            heap[i].orderBookPosition = i;
+            i = child;
+        }
+        heap[i] = offer;
+        offer.orderBookPosition = i;
+    }
+
+    /**
+     * @return True if offer a goes before offer b within a quality band, i.e., if it is cheaper or, for equal prices,
+     * it has a smaller id
+     */
+    private static boolean isCheaper(HouseOfferRecord a, HouseOfferRecord b) {
+        return a.getPrice() < b.getPrice() || (a.getPrice() == b.getPrice() && a.getId() < b.getId());
+    }
+}
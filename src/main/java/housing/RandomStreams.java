@@ -0,0 +1,90 @@
+package housing;
+
+import utilities.Prng;
+import utilities.ReplicaPrng;
+
+/**************************************************************************************************
+ * Named streams of random numbers, one for each kind of random event in the model: household births
+ * (including the draw of their characteristics), deaths, the quality of new houses, sell decisions,
+ * the noise in bids, offers and other behavioural decisions, the bid-up of prices in the sale and
+ * rental markets, and the backdating of the contracts of a stationary initial population. By
+ * default, all of them are the model's single random number generator, thus reproducing previous
+ * results. With common random numbers, each of them is a separate stream, split off in a fixed
+ * order from a generator seeded anew for each simulation from SEED and the simulation number, such
+ * that paired runs of different scenarios share the same exogenous shocks even after their
+ * behaviour diverges. With antithetic replicas, every even simulation repeats the seeds of the
+ * previous odd one with antithetic streams.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class RandomStreams {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private Config          config;
+
+    final Prng              births; // Number of births and characteristics of newly born households
+    final Prng              deaths; // Deaths and choice of heirs
+    final Prng              construction; // Quality of newly built houses
+    final Prng              sellDecisions; // Owner-occupiers' and investors' decisions to sell
+    final Prng              bidNoise; // Noise in bids, offers and other behavioural decisions
+    final Prng              saleBidUp; // Bid-up of prices and choice of winning bids in the sale market
+    final Prng              rentalBidUp; // Bid-up of prices and choice of winning bids in the rental market
+    final Prng              initialContracts; // Backdating of the contracts allocated at the start of a simulation
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param prng The model's random number generator, to be used for all streams unless common random numbers are used
+     */
+    RandomStreams(Config config, Prng prng) {
+        this.config = config;
+        if (config.COMMON_RANDOM_NUMBERS) {
+            // Generators are given their actual sources at the start of each simulation
+            births = new ReplicaPrng(prng, false);
+            deaths = new ReplicaPrng(prng, false);
+            construction = new ReplicaPrng(prng, false);
+            sellDecisions = new ReplicaPrng(prng, false);
+            bidNoise = new ReplicaPrng(prng, false);
+            saleBidUp = new ReplicaPrng(prng, false);
+            rentalBidUp = new ReplicaPrng(prng, false);
+            initialContracts = new ReplicaPrng(prng, false);
+        } else {
+            births = prng;
+            deaths = prng;
+            construction = prng;
+            sellDecisions = prng;
+            bidNoise = prng;
+            saleBidUp = prng;
+            rentalBidUp = prng;
+            initialContracts = prng;
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * If common random numbers are used, seed all streams for a new simulation. Otherwise, streams simply continue
+     *
+     * @param nSimulation Number of the simulation, starting at 1
+     */
+    void init(int nSimulation) {
+        if (!config.COMMON_RANDOM_NUMBERS) return;
+        int replica = config.ANTITHETIC_REPLICAS ? (nSimulation + 1)/2 : nSimulation;
+        boolean antithetic = config.ANTITHETIC_REPLICAS && nSimulation%2 == 0;
+        Prng root = Model.createPrng(config.PRNG_BACKEND, config.SEED + replica - 1);
+        // Note that the order of splitting determines the seeds of each stream, and must therefore be kept, with any new
+        // streams added at the end
+        for (Prng stream : new Prng [] {births, deaths, construction, sellDecisions, bidNoise, saleBidUp, rentalBidUp,
+                initialContracts}) {
+            ((ReplicaPrng)stream).reset(root.split(), antithetic);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package housing;
+
+import java.util.ArrayList;
+
+import utilities.CalendarQueue;
+import utilities.FastVariates;
+import utilities.Prng;
+
+/**************************************************************************************************
+ * Event-driven alternative to owner-occupiers deciding every month whether to sell their homes.
+ * Since the monthly probability to sell a home is the same for all owner-occupiers, the months at
+ * which each of them would sell can be drawn by thinning: candidate months are drawn as geometric
+ * waiting times with a probability pBound not below the actual monthly probability, and each
+ * candidate is accepted with the ratio of the actual probability at that month to pBound. Thus,
+ * only owner-occupiers with a candidate month due are visited, and only when the actual probability
+ * moves outside a tolerance band around pBound (above it, or too far below it for thinning to be
+ * efficient) are all waiting times drawn again. Note that this only covers owner-occupiers' homes: the
+ * decisions of BTL investors to sell each of their investment properties are still drawn every
+ * month for every property, by HouseholdBehaviour.decideToSellInvestmentProperty, since their
+ * probability depends on each property's leverage, rent and mortgage payments, and thus has no
+ * useful common bound with which to thin them.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class SellDecisionScheduler {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final double         MIN_P_BOUND = 1.0e-6; // Lower limit to pBound, to keep waiting times finite
+
+    private Config                      config = Model.config; // Passes the Model's configuration parameters object to a private field
+    private Prng                        prng;
+    private CalendarQueue<Household>    calendar; // Owner-occupiers by month of their next candidate sell decision
+    private ArrayList<Household>        dueHouseholds = new ArrayList<>(); // Reusable list of owner-occupiers due this month
+    private double                      pBound; // Probability used for drawing waiting times, NaN if not yet set
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    SellDecisionScheduler(Prng prng) {
+        this.prng = prng;
+        // Horizon covering most waiting times, as the average time to sell is HOLD_PERIOD years
+        calendar = new CalendarQueue<>((int)(2.0*config.constants.MONTHS_IN_YEAR*config.HOLD_PERIOD));
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    void init() {
+        calendar.clear(0);
+        pBound = Double.NaN;
+    }
+
+    /**
+     * Schedule the next candidate sell decision for a household which has just become an owner-occupier or taken its
+     * home off the sale market. Its first possible decision is next month.
+     */
+    void schedule(Household h) {
+        if (!Double.isNaN(pBound)) scheduleFrom(h, Model.getTime() + 1);
+    }
+
+    private void scheduleFrom(Household h, int firstMonth) {
+        h.tNextSellDecision = nextCandidateMonth(prng, firstMonth, pBound);
+        calendar.add(h, h.tNextSellDecision);
+    }
+
+    /**
+     * Draw the month of the next candidate sell decision, at or after firstMonth, as a geometric waiting time with
+     * monthly probability pBound
+     */
+    static int nextCandidateMonth(Prng prng, int firstMonth, double pBound) {
+        return firstMonth + FastVariates.nextGeometric(prng, pBound);
+    }
+
+    /**
+     * Accept a candidate sell decision with probability pSell/pBound, such that the resulting monthly probability of
+     * selling is pSell, as long as pSell does not exceed pBound
+     */
+    static boolean isCandidateAccepted(Prng prng, double pSell, double pBound) {
+        return prng.nextDouble()*pBound < pSell;
+    }
+
+    /**
+     * Make this month's sell decisions. To be called once per month, during the households' step
+     *
+     * @param market Market conditions for this time step
+     */
+    void step(MarketSnapshot market) {
+        int t = Model.getTime();
+        double pSell = HouseholdBehaviour.getMonthlyPSellHome(market);
+        // If the monthly probability has moved outside the tolerance band, draw all waiting times again from this month
+        if (Double.isNaN(pBound) || pSell > pBound
+                || pSell < pBound/Math.pow(1.0 + config.SELL_DECISION_TOLERANCE, 2)) {
+            pBound = Math.min(1.0, Math.max(MIN_P_BOUND, pSell*(1.0 + config.SELL_DECISION_TOLERANCE)));
+            calendar.clear(t);
+            for (Household h : Model.households) {
+                if (isWaitingToSell(h)) {
+                    scheduleFrom(h, t);
+                } else {
+                    h.tNextSellDecision = -1;
+                }
+            }
+        }
+        // Visit only households with a candidate decision due this month, skipping stale entries
+        calendar.drainTo(t, dueHouseholds);
+        for (Household h : dueHouseholds) {
+            if (h.tNextSellDecision != t || !isWaitingToSell(h)) continue;
+            // Note that the probability is recomputed, as it decreases as houses are put on the market
+            if (isCandidateAccepted(prng, HouseholdBehaviour.getMonthlyPSellHome(market), pBound)) {
+                h.tNextSellDecision = -1;
+                h.putHomeForSale(market);
+            } else {
+                scheduleFrom(h, t + 1);
+            }
+        }
+        dueHouseholds.clear();
+    }
+
+    /**
+     * @return True for owner-occupiers without the BTL gene whose home is not on the sale market
+     */
+    private static boolean isWaitingToSell(Household h) {
+        return h.isHomeowner() && !h.isPropertyInvestor() && !h.getHome().isOnMarket();
+    }
+}
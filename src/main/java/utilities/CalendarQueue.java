@@ -0,0 +1,143 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**************************************************************************************************
+ * Calendar queue of events scheduled at integer times (months), with constant time insertion and
+ * retrieval of all events due at a given time. Events are kept in a ring of buckets, one per time,
+ * covering a fixed horizon ahead of the current time. Events beyond that horizon are kept in an
+ * overflow list, which is scanned every half horizon to move those which have come within reach
+ * into their buckets. Events can be cancelled before they are due, given the time at which they
+ * were scheduled, at a cost proportional to the number of events scheduled at that time.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class CalendarQueue<E> {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private ArrayList<ArrayList<E>> buckets; // Bucket i holds events due at the only time t within horizon with t & mask == i
+    private int                     mask;
+    private int                     now; // First time for which events have not been retrieved yet
+    private ArrayList<E>            overflow = new ArrayList<>(); // Events beyond the horizon...
+    private int []                  overflowTimes = new int[16]; // ...and their times
+    private int                     size;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param horizon Number of time steps ahead for which events are directly kept in buckets, rounded up to a power of 2
+     */
+    public CalendarQueue(int horizon) {
+        int nBuckets = 2;
+        while (nBuckets < horizon) nBuckets *= 2;
+        buckets = new ArrayList<>(nBuckets);
+        for (int i = 0; i < nBuckets; i++) buckets.add(new ArrayList<E>());
+        mask = nBuckets - 1;
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Remove all events and set the current time
+     */
+    public void clear(int time) {
+        for (ArrayList<E> bucket : buckets) bucket.clear();
+        overflow.clear();
+        now = time;
+        size = 0;
+    }
+
+    /**
+     * Schedule an event at a given time, not earlier than the first time not yet retrieved
+     */
+    public void add(E event, int time) {
+        if (time < now) {
+            throw new IllegalArgumentException("Event scheduled at time " + time + ", before current time " + now);
+        }
+        if (time - now <= mask) {
+            buckets.get(time & mask).add(event);
+        } else {
+            if (overflow.size() == overflowTimes.length) overflowTimes = Arrays.copyOf(overflowTimes, 2*overflowTimes.length);
+            overflowTimes[overflow.size()] = time;
+            overflow.add(event);
+        }
+        size++;
+    }
+
+    /**
+     * Retrieve and remove all events due at or before the given time, appending them to the given list in ascending
+     * order of their times
+     *
+     * @return Number of events retrieved
+     */
+    public int drainTo(int time, List<E> events) {
+        int n = 0;
+        for (; now <= time; now++) {
+            // Every half horizon, bring within reach any overflow events which could otherwise be missed before the next scan
+            if ((now & (mask >> 1)) == 0 && !overflow.isEmpty()) refillFromOverflow();
+            ArrayList<E> bucket = buckets.get(now & mask);
+            n += bucket.size();
+            events.addAll(bucket);
+            bucket.clear();
+        }
+        size -= n;
+        return n;
+    }
+
+    /**
+     * Remove an event scheduled at a given time, if not yet retrieved, keeping the order of the rest of events. Events
+     * are compared by identity
+     *
+     * @return True if the event was found and removed
+     */
+    public boolean remove(E event, int time) {
+        if (time < now) return false;
+        if (time - now <= mask) {
+            ArrayList<E> bucket = buckets.get(time & mask);
+            for (int i = 0; i < bucket.size(); i++) {
+                if (bucket.get(i) == event) {
+                    bucket.remove(i);
+                    size--;
+                    return true;
+                }
+            }
+        }
+        // Events scheduled beyond the horizon may still be in the overflow list, even if now within reach
+        for (int i = 0; i < overflow.size(); i++) {
+            if (overflow.get(i) == event && overflowTimes[i] == time) {
+                overflow.remove(i);
+                System.arraycopy(overflowTimes, i + 1, overflowTimes, i, overflow.size() - i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void refillFromOverflow() {
+        int j = 0;
+        for (int i = 0; i < overflow.size(); i++) {
+            int time = overflowTimes[i];
+            if (time - now <= mask) {
+                buckets.get(time & mask).add(overflow.get(i));
+            } else {
+                overflow.set(j, overflow.get(i));
+                overflowTimes[j] = time;
+                j++;
+            }
+        }
+        overflow.subList(j, overflow.size()).clear();
+    }
+
+    public int size() { return size; }
+}
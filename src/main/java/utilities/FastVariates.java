@@ -0,0 +1,220 @@
+package utilities;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.util.FastMath;
+
+/**************************************************************************************************
+ * Fast generation of random variates from any random generator implementing the RandomGenerator
+ * interface, with no object created per draw. It includes a ziggurat sampler for standard normal
+ * variates, inverse transform sampling for geometric variates, batched Bernoulli trials and bulk
+ * filling of arrays with uniform variates. Note that, except for nextGeometricCompatible, these
+ * methods consume random numbers differently than the generator's own methods or the Apache
+ * Commons Math distributions, and thus give different (though equally distributed) sequences.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public final class FastVariates {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    // Ziggurat for the standard normal distribution, as described by Marsaglia and Tsang (2000), with the improvements
+    // by Doornik (2005): 128 layers of equal area V, the base layer including the tail beyond R
+    private static final int        N_LAYERS = 128;
+    private static final double     R = 3.442619855899; // Start of the tail
+    private static final double     V = 9.91256303526217e-3; // Area of each layer
+    private static final double []  layerX = new double[N_LAYERS + 1]; // Right edge of each layer
+    private static final double []  layerRatio = new double[N_LAYERS]; // Fraction of each layer fully under the curve
+
+    static {
+        double f = FastMath.exp(-0.5*R*R);
+        layerX[0] = V/f;
+        layerX[1] = R;
+        layerX[N_LAYERS] = 0.0;
+        for (int i = 2; i < N_LAYERS; i++) {
+            layerX[i] = FastMath.sqrt(-2.0*FastMath.log(V/layerX[i - 1] + f));
+            f = FastMath.exp(-0.5*layerX[i]*layerX[i]);
+        }
+        for (int i = 0; i < N_LAYERS; i++) layerRatio[i] = layerX[i + 1]/layerX[i];
+    }
+
+    private static final double     DOUBLE_UNIT = 0x1.0p-53; // Spacing of doubles in [0, 1) built from 53 random bits
+    private static final double     SKIP_THRESHOLD = 0.1; // Probability below which Bernoulli trials are run by skipping
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    private FastVariates() {} // Not to be instantiated
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    //----- Normal variates -----//
+
+    /**
+     * Draw a standard normal variate by the ziggurat method. Most draws only take one 64-bit random number, a
+     * multiplication and a comparison, with the low 7 bits choosing the layer and the top 53 bits the position within it
+     */
+    public static double nextGaussian(RandomGenerator rng) {
+        while (true) {
+            long bits = rng.nextLong();
+            int i = (int)(bits & (N_LAYERS - 1));
+            double u = 2.0*((bits >>> 11)*DOUBLE_UNIT) - 1.0;
+            if (Math.abs(u) < layerRatio[i]) return u*layerX[i];
+            if (i == 0) return nextGaussianTail(rng, u < 0.0);
+            // Wedge between the rectangle fully under the curve and the curve itself
+            double x = u*layerX[i];
+            double f0 = FastMath.exp(-0.5*(layerX[i]*layerX[i] - x*x));
+            double f1 = FastMath.exp(-0.5*(layerX[i + 1]*layerX[i + 1] - x*x));
+            if (f1 + rng.nextDouble()*(f0 - f1) < 1.0) return x;
+        }
+    }
+
+    /**
+     * Draw a normal variate from the tail beyond R (or below -R), by Marsaglia's method
+     */
+    private static double nextGaussianTail(RandomGenerator rng, boolean negative) {
+        double x;
+        double y;
+        do {
+            x = -FastMath.log(1.0 - rng.nextDouble())/R;
+            y = -FastMath.log(1.0 - rng.nextDouble());
+        } while (2.0*y < x*x);
+        return negative ? -(R + x) : R + x;
+    }
+
+    //----- Geometric variates -----//
+
+    /**
+     * Draw the number of failures before the first success, with probability of success pSuccess for each trial, by
+     * inverse transform sampling, which takes a single uniform variate and two logarithms per draw
+     */
+    public static int nextGeometric(RandomGenerator rng, double pSuccess) {
+        if (pSuccess <= 0.0 || pSuccess > 1.0) {
+            throw new IllegalArgumentException("Probability of success must be in (0, 1], found " + pSuccess);
+        }
+        if (pSuccess == 1.0) return 0;
+        return nextGeometricFromLog(rng, FastMath.log1p(-pSuccess));
+    }
+
+    /**
+     * Same as nextGeometric, for callers drawing repeatedly with a fixed probability of success, who can pass the
+     * logarithm of the probability of failure, log(1 - pSuccess), computed once
+     */
+    public static int nextGeometricFromLog(RandomGenerator rng, double logPFailure) {
+        double n = FastMath.floor(FastMath.log(1.0 - rng.nextDouble())/logPFailure); // 1.0 - nextDouble() is in (0, 1]
+        return (n < Integer.MAX_VALUE) ? (int)n : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Draw the number of failures before the first success, with probability of success pSuccess for each trial, giving
+     * exactly the same results, and for the same random numbers, as the sample method of the Apache Commons Math
+     * GeometricDistribution class (an inverse cumulative probability found by a bisection search bounded by Chebyshev's
+     * inequality), without creating a new distribution object for every draw
+     */
+    public static int nextGeometricCompatible(RandomGenerator rng, double pSuccess) {
+        double p = rng.nextDouble();
+        if (p == 0.0) return 0;
+        int lower = -1;
+        int upper = Integer.MAX_VALUE;
+        double mu = (1.0 - pSuccess)/pSuccess;
+        double sigma = FastMath.sqrt((1.0 - pSuccess)/(pSuccess*pSuccess));
+        if (!(Double.isInfinite(mu) || Double.isNaN(mu) || Double.isInfinite(sigma) || Double.isNaN(sigma)
+                || sigma == 0.0)) {
+            double k = FastMath.sqrt((1.0 - p)/p);
+            double tmp = mu - k*sigma;
+            if (tmp > lower) lower = ((int)FastMath.ceil(tmp)) - 1;
+            k = 1.0/k;
+            tmp = mu + k*sigma;
+            if (tmp < upper) upper = ((int)FastMath.ceil(tmp)) - 1;
+        }
+        while (lower + 1 < upper) {
+            int xm = (lower + upper)/2;
+            if (xm < lower || xm > upper) xm = lower + (upper - lower)/2;
+            if (1.0 - FastMath.pow(1.0 - pSuccess, xm + 1) >= p) {
+                upper = xm;
+            } else {
+                lower = xm;
+            }
+        }
+        return upper;
+    }
+
+    //----- Bernoulli trials -----//
+
+    /**
+     * Run n independent Bernoulli trials with a common probability of success. For small probabilities, rather than
+     * drawing one uniform variate per trial, the gaps between successes are drawn as geometric variates, which takes a
+     * number of random numbers proportional to the number of successes
+     *
+     * @param outcomes Array where the outcome of trial i is written at position i (true for a success)
+     * @return Number of successes
+     */
+    public static int nextBernoulli(RandomGenerator rng, double pSuccess, boolean [] outcomes, int n) {
+        if (pSuccess <= 0.0) {
+            Arrays.fill(outcomes, 0, n, false);
+            return 0;
+        }
+        if (pSuccess >= 1.0) {
+            Arrays.fill(outcomes, 0, n, true);
+            return n;
+        }
+        int nSuccesses = 0;
+        if (pSuccess < SKIP_THRESHOLD) {
+            Arrays.fill(outcomes, 0, n, false);
+            double logPFailure = FastMath.log1p(-pSuccess);
+            long i = nextGeometricFromLog(rng, logPFailure);
+            while (i < n) {
+                outcomes[(int)i] = true;
+                nSuccesses++;
+                i += 1L + nextGeometricFromLog(rng, logPFailure);
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                outcomes[i] = rng.nextDouble() < pSuccess;
+                if (outcomes[i]) nSuccesses++;
+            }
+        }
+        return nSuccesses;
+    }
+
+    /**
+     * Run n independent Bernoulli trials, each with its own probability of success, using one uniform variate per trial
+     *
+     * @param pSuccess Array with the probability of success of trial i at position i
+     * @param outcomes Array where the outcome of trial i is written at position i (true for a success)
+     * @return Number of successes
+     */
+    public static int nextBernoulli(RandomGenerator rng, double [] pSuccess, boolean [] outcomes, int n) {
+        int nSuccesses = 0;
+        for (int i = 0; i < n; i++) {
+            outcomes[i] = rng.nextDouble() < pSuccess[i];
+            if (outcomes[i]) nSuccesses++;
+        }
+        return nSuccesses;
+    }
+
+    //----- Uniform variates -----//
+
+    /**
+     * Fill n positions of an array, starting at position from, with uniform variates in [0, 1), drawn in order from the
+     * generator, such that the results equal those of as many successive calls to its nextDouble method
+     */
+    public static void nextUniforms(RandomGenerator rng, double [] values, int from, int n) {
+        for (int i = from; i < from + n; i++) values[i] = rng.nextDouble();
+    }
+
+    /**
+     * Fill n positions of an array, starting at position from, with uniform variates in [0, 1) built from the 53 top
+     * bits of one 64-bit random number each, which for most generators is faster than calling nextDouble
+     */
+    public static void nextUniformsFromBits(RandomGenerator rng, double [] values, int from, int n) {
+        for (int i = from; i < from + n; i++) values[i] = (rng.nextLong() >>> 11)*DOUBLE_UNIT;
+    }
+}
@@ -0,0 +1,31 @@
+package utilities;
+
+import org.apache.commons.math3.random.MersenneTwister;
+
+/**************************************************************************************************
+ * Mersenne Twister generator, giving exactly the same random numbers as the Apache Commons Math
+ * MersenneTwister class. Note that, for lack of a cheap jump-ahead, new generators are split off by
+ * seeding them with random numbers drawn from this one.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class MersenneTwisterPrng extends MersenneTwister implements Prng {
+
+    private static final long serialVersionUID = 1L;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public MersenneTwisterPrng(int seed) { super(seed); }
+
+    public MersenneTwisterPrng(int [] seed) { super(seed); }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public Prng split() { return new MersenneTwisterPrng(new int[] {nextInt(), nextInt(), nextInt(), nextInt()}); }
+}
@@ -0,0 +1,328 @@
+package utilities;
+
+import java.math.BigInteger;
+
+/**************************************************************************************************
+ * Allocation-free conversion of int and double values into ASCII bytes, written directly into a
+ * caller-provided byte array. Doubles are converted to their shortest decimal representation that
+ * rounds back to the same value, following the Ryu algorithm (Ulf Adams, "Ryu: fast float-to-string
+ * conversion", PLDI 2018), and are laid out with the same rules as Double.toString, i.e., plain
+ * decimal notation with at least one fractional digit for magnitudes in [1e-3, 1e7), and
+ * computerised scientific notation ("1.0E7") otherwise. Note that the digits themselves can differ
+ * from those of Double.toString, which does not always find the shortest representation (it prints,
+ * e.g., 9.999999999999999E22 for 1.0E23 and 2.82879384806159008E17 for 2.82879384806159E17). Both
+ * read back as the same double, but the output here is never longer.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class NumberFormatter {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    // Maximum number of bytes needed to write any int or double value
+    public static final int         MAX_INT_LENGTH = 11;
+    public static final int         MAX_DOUBLE_LENGTH = 25;
+
+    private static final int        MANTISSA_BITS = 52;
+    private static final long       MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+    private static final int        EXPONENT_BITS = 11;
+    private static final int        EXPONENT_MASK = (1 << EXPONENT_BITS) - 1;
+    private static final int        EXPONENT_BIAS = (1 << (EXPONENT_BITS - 1)) - 1;
+
+    // Tables of powers of 5 (and their inverses) with 125 significant bits, stored as {low, high} 64-bit words
+    private static final int        POW5_BITCOUNT = 125;
+    private static final int        POW5_INV_BITCOUNT = 125;
+    private static final int        POW5_TABLE_SIZE = 326;
+    private static final int        POW5_INV_TABLE_SIZE = 342;
+    private static final long [][]  POW5_SPLIT = new long[POW5_TABLE_SIZE][2];
+    private static final long [][]  POW5_INV_SPLIT = new long[POW5_INV_TABLE_SIZE][2];
+
+    private static final byte []    NAN = {'N', 'a', 'N'};
+    private static final byte []    INFINITY = {'I', 'n', 'f', 'i', 'n', 'i', 't', 'y'};
+
+    static {
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int i = 0; i < Math.max(POW5_TABLE_SIZE, POW5_INV_TABLE_SIZE); i++) {
+            BigInteger pow = BigInteger.valueOf(5).pow(i);
+            int pow5len = pow.bitLength();
+            if (i < POW5_TABLE_SIZE) {
+                // 5^i truncated (or padded) to exactly POW5_BITCOUNT bits
+                BigInteger pow5 = (pow5len > POW5_BITCOUNT) ? pow.shiftRight(pow5len - POW5_BITCOUNT)
+                        : pow.shiftLeft(POW5_BITCOUNT - pow5len);
+                POW5_SPLIT[i][0] = pow5.and(mask64).longValue();
+                POW5_SPLIT[i][1] = pow5.shiftRight(64).longValue();
+            }
+            if (i < POW5_INV_TABLE_SIZE) {
+                // floor(2^(pow5len - 1 + POW5_INV_BITCOUNT) / 5^i) + 1
+                BigInteger inv = BigInteger.ONE.shiftLeft(pow5len - 1 + POW5_INV_BITCOUNT).divide(pow)
+                        .add(BigInteger.ONE);
+                POW5_INV_SPLIT[i][0] = inv.and(mask64).longValue();
+                POW5_INV_SPLIT[i][1] = inv.shiftRight(64).longValue();
+            }
+        }
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Write the decimal representation of an int value into the buffer, as Integer.toString would do
+     *
+     * @param buffer Byte array where to write, with at least MAX_INT_LENGTH free bytes from position
+     * @param position Index of the first byte to write
+     * @return Index right after the last byte written
+     */
+    public static int appendInt(byte [] buffer, int position, int value) {
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        int length = decimalLength(v);
+        int end = position + length;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte)('0' + (int)(v % 10));
+            v /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Write the shortest decimal representation of a double value that rounds back to the same value into
+     * the buffer, with the layout of Double.toString
+     *
+     * @param buffer Byte array where to write, with at least MAX_DOUBLE_LENGTH free bytes from position
+     * @param position Index of the first byte to write
+     * @return Index right after the last byte written
+     */
+    public static int appendDouble(byte [] buffer, int position, double value) {
+        // Special cases
+        if (Double.isNaN(value)) return appendBytes(buffer, position, NAN);
+        long bits = Double.doubleToRawLongBits(value);
+        boolean sign = bits < 0;
+        long ieeeMantissa = bits & MANTISSA_MASK;
+        int ieeeExponent = (int)((bits >>> MANTISSA_BITS) & EXPONENT_MASK);
+        if (sign) buffer[position++] = '-';
+        if (ieeeExponent == EXPONENT_MASK) return appendBytes(buffer, position, INFINITY);
+        if (ieeeExponent == 0 && ieeeMantissa == 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+            return position;
+        }
+
+        // Decode into m2 * 2^e2, subtracting 2 more from the exponent so as to have room for the interval bounds
+        int e2;
+        long m2;
+        if (ieeeExponent == 0) {
+            e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa;
+        } else {
+            e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+            m2 = ieeeMantissa | (1L << MANTISSA_BITS);
+        }
+        boolean even = (m2 & 1) == 0;
+        boolean acceptBounds = even;
+
+        // Determine the interval of valid decimal representations, [mm, mp] around mv, all multiplied by 4
+        long mv = 4 * m2;
+        int mmShift = (ieeeMantissa != 0 || ieeeExponent <= 1) ? 1 : 0;
+
+        // Convert to a decimal power base, obtaining vr, vp and vm (the scaled value and bounds)
+        long vr, vp, vm;
+        int e10;
+        boolean vmIsTrailingZeros = false;
+        boolean vrIsTrailingZeros = false;
+        if (e2 >= 0) {
+            int q = log10Pow2(e2) - ((e2 > 3) ? 1 : 0);
+            e10 = q;
+            int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+            int i = -e2 + q + k;
+            vr = mulShift(4 * m2, POW5_INV_SPLIT[q], i);
+            vp = mulShift(4 * m2 + 2, POW5_INV_SPLIT[q], i);
+            vm = mulShift(4 * m2 - 1 - mmShift, POW5_INV_SPLIT[q], i);
+            if (q <= 21) {
+                // Only one of mp, mv and mm can be a multiple of 5, if any
+                if (mv % 5 == 0) {
+                    vrIsTrailingZeros = multipleOfPowerOf5(mv, q);
+                } else if (acceptBounds) {
+                    vmIsTrailingZeros = multipleOfPowerOf5(mv - 1 - mmShift, q);
+                } else if (multipleOfPowerOf5(mv + 2, q)) {
+                    vp--;
+                }
+            }
+        } else {
+            int q = log10Pow5(-e2) - ((-e2 > 1) ? 1 : 0);
+            e10 = q + e2;
+            int i = -e2 - q;
+            int k = pow5bits(i) - POW5_BITCOUNT;
+            int j = q - k;
+            vr = mulShift(4 * m2, POW5_SPLIT[i], j);
+            vp = mulShift(4 * m2 + 2, POW5_SPLIT[i], j);
+            vm = mulShift(4 * m2 - 1 - mmShift, POW5_SPLIT[i], j);
+            if (q <= 1) {
+                // {vr, vp, vm} is trailing zeros if {mv, mp, mm} has at least q trailing 0 bits
+                vrIsTrailingZeros = true;
+                if (acceptBounds) {
+                    vmIsTrailingZeros = mmShift == 1;
+                } else {
+                    vp--;
+                }
+            } else if (q < 63) {
+                vrIsTrailingZeros = (mv & ((1L << (q - 1)) - 1)) == 0;
+            }
+        }
+
+        // Find the shortest representation in the interval of valid representations
+        int removed = 0;
+        int lastRemovedDigit = 0;
+        long output;
+        if (vmIsTrailingZeros || vrIsTrailingZeros) {
+            // General case, which happens rarely
+            while (vp / 10 > vm / 10) {
+                vmIsTrailingZeros &= vm % 10 == 0;
+                vrIsTrailingZeros &= lastRemovedDigit == 0;
+                lastRemovedDigit = (int)(vr % 10);
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            if (vmIsTrailingZeros) {
+                while (vm % 10 == 0) {
+                    vrIsTrailingZeros &= lastRemovedDigit == 0;
+                    lastRemovedDigit = (int)(vr % 10);
+                    vr /= 10;
+                    vp /= 10;
+                    vm /= 10;
+                    removed++;
+                }
+            }
+            if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+                // Round even if the exact value is .....50..0
+                lastRemovedDigit = 4;
+            }
+            output = vr + (((vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5) ? 1 : 0);
+        } else {
+            // Common case
+            boolean roundUp = false;
+            while (vp / 10 > vm / 10) {
+                roundUp = vr % 10 >= 5;
+                vr /= 10;
+                vp /= 10;
+                vm /= 10;
+                removed++;
+            }
+            output = vr + ((vr == vm || roundUp) ? 1 : 0);
+        }
+        int exponent = e10 + removed;
+
+        // Lay out the digits as Double.toString does
+        int length = decimalLength(output);
+        int scientificExponent = exponent + length - 1;
+        if (scientificExponent >= -3 && scientificExponent < 7) {
+            if (scientificExponent < 0) {
+                // 0.000ddd
+                buffer[position++] = '0';
+                buffer[position++] = '.';
+                for (int i = -1; i > scientificExponent; i--) buffer[position++] = '0';
+                position = appendDigits(buffer, position, output, length);
+            } else if (exponent >= 0) {
+                // ddd000.0
+                position = appendDigits(buffer, position, output, length);
+                for (int i = 0; i < exponent; i++) buffer[position++] = '0';
+                buffer[position++] = '.';
+                buffer[position++] = '0';
+            } else {
+                // ddd.ddd
+                int integerLength = scientificExponent + 1;
+                appendDigits(buffer, position + 1, output, length);
+                for (int i = 0; i < integerLength; i++) buffer[position + i] = buffer[position + i + 1];
+                buffer[position + integerLength] = '.';
+                position += length + 1;
+            }
+        } else {
+            // d.dddE-n
+            appendDigits(buffer, position + 1, output, length);
+            buffer[position] = buffer[position + 1];
+            buffer[position + 1] = '.';
+            if (length == 1) {
+                buffer[position + 2] = '0';
+                position += 3;
+            } else {
+                position += length + 1;
+            }
+            buffer[position++] = 'E';
+            position = appendInt(buffer, position, scientificExponent);
+        }
+        return position;
+    }
+
+    private static int appendBytes(byte [] buffer, int position, byte [] bytes) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static int appendDigits(byte [] buffer, int position, long digits, int length) {
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte)('0' + (int)(digits % 10));
+            digits /= 10;
+        }
+        return position + length;
+    }
+
+    private static int decimalLength(long v) {
+        int length = 1;
+        while (v >= 10) {
+            v /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Compute (m * mul) >> j, where mul is a 128-bit number given as {low, high} 64-bit words, and j > 64
+     */
+    private static long mulShift(long m, long [] mul, int j) {
+        long high1 = unsignedMultiplyHigh(m, mul[1]);
+        long low1 = m * mul[1];
+        long high0 = unsignedMultiplyHigh(m, mul[0]);
+        long sum = low1 + high0;
+        if (Long.compareUnsigned(sum, low1) < 0) high1++;
+        int distance = j - 64;
+        if (distance == 0) return sum;
+        return (high1 << (64 - distance)) | (sum >>> distance);
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p00 = x0 * y0;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long p11 = x1 * y1;
+        long middle = (p00 >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+        return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+
+    private static int pow5bits(int e) { return ((e * 1217359) >>> 19) + 1; }
+
+    private static int log10Pow2(int e) { return (e * 78913) >>> 18; }
+
+    private static int log10Pow5(int e) { return (e * 732923) >>> 20; }
+
+    private static boolean multipleOfPowerOf5(long value, int q) {
+        int count = 0;
+        while (value > 0 && value % 5 == 0) {
+            value /= 5;
+            count++;
+        }
+        return count >= q;
+    }
+}
@@ -0,0 +1,129 @@
+package utilities;
+
+/**************************************************************************************************
+ * Set of independent online estimators of a given quantile, by the P-square algorithm of Jain and
+ * Chlamtac (1985), which keeps only five markers per estimator instead of all observations. The
+ * markers of all estimators are kept in flat arrays, so that many of them (e.g., one per column and
+ * time step of the model output) can be held at a small and fixed memory cost. Up to five
+ * observations, quantiles are computed exactly, by linear interpolation between order statistics,
+ * as are the minimum and maximum (p equal to 0 or 1) for any number of observations.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class P2QuantileSketches {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private double      p; // Probability of the quantile to be estimated
+    private double []   increments; // Increments of the desired positions of the five markers per observation
+    private double []   heights; // Heights of the five markers of each estimator, sorted observations if up to five
+    private int []      positions; // Positions of the five markers of each estimator (1-based)
+    private int []      counts; // Number of observations of each estimator
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param nSketches Number of independent estimators
+     * @param p Probability of the quantile to be estimated, between 0 and 1
+     */
+    public P2QuantileSketches(int nSketches, double p) {
+        if (p < 0.0 || p > 1.0) throw new IllegalArgumentException("Quantile probability " + p + " not in [0, 1]");
+        this.p = p;
+        increments = new double[] {0.0, p/2.0, p, (1.0 + p)/2.0, 1.0};
+        heights = new double[5*nSketches];
+        positions = new int[5*nSketches];
+        counts = new int[nSketches];
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Add an observation to the given estimator
+     */
+    public void add(int sketch, double x) {
+        int o = 5*sketch;
+        int n = counts[sketch];
+        // Up to five observations, simply keep them sorted
+        if (n < 5) {
+            int i = n;
+            while (i > 0 && heights[o + i - 1] > x) {
+                heights[o + i] = heights[o + i - 1];
+                i--;
+            }
+            heights[o + i] = x;
+            positions[o + n] = n + 1;
+            counts[sketch]++;
+            return;
+        }
+        // Find the cell k containing the observation, adjusting the extreme markers if needed...
+        int k;
+        if (x < heights[o]) {
+            heights[o] = x;
+            k = 0;
+        } else if (x >= heights[o + 4]) {
+            heights[o + 4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= heights[o + k + 1]) k++;
+        }
+        // ...increase the positions of the markers above it...
+        for (int i = k + 1; i < 5; i++) positions[o + i]++;
+        n = ++counts[sketch];
+        // ...and move the middle markers towards their desired positions, if they are off by one or more
+        for (int i = 1; i < 4; i++) {
+            double delta = 1.0 + (n - 1)*increments[i] - positions[o + i];
+            if ((delta >= 1.0 && positions[o + i + 1] - positions[o + i] > 1)
+                    || (delta <= -1.0 && positions[o + i - 1] - positions[o + i] < -1)) {
+                int s = (delta > 0.0) ? 1 : -1;
+                double height = parabolic(o + i, s);
+                if (heights[o + i - 1] < height && height < heights[o + i + 1]) {
+                    heights[o + i] = height;
+                } else {
+                    heights[o + i] += s*(heights[o + i + s] - heights[o + i])/(positions[o + i + s] - positions[o + i]);
+                }
+                positions[o + i] += s;
+            }
+        }
+    }
+
+    /**
+     * Piecewise-parabolic prediction of the height of marker j when moved by s positions
+     */
+    private double parabolic(int j, int s) {
+        double nLow = positions[j] - positions[j - 1];
+        double nHigh = positions[j + 1] - positions[j];
+        return heights[j] + s/(nLow + nHigh)*((nLow + s)*(heights[j + 1] - heights[j])/nHigh
+                + (nHigh - s)*(heights[j] - heights[j - 1])/nLow);
+    }
+
+    /**
+     * @return Estimate of the quantile from the observations of the given estimator, NaN if there are none
+     */
+    public double getQuantile(int sketch) {
+        int o = 5*sketch;
+        int n = counts[sketch];
+        if (n == 0) {
+            return Double.NaN;
+        } else if (n <= 5) {
+            double position = p*(n - 1);
+            int i = (int)position;
+            if (i == n - 1) return heights[o + i];
+            return heights[o + i] + (position - i)*(heights[o + i + 1] - heights[o + i]);
+        } else if (p == 0.0 || p == 1.0) {
+            // The extreme markers hold the exact minimum and maximum, which the middle marker cannot reach
+            return heights[o + 4*(int)p];
+        } else {
+            return heights[o + 2];
+        }
+    }
+
+    public double getP() { return p; }
+}
@@ -0,0 +1,82 @@
+package utilities;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**************************************************************************************************
+ * PCG32 generator by O'Neill (2014), with a 64-bit linear congruential state and a permuted 32-bit
+ * output (XSH RR). New generators are split off in constant time by choosing, with random numbers
+ * from this generator, both the initial state and the stream (the increment of the congruence).
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class Pcg32Prng extends BitsStreamGenerator implements Prng {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long   serialVersionUID = 1L;
+    private static final long   MULTIPLIER = 6364136223846793005L;
+    private static final long   DEFAULT_STREAM = 0xda3e39cb94b95bdbL; // Stream used when seeding with a single seed
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long                state;
+    private long                increment; // Always odd
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public Pcg32Prng(long seed) { setSeed(seed); }
+
+    /**
+     * Create a generator seeded as the reference implementation does for the given initial state and stream
+     */
+    Pcg32Prng(long seed, long stream) { seed(seed, stream); }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void setSeed(long seed) { seed(seed, DEFAULT_STREAM); }
+
+    @Override
+    public void setSeed(int seed) { setSeed((long)seed); }
+
+    @Override
+    public void setSeed(int [] seed) { setSeed(SplittableRandomPrng.foldSeed(seed)); }
+
+    /**
+     * Seeding procedure of the reference implementation (pcg32_srandom_r)
+     */
+    private void seed(long initState, long stream) {
+        state = 0;
+        increment = (stream << 1) | 1L;
+        nextInt();
+        state += initState;
+        nextInt();
+        clear();
+    }
+
+    @Override
+    public int nextInt() {
+        long oldState = state;
+        state = oldState*MULTIPLIER + increment;
+        int xorShifted = (int)(((oldState >>> 18) ^ oldState) >>> 27);
+        return Integer.rotateRight(xorShifted, (int)(oldState >>> 59));
+    }
+
+    @Override
+    protected int next(int bits) { return nextInt() >>> (32 - bits); }
+
+    @Override
+    public long nextLong() { return ((long)nextInt() << 32) | (nextInt() & 0xffffffffL); }
+
+    @Override
+    public double nextDouble() { return (nextLong() >>> 11)*DOUBLE_UNIT; }
+
+    @Override
+    public Prng split() { return new Pcg32Prng(nextLong(), nextLong()); }
+}
@@ -28,6 +28,7 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	private TreeSet<E>       	xySortedElements; // X-sorted set of elements with reverse Y-sorting for equal X
 	private TreeSet<E>          uncoveredElements; // X-sorted set of uncovered elements
 	private XYComparator<E>     comparator;
+	private XYComparatorClass   xyComparator; // Comparator used by xySortedElements
 
 	//------------------------//
 	//----- Constructors -----//
@@ -35,7 +36,8 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 
 	public PriorityQueue2D(XYComparator<E> comparator) {
 		this.comparator = comparator;
-		xySortedElements = new TreeSet<>(new XYComparatorClass());
+		xyComparator = new XYComparatorClass();
+		xySortedElements = new TreeSet<>(xyComparator);
 		uncoveredElements = new TreeSet<>(new XComparatorClass());
 	}
 
@@ -160,10 +162,12 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 	 * Removes element both from the xySortedElements and the uncoveredElements TreeSets
 	 *
 	 * @param element Element to remove
+	 * @return True if the element was found and removed, false otherwise
 	 */
-	public void remove(E element) {
-		xySortedElements.remove(element);
+	public boolean remove(E element) {
+		if (!xySortedElements.remove(element)) return false;
 		removeFromUncovered(element);
+		return true;
 	}
 
 	/**
@@ -217,6 +221,19 @@ public class PriorityQueue2D<E> implements Iterable<E> {
 		}
 	}
 
+	/**
+	 * Replace all elements with the first n elements of the given array, which must be already sorted according to the
+	 * XY comparator, bulk-loading them in linear time, and sort priorities
+	 *
+	 * @param sortedElements Array of elements in ascending XY order
+	 * @param n Number of elements to take from the array
+	 */
+	public void rebuild(E [] sortedElements, int n) {
+		clear();
+		SortedArrays.addAllSorted(xySortedElements, sortedElements, n);
+		sortPriorities();
+	}
+
 	public int size() { return xySortedElements.size(); }
 
 	public void clear() {
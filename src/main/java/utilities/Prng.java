@@ -0,0 +1,21 @@
+package utilities;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**************************************************************************************************
+ * Interface for the pseudo-random number generators used by the model, which, apart from the usual
+ * methods of a RandomGenerator, must be able to split off a new generator, to be used as a separate
+ * stream of random numbers. Implementations are available for a Mersenne Twister (the default, for
+ * backward-compatible results), xoroshiro128++, a SplittableRandom-based generator and PCG32.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public interface Prng extends RandomGenerator {
+
+    /**
+     * Create a new generator whose stream of random numbers is, for practical purposes, independent from that of this
+     * generator, advancing the state of this generator as needed
+     */
+    Prng split();
+}
@@ -0,0 +1,92 @@
+package utilities;
+
+/**************************************************************************************************
+ * Generator delegating to a source generator which can be replaced at any time, so that objects
+ * holding a reference to it can be given a fresh stream of random numbers for each simulation
+ * replica. Optionally, the stream can be made antithetic to that of the source generator, with each
+ * uniform variate u replaced by 1 - u (and, correspondingly, integers mirrored within their range,
+ * bits flipped and Gaussian variates negated), such that a replica run with the antithetic stream
+ * is negatively correlated with the run using the same source generator as is.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class ReplicaPrng implements Prng {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final double ONE_MINUS_ULP = 1.0 - 1.0/(1L << 53); // Largest double below 1.0
+    private static final float  ONE_MINUS_ULP_F = 1.0f - 1.0f/(1 << 24); // Largest float below 1.0f
+
+    private Prng                source;
+    private boolean             antithetic;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    /**
+     * @param source Generator to delegate to
+     * @param antithetic True to return antithetic variates of those of the source generator
+     */
+    public ReplicaPrng(Prng source, boolean antithetic) { reset(source, antithetic); }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Replace the generator to delegate to
+     *
+     * @param source Generator to delegate to
+     * @param antithetic True to return antithetic variates of those of the source generator
+     */
+    public void reset(Prng source, boolean antithetic) {
+        this.source = source;
+        this.antithetic = antithetic;
+    }
+
+    @Override
+    public Prng split() { return new ReplicaPrng(source.split(), antithetic); }
+
+    @Override
+    public void setSeed(int seed) { source.setSeed(seed); }
+
+    @Override
+    public void setSeed(int[] seed) { source.setSeed(seed); }
+
+    @Override
+    public void setSeed(long seed) { source.setSeed(seed); }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        source.nextBytes(bytes);
+        if (antithetic) for (int i = 0; i < bytes.length; i++) bytes[i] = (byte)~bytes[i];
+    }
+
+    @Override
+    public int nextInt() { return antithetic ? ~source.nextInt() : source.nextInt(); }
+
+    @Override
+    public int nextInt(int n) { return antithetic ? n - 1 - source.nextInt(n) : source.nextInt(n); }
+
+    @Override
+    public long nextLong() { return antithetic ? ~source.nextLong() : source.nextLong(); }
+
+    @Override
+    public boolean nextBoolean() { return antithetic != source.nextBoolean(); }
+
+    /**
+     * Note that antithetic variates are mirrored around the middle of [0, 1) so as to remain within that interval
+     */
+    @Override
+    public float nextFloat() { return antithetic ? ONE_MINUS_ULP_F - source.nextFloat() : source.nextFloat(); }
+
+    @Override
+    public double nextDouble() { return antithetic ? ONE_MINUS_ULP - source.nextDouble() : source.nextDouble(); }
+
+    @Override
+    public double nextGaussian() { return antithetic ? -source.nextGaussian() : source.nextGaussian(); }
+}
@@ -0,0 +1,100 @@
+package utilities;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**************************************************************************************************
+ * Helper to bulk-load an empty TreeSet in linear time, through TreeSet.addAll, with the first n
+ * elements of an array already sorted according to the set's own comparator, instead of inserting
+ * elements one by one. To this end, the array is wrapped in a minimal SortedSet view, which is kept
+ * private to this class as it supports nothing beyond what TreeSet.addAll needs. Neither sorting
+ * nor uniqueness of the elements is checked.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public final class SortedArrays {
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    private SortedArrays() {}
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Add the first n elements of the given array, already sorted according to the comparator of the given set, to
+     * that set. If the set is empty, this is done in linear time, otherwise elements are added one by one
+     *
+     * @param set Set to which to add the elements
+     * @param sortedElements Array of elements in ascending order according to the comparator of the set
+     * @param n Number of elements to take from the array
+     */
+    public static <E> void addAllSorted(TreeSet<E> set, E [] sortedElements, int n) {
+        set.addAll(new View<>(sortedElements, n, set.comparator()));
+    }
+
+    /**
+     * Read-only SortedSet view of the first n elements of a sorted array, with the same comparator as the set to be
+     * loaded, which is what makes TreeSet.addAll take its linear-time path
+     */
+    private static class View<E> extends AbstractSet<E> implements SortedSet<E> {
+        private E []                    elements;
+        private int                     size;
+        private Comparator<? super E>   comparator;
+
+        View(E [] elements, int size, Comparator<? super E> comparator) {
+            this.elements = elements;
+            this.size = size;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int i = 0;
+                @Override
+                public boolean hasNext() { return i < size; }
+                @Override
+                public E next() {
+                    if (i >= size) throw new NoSuchElementException();
+                    return elements[i++];
+                }
+            };
+        }
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public Comparator<? super E> comparator() { return comparator; }
+
+        @Override
+        public E first() {
+            if (size == 0) throw new NoSuchElementException();
+            return elements[0];
+        }
+
+        @Override
+        public E last() {
+            if (size == 0) throw new NoSuchElementException();
+            return elements[size - 1];
+        }
+
+        @Override
+        public SortedSet<E> subSet(E fromElement, E toElement) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public SortedSet<E> headSet(E toElement) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public SortedSet<E> tailSet(E fromElement) { throw new UnsupportedOperationException(); }
+    }
+}
@@ -0,0 +1,92 @@
+package utilities;
+
+import java.util.SplittableRandom;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**************************************************************************************************
+ * Generator backed by java.util.SplittableRandom (a SplitMix64 generator with per-instance gamma
+ * values), whose streams can be split in constant time.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class SplittableRandomPrng extends BitsStreamGenerator implements Prng {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long   serialVersionUID = 1L;
+
+    private SplittableRandom    random;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public SplittableRandomPrng(long seed) { setSeed(seed); }
+
+    private SplittableRandomPrng(SplittableRandom random) { this.random = random; }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    @Override
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+        clear();
+    }
+
+    @Override
+    public void setSeed(int seed) { setSeed((long)seed); }
+
+    @Override
+    public void setSeed(int [] seed) { setSeed(foldSeed(seed)); }
+
+    @Override
+    protected int next(int bits) { return random.nextInt() >>> (32 - bits); }
+
+    @Override
+    public int nextInt() { return random.nextInt(); }
+
+    @Override
+    public int nextInt(int n) {
+        if (n <= 0) throw new IllegalArgumentException("Bound must be positive, found " + n);
+        return random.nextInt(n);
+    }
+
+    @Override
+    public long nextLong() { return random.nextLong(); }
+
+    @Override
+    public double nextDouble() { return random.nextDouble(); }
+
+    @Override
+    public boolean nextBoolean() { return random.nextBoolean(); }
+
+    @Override
+    public Prng split() { return new SplittableRandomPrng(random.split()); }
+
+    //----- Seeding helpers, shared with other 64-bit generators -----//
+
+    /**
+     * SplitMix64 output function (variant 13 of Stafford's mixers), used to turn a sequence of seeds into well mixed
+     * states
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30))*0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27))*0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Fold an array of int seeds into a single long seed
+     */
+    static long foldSeed(int [] seed) {
+        long z = 0;
+        for (int s : seed) z = mix64(z + 0x9e3779b97f4a7c15L + (s & 0xffffffffL));
+        return z;
+    }
+}
@@ -0,0 +1,112 @@
+package utilities;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+
+/**************************************************************************************************
+ * xoroshiro128++ generator by Blackman and Vigna (2019), with a 128-bit state and a period of
+ * 2^128 - 1. New generators are split off in constant time by jumping this generator 2^64 steps
+ * ahead, such that successive splits give non-overlapping streams of 2^64 random numbers each.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class Xoroshiro128PlusPlusPrng extends BitsStreamGenerator implements Prng {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long   serialVersionUID = 1L;
+    private static final long[] JUMP = {0x2bd7a6a6e99c2ddcL, 0x0992ccaf6a6fca05L}; // Polynomial for a 2^64 steps jump
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long                s0;
+    private long                s1;
+
+    //------------------------//
+    //----- Constructors -----//
+    //------------------------//
+
+    public Xoroshiro128PlusPlusPrng(long seed) { setSeed(seed); }
+
+    /**
+     * Create a generator with the given state, which must not be all zeros
+     */
+    Xoroshiro128PlusPlusPrng(long s0, long s1) {
+        this.s0 = s0;
+        this.s1 = s1;
+    }
+
+    //-------------------//
+    //----- Methods -----//
+    //-------------------//
+
+    /**
+     * Fill in the state with the output of a SplitMix64 generator seeded with the given seed, as recommended by the
+     * authors, which guarantees a state different from all zeros
+     */
+    @Override
+    public void setSeed(long seed) {
+        long x = seed;
+        x += 0x9e3779b97f4a7c15L;
+        s0 = SplittableRandomPrng.mix64(x);
+        x += 0x9e3779b97f4a7c15L;
+        s1 = SplittableRandomPrng.mix64(x);
+        clear();
+    }
+
+    @Override
+    public void setSeed(int seed) { setSeed((long)seed); }
+
+    @Override
+    public void setSeed(int [] seed) { setSeed(SplittableRandomPrng.foldSeed(seed)); }
+
+    @Override
+    public long nextLong() {
+        long a = s0;
+        long b = s1;
+        long result = Long.rotateLeft(a + b, 17) + a;
+        b ^= a;
+        s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+        s1 = Long.rotateLeft(b, 28);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) { return (int)(nextLong() >>> (64 - bits)); }
+
+    @Override
+    public int nextInt() { return (int)(nextLong() >>> 32); }
+
+    @Override
+    public double nextDouble() { return (nextLong() >>> 11)*DOUBLE_UNIT; }
+
+    @Override
+    public boolean nextBoolean() { return nextLong() < 0; }
+
+    /**
+     * Split off a generator continuing the current stream, while this generator jumps 2^64 steps ahead
+     */
+    @Override
+    public Prng split() {
+        Prng child = new Xoroshiro128PlusPlusPrng(s0, s1);
+        jump();
+        return child;
+    }
+
+    private void jump() {
+        long newS0 = 0;
+        long newS1 = 0;
+        for (long jump : JUMP) {
+            for (int b = 0; b < 64; b++) {
+                if ((jump & (1L << b)) != 0) {
+                    newS0 ^= s0;
+                    newS1 ^= s1;
+                }
+                nextLong();
+            }
+        }
+        s0 = newS0;
+        s1 = newS1;
+    }
+}
@@ -0,0 +1,136 @@
+package collectors;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**************************************************************************************************
+ * Tests of EnsembleStats: the number of runs, means, standard deviations and quantiles written for
+ * each time step must match exact values computed from all the values added, both for a few runs,
+ * where quantiles are exact, and for many runs, where they are P-square estimates. Time steps not
+ * recorded by any run must be skipped, and failures to write the file must be thrown.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class EnsembleStatsTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final String []  COLUMNS = {"Model time", "A", "B"};
+    private static final double []  QUANTILES = {0.1, 0.5, 0.9};
+    private static final int        N_STATS = 2 + QUANTILES.length; // Mean, standard deviation and quantiles
+
+    @Rule
+    public TemporaryFolder          folder = new TemporaryFolder();
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void fewAndManyRuns() throws IOException {
+        EnsembleStats stats = new EnsembleStats(COLUMNS, "0.1, 0.5,0.9");
+        RandomGenerator rng = new MersenneTwister(1);
+        // Time 0 recorded by a single run, time 1 by three, time 2 by five, time 3 by none and time 4 by many
+        int [] nRuns = {1, 3, 5, 0, 10000};
+        double [][][] values = new double[nRuns.length][][];
+        for (int time = 0; time < nRuns.length; time++) {
+            values[time] = new double[nRuns[time]][COLUMNS.length];
+            for (int run = 0; run < nRuns[time]; run++) {
+                values[time][run][0] = time;
+                values[time][run][1] = 1000.0 + 10.0*rng.nextGaussian();
+                values[time][run][2] = Math.exp(rng.nextGaussian());
+            }
+        }
+        // Add rows as the Recorder does, run after run
+        for (int run = 0; run < nRuns[nRuns.length - 1]; run++) {
+            for (int time = 0; time < nRuns.length; time++) {
+                if (run < nRuns[time]) stats.add(time, values[time][run].clone());
+            }
+        }
+        File file = folder.newFile("Output-ensemble.csv");
+        stats.write(file.getPath());
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals("Model time, nRuns, A Mean, A StdDev, A Q0.1, A Q0.5, A Q0.9, B Mean, B StdDev, B Q0.1, B Q0.5, "
+                + "B Q0.9", lines.get(0));
+        assertEquals("One header and one row per recorded time step", 5, lines.size());
+        int line = 1;
+        for (int time = 0; time < nRuns.length; time++) {
+            if (nRuns[time] == 0) continue;
+            String [] fields = lines.get(line++).split(", ");
+            assertEquals(time, Integer.parseInt(fields[0]));
+            assertEquals(nRuns[time], Integer.parseInt(fields[1]));
+            for (int c = 1; c < COLUMNS.length; c++) {
+                double [] column = new double[nRuns[time]];
+                for (int run = 0; run < nRuns[time]; run++) column[run] = values[time][run][c];
+                int o = 2 + (c - 1)*N_STATS;
+                String message = COLUMNS[c] + " at time " + time;
+                double mean = exactMean(column);
+                assertEquals(message + " mean", mean, Double.parseDouble(fields[o]), 1e-12*Math.abs(mean));
+                double sd = exactStdDev(column);
+                assertEquals(message + " standard deviation", sd, Double.parseDouble(fields[o + 1]), 1e-9*sd);
+                for (int q = 0; q < QUANTILES.length; q++) {
+                    double quantile = exactQuantile(column, QUANTILES[q]);
+                    // Exact up to five runs, P-square estimates within 2% beyond
+                    double tolerance = (nRuns[time] <= 5) ? 1e-12*Math.abs(quantile) : 0.02*Math.abs(quantile);
+                    assertEquals(message + " quantile " + QUANTILES[q], quantile,
+                            Double.parseDouble(fields[o + 2 + q]), tolerance);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void writeFailureIsThrown() throws IOException {
+        EnsembleStats stats = new EnsembleStats(COLUMNS, "");
+        stats.add(0, new double[] {0.0, 1.0, 2.0});
+        stats.write(new File(folder.getRoot(), "missing/Output-ensemble.csv").getPath());
+    }
+
+    //-------------------//
+    //----- Helpers -----//
+    //-------------------//
+
+    private static double exactMean(double [] values) {
+        double sum = 0.0;
+        for (double x : values) sum += x;
+        return sum/values.length;
+    }
+
+    /**
+     * Sample standard deviation, by the two-pass algorithm, 0.0 for a single value as written by EnsembleStats
+     */
+    private static double exactStdDev(double [] values) {
+        if (values.length < 2) return 0.0;
+        double mean = exactMean(values);
+        double sum2 = 0.0;
+        for (double x : values) sum2 += (x - mean)*(x - mean);
+        return Math.sqrt(sum2/(values.length - 1));
+    }
+
+    /**
+     * Exact quantile of a sample, by linear interpolation between its order statistics
+     */
+    private static double exactQuantile(double [] values, double p) {
+        double [] sorted = values.clone();
+        Arrays.sort(sorted);
+        double position = p*(sorted.length - 1);
+        int i = (int)Math.floor(position);
+        if (i == sorted.length - 1) return sorted[i];
+        return sorted[i] + (position - i)*(sorted[i + 1] - sorted[i]);
+    }
+}
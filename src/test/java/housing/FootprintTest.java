@@ -0,0 +1,78 @@
+package housing;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**************************************************************************************************
+ * Tests of the memory footprint of the most numerous objects of the model, measured with JOL: the
+ * bytes retained by each newly born household, by each house (its view object plus its share of
+ * the columns of the HouseRegistry) and by each mortgage. Budgets assume a 64-bit JVM with
+ * compressed references and 8-byte object alignment, the default for heaps below 32GB, and are
+ * skipped otherwise. They fail if a change adds fields to these objects unnoticed.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class FootprintTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final long   HOUSEHOLD_BUDGET = 160; // Household object and its empty map of house payments
+    private static final long   HOUSE_BUDGET = 40; // House view and its entries in the registry columns
+    private static final long   MORTGAGE_BUDGET = 64;
+    private static final int    N_HOUSES = 1024;
+
+    //-----------------//
+    //----- Setup -----//
+    //-----------------//
+
+    @BeforeClass
+    public static void createModel() {
+        assumeTrue("Budgets assume compressed references", VM.current().sizeOfField("java.lang.Object") == 4);
+        assumeTrue("Budgets assume 8-byte object alignment", VM.current().objectAlignment() == 8);
+        new Model("src/main/resources/config.properties", "target/");
+        Model.houseRegistry.init();
+    }
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void householdFootprint() {
+        long bytes = GraphLayout.parseInstance(new Household()).totalSize();
+        assertTrue("Household retains " + bytes + " bytes, over a budget of " + HOUSEHOLD_BUDGET,
+                bytes <= HOUSEHOLD_BUDGET);
+    }
+
+    @Test
+    public void houseFootprint() {
+        HouseRegistry registry = new HouseRegistry(N_HOUSES);
+        HouseRegistry modelRegistry = Model.houseRegistry;
+        Model.houseRegistry = registry;
+        try {
+            House house = null;
+            for (int i = 0; i < N_HOUSES; i++) house = new House(i%10);
+            double bytes = ClassLayout.parseInstance(house).instanceSize()
+                    + (double)GraphLayout.parseInstance(registry).totalSize()/N_HOUSES;
+            assertTrue("House takes " + bytes + " bytes, over a budget of " + HOUSE_BUDGET, bytes <= HOUSE_BUDGET);
+        } finally {
+            Model.houseRegistry = modelRegistry;
+        }
+    }
+
+    @Test
+    public void mortgageFootprint() {
+        long bytes = GraphLayout.parseInstance(new MortgageAgreement(new Household(), false)).totalSize();
+        assertTrue("Mortgage retains " + bytes + " bytes, over a budget of " + MORTGAGE_BUDGET,
+                bytes <= MORTGAGE_BUDGET);
+    }
+}
@@ -0,0 +1,102 @@
+package housing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import utilities.Prng;
+import utilities.Xoroshiro128PlusPlusPrng;
+
+/**************************************************************************************************
+ * Tests of the thinning used by SellDecisionScheduler: geometric candidate months drawn with a
+ * bound pBound, each accepted with probability pSell/pBound, must give the same month of sale as a
+ * monthly draw with probability pSell, both for a constant pSell and for one changing every month.
+ * All generators are seeded, so results are reproducible.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class SellDecisionSchedulerTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        N_DRAWS = 1000000;
+    private static final int        N_MONTHS = 12; // Number of months at which the hazard is checked
+    private static final double []  P_SELL = {0.005, 0.01, 0.05, 0.2};
+    private static final double []  TOLERANCE = {0.0, 0.05, 1.0}; // Relative margin of pBound over pSell
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void constantHazard() {
+        for (double pSell : P_SELL) {
+            for (double tolerance : TOLERANCE) {
+                double [] pSellByMonth = new double[N_MONTHS];
+                Arrays.fill(pSellByMonth, pSell);
+                checkHazard(pSellByMonth, pSell*(1.0 + tolerance), new Xoroshiro128PlusPlusPrng(1L));
+            }
+        }
+    }
+
+    @Test
+    public void varyingHazard() {
+        // Monthly probabilities changing every month within the band below pBound, as between redraws of all waiting
+        // times by the scheduler
+        double [] pSellByMonth = new double[N_MONTHS];
+        for (int t = 0; t < N_MONTHS; t++) pSellByMonth[t] = 0.05*(1.0 + 0.05*Math.sin(t));
+        checkHazard(pSellByMonth, 0.05*1.05, new Xoroshiro128PlusPlusPrng(2L));
+    }
+
+    @Test
+    public void meanWaitingTime() {
+        // Over an unbounded horizon, the month of sale must be geometric with mean (1 - pSell)/pSell
+        for (double pSell : P_SELL) {
+            Prng prng = new Xoroshiro128PlusPlusPrng(3L);
+            double pBound = pSell*1.05;
+            double sum = 0.0;
+            for (int i = 0; i < N_DRAWS; i++) {
+                int t = SellDecisionScheduler.nextCandidateMonth(prng, 0, pBound);
+                while (!SellDecisionScheduler.isCandidateAccepted(prng, pSell, pBound)) {
+                    t = SellDecisionScheduler.nextCandidateMonth(prng, t + 1, pBound);
+                }
+                sum += t;
+            }
+            // Tolerance of five standard errors, the standard deviation of the waiting time being sqrt(1 - p)/p
+            assertEquals("pSell = " + pSell, (1.0 - pSell)/pSell, sum/N_DRAWS,
+                    5.0*Math.sqrt(1.0 - pSell)/pSell/Math.sqrt(N_DRAWS));
+        }
+    }
+
+    //-------------------//
+    //----- Helpers -----//
+    //-------------------//
+
+    /**
+     * Simulate the thinned sell decisions of many owner-occupiers from month 0, as done by SellDecisionScheduler, and
+     * check that, at each month, the fraction of those still waiting to sell who sell equals pSellByMonth at that month
+     */
+    private static void checkHazard(double [] pSellByMonth, double pBound, Prng prng) {
+        int [] nSales = new int[N_MONTHS];
+        for (int i = 0; i < N_DRAWS; i++) {
+            int t = SellDecisionScheduler.nextCandidateMonth(prng, 0, pBound);
+            while (t < N_MONTHS && !SellDecisionScheduler.isCandidateAccepted(prng, pSellByMonth[t], pBound)) {
+                t = SellDecisionScheduler.nextCandidateMonth(prng, t + 1, pBound);
+            }
+            if (t < N_MONTHS) nSales[t]++;
+        }
+        int nWaiting = N_DRAWS;
+        for (int t = 0; t < N_MONTHS; t++) {
+            double p = pSellByMonth[t];
+            // Tolerance of five standard errors of the fraction of sales among those still waiting
+            assertEquals("Month " + t + " with pSell = " + p + " and pBound = " + pBound, p,
+                    (double)nSales[t]/nWaiting, 5.0*Math.sqrt(p*(1.0 - p)/nWaiting));
+            nWaiting -= nSales[t];
+        }
+    }
+}
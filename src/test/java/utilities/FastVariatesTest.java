@@ -0,0 +1,138 @@
+package utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.math3.distribution.GeometricDistribution;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.stat.inference.KolmogorovSmirnovTest;
+import org.junit.Test;
+
+/**************************************************************************************************
+ * Tests of the FastVariates samplers: moments and goodness of fit of the ziggurat normal sampler,
+ * draw-for-draw equality of nextGeometricCompatible with the Apache Commons Math geometric
+ * distribution, mean of the inverse transform geometric sampler, and success rates of batched
+ * Bernoulli trials. All generators are seeded, so results are reproducible.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class FastVariatesTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        N_DRAWS = 1000000;
+    private static final double []  P_SUCCESS = {0.001, 0.05, 0.1, 0.3, 0.5, 0.9};
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void gaussianMoments() {
+        RandomGenerator rng = new MersenneTwister(1);
+        double sum = 0.0, sum2 = 0.0, sum3 = 0.0, sum4 = 0.0;
+        for (int i = 0; i < N_DRAWS; i++) {
+            double x = FastVariates.nextGaussian(rng);
+            sum += x;
+            sum2 += x*x;
+            sum3 += x*x*x;
+            sum4 += x*x*x*x;
+        }
+        // Tolerances of about five standard errors of each sample moment of N(0, 1)
+        assertEquals(0.0, sum/N_DRAWS, 5.0/Math.sqrt(N_DRAWS));
+        assertEquals(1.0, sum2/N_DRAWS, 5.0*Math.sqrt(2.0/N_DRAWS));
+        assertEquals(0.0, sum3/N_DRAWS, 5.0*Math.sqrt(15.0/N_DRAWS));
+        assertEquals(3.0, sum4/N_DRAWS, 5.0*Math.sqrt(96.0/N_DRAWS));
+    }
+
+    @Test
+    public void gaussianKolmogorovSmirnov() {
+        RandomGenerator rng = new MersenneTwister(2);
+        double [] draws = new double[100000];
+        for (int i = 0; i < draws.length; i++) draws[i] = FastVariates.nextGaussian(rng);
+        double d = new KolmogorovSmirnovTest().kolmogorovSmirnovStatistic(new NormalDistribution(0.0, 1.0), draws);
+        // Asymptotic critical value of sqrt(n)*D at a significance level of 0.001 (the exact p-value is too costly
+        // to compute for this many draws)
+        assertTrue("Kolmogorov-Smirnov statistic against N(0, 1) too large: " + d, Math.sqrt(draws.length)*d < 1.949);
+    }
+
+    @Test
+    public void gaussianTails() {
+        // Draws beyond the start of the tail of the ziggurat, R = 3.4426, should occur with probability 2*(1 - Phi(R))
+        RandomGenerator rng = new MersenneTwister(3);
+        double expected = 2.0*(1.0 - new NormalDistribution(0.0, 1.0).cumulativeProbability(3.442619855899));
+        int nTail = 0;
+        for (int i = 0; i < N_DRAWS; i++) if (Math.abs(FastVariates.nextGaussian(rng)) > 3.442619855899) nTail++;
+        assertEquals(expected, (double)nTail/N_DRAWS, 5.0*Math.sqrt(expected/N_DRAWS));
+    }
+
+    @Test
+    public void geometricCompatibleMatchesCommonsMath() {
+        for (double p : P_SUCCESS) {
+            RandomGenerator rng = new MersenneTwister(4);
+            GeometricDistribution distribution = new GeometricDistribution(new MersenneTwister(4), p);
+            for (int i = 0; i < 10000; i++) {
+                assertEquals("Draw " + i + " with p = " + p, distribution.sample(),
+                        FastVariates.nextGeometricCompatible(rng, p));
+            }
+        }
+    }
+
+    @Test
+    public void geometricMean() {
+        RandomGenerator rng = new MersenneTwister(5);
+        for (double p : P_SUCCESS) {
+            int n = 200000;
+            double sum = 0.0;
+            for (int i = 0; i < n; i++) sum += FastVariates.nextGeometric(rng, p);
+            double mean = (1.0 - p)/p;
+            double sd = Math.sqrt(1.0 - p)/p;
+            assertEquals("Mean with p = " + p, mean, sum/n, 5.0*sd/Math.sqrt(n));
+        }
+        assertEquals(0, FastVariates.nextGeometric(rng, 1.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void geometricRejectsZeroProbability() {
+        FastVariates.nextGeometric(new MersenneTwister(6), 0.0);
+    }
+
+    @Test
+    public void bernoulliRates() {
+        RandomGenerator rng = new MersenneTwister(7);
+        // Probabilities below and above SKIP_THRESHOLD, so as to cover both the skipping and the per-trial methods
+        int n = 500000;
+        boolean [] outcomes = new boolean[n];
+        for (double p : P_SUCCESS) {
+            int nSuccesses = FastVariates.nextBernoulli(rng, p, outcomes, n);
+            int nTrue = 0;
+            for (boolean outcome : outcomes) if (outcome) nTrue++;
+            assertEquals("Returned count with p = " + p, nTrue, nSuccesses);
+            assertEquals("Rate with p = " + p, p, (double)nSuccesses/n, 5.0*Math.sqrt(p*(1.0 - p)/n));
+        }
+        assertEquals(0, FastVariates.nextBernoulli(rng, 0.0, outcomes, n));
+        assertEquals(n, FastVariates.nextBernoulli(rng, 1.0, outcomes, n));
+    }
+
+    @Test
+    public void bernoulliRatesPerTrial() {
+        RandomGenerator rng = new MersenneTwister(8);
+        int n = 400000;
+        double [] pSuccess = new double[n];
+        boolean [] outcomes = new boolean[n];
+        double expected = 0.0;
+        for (int i = 0; i < n; i++) {
+            pSuccess[i] = (i%4)*0.25;
+            expected += pSuccess[i];
+        }
+        int nSuccesses = FastVariates.nextBernoulli(rng, pSuccess, outcomes, n);
+        assertEquals(expected/n, (double)nSuccesses/n, 5.0*Math.sqrt(0.25/n));
+        // Trials with a zero probability of success must never succeed
+        for (int i = 0; i < n; i += 4) assertTrue(!outcomes[i]);
+    }
+}
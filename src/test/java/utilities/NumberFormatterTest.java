@@ -0,0 +1,155 @@
+package utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**************************************************************************************************
+ * Tests of NumberFormatter: ints must match Integer.toString, and doubles must read back exactly as
+ * the same bits and, compared with Double.toString, be either identical, shorter or, with as many
+ * digits, closer to the exact binary value, since Double.toString does not always find the shortest
+ * nor the closest representation. Cases cover random bit patterns, random values of moderate
+ * magnitude, subnormals, powers of ten, the extreme values, signed zeros, NaN and infinities. All generators are seeded, so results are reproducible.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class NumberFormatterTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        N_DRAWS = 1000000;
+
+    private final byte []           buffer = new byte[NumberFormatter.MAX_DOUBLE_LENGTH];
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void intsMatchIntegerToString() {
+        int [] edgeCases = {0, 1, -1, 9, 10, -10, 999999999, 1000000000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : edgeCases) assertEquals(Integer.toString(value), formatInt(value));
+        Random rand = new Random(1);
+        for (int i = 0; i < N_DRAWS; i++) {
+            int value = rand.nextInt();
+            assertEquals(Integer.toString(value), formatInt(value));
+        }
+    }
+
+    @Test
+    public void randomBits() {
+        Random rand = new Random(2);
+        for (int i = 0; i < N_DRAWS; i++) checkDouble(Double.longBitsToDouble(rand.nextLong()));
+    }
+
+    @Test
+    public void randomModerateValues() {
+        // Values of the magnitude typically found in the output files, including the switch to scientific notation
+        Random rand = new Random(3);
+        for (int i = 0; i < N_DRAWS; i++) checkDouble(rand.nextDouble()*Math.pow(10.0, rand.nextInt(20) - 10));
+    }
+
+    @Test
+    public void subnormals() {
+        Random rand = new Random(4);
+        for (long bits = 1; bits < 10000; bits++) checkDouble(Double.longBitsToDouble(bits));
+        for (int i = 0; i < N_DRAWS; i++) checkDouble(Double.longBitsToDouble(rand.nextLong() & 0x000FFFFFFFFFFFFFL));
+        checkDouble(Math.nextDown(Double.MIN_NORMAL));
+    }
+
+    @Test
+    public void powersOfTen() {
+        for (int e = -323; e <= 308; e++) {
+            double value = Double.parseDouble("1E" + e);
+            checkDouble(value);
+            checkDouble(Math.nextUp(value));
+            checkDouble(Math.nextDown(value));
+        }
+        // Double.toString prints 9.999999999999999E22 here
+        assertEquals("1.0E23", formatDouble(1.0E23));
+    }
+
+    @Test
+    public void edgeCases() {
+        double [] values = {Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE, 0.0, -0.0,
+                1.0, -1.0, 0.1, 0.001, Math.nextDown(0.001), 9999999.0, 1.0E7, Math.nextDown(1.0E7), 2.0E-3,
+                2.82879384806159E17, 1.0/3.0, Math.PI, Math.E};
+        for (double value : values) checkDouble(value);
+        // Double.toString prints 4.9E-324 here, with one more digit than needed
+        assertEquals("5.0E-324", formatDouble(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157E308", formatDouble(Double.MAX_VALUE));
+        assertEquals("0.0", formatDouble(0.0));
+        assertEquals("-0.0", formatDouble(-0.0));
+        assertEquals("NaN", formatDouble(Double.NaN));
+        assertEquals("NaN", formatDouble(Double.longBitsToDouble(0xFFF8000000000001L)));
+        assertEquals("Infinity", formatDouble(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", formatDouble(Double.NEGATIVE_INFINITY));
+    }
+
+    //-------------------//
+    //----- Helpers -----//
+    //-------------------//
+
+    /**
+     * Check that the formatted value reads back as exactly the same bits, and that it is either identical to
+     * Double.toString or, with the same layout, has fewer significant digits or as many digits but closer to the
+     * exact binary value
+     */
+    private void checkDouble(double value) {
+        String formatted = formatDouble(value);
+        String expected = Double.toString(value);
+        if (Double.isNaN(value)) {
+            assertEquals(expected, formatted);
+            return;
+        }
+        assertEquals("Round trip of " + expected + " written as " + formatted,
+                Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(Double.parseDouble(formatted)));
+        if (!formatted.equals(expected)) {
+            assertEquals("Layout of " + expected + " written as " + formatted,
+                    expected.contains("E"), formatted.contains("E"));
+            int digits = significantDigits(formatted);
+            int expectedDigits = significantDigits(expected);
+            assertTrue("Double.toString gives " + expected + " but the formatter gives the longer " + formatted,
+                    digits <= expectedDigits);
+            if (digits == expectedDigits) {
+                // With as many digits, the formatter must pick the decimal closest to the exact binary value
+                BigDecimal exact = new BigDecimal(value);
+                assertTrue("Double.toString gives " + expected + " but the formatter gives the farther " + formatted,
+                        new BigDecimal(formatted).subtract(exact).abs()
+                                .compareTo(new BigDecimal(expected).subtract(exact).abs()) <= 0);
+            }
+        }
+    }
+
+    private String formatDouble(double value) {
+        int length = NumberFormatter.appendDouble(buffer, 0, value);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    private String formatInt(int value) {
+        int length = NumberFormatter.appendInt(buffer, 0, value);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Number of significant digits of a decimal string, ignoring sign, decimal point, exponent, and leading and
+     * trailing zeros
+     */
+    private static int significantDigits(String s) {
+        int end = s.indexOf('E');
+        String digits = ((end < 0) ? s : s.substring(0, end)).replace("-", "").replace(".", "");
+        int first = 0;
+        int last = digits.length() - 1;
+        while (first < last && digits.charAt(first) == '0') first++;
+        while (last > first && digits.charAt(last) == '0') last--;
+        return last - first + 1;
+    }
+}
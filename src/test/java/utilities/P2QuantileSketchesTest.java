@@ -0,0 +1,114 @@
+package utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.Test;
+
+/**************************************************************************************************
+ * Tests of the P-square quantile estimators: exact quantiles, by linear interpolation between order
+ * statistics, up to five observations, and estimates close to the exact sample quantiles for many
+ * observations, for several probabilities and distributions, and with several independent
+ * estimators fed at once. All generators are seeded, so results are reproducible.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class P2QuantileSketchesTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        N_DRAWS = 100000;
+    private static final double []  P = {0.0, 0.05, 0.25, 0.5, 0.75, 0.9, 1.0};
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void noObservations() {
+        assertTrue(Double.isNaN(new P2QuantileSketches(1, 0.5).getQuantile(0)));
+    }
+
+    @Test
+    public void exactUpToFiveObservations() {
+        double [] values = {3.0, -1.0, 7.5, 2.0, 2.0};
+        for (double p : P) {
+            P2QuantileSketches sketches = new P2QuantileSketches(1, p);
+            for (int n = 1; n <= values.length; n++) {
+                sketches.add(0, values[n - 1]);
+                assertEquals("p = " + p + " with " + n + " observations",
+                        exactQuantile(Arrays.copyOf(values, n), p), sketches.getQuantile(0), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void uniformManyObservations() {
+        for (double p : P) {
+            RandomGenerator rng = new MersenneTwister(1);
+            double [] values = new double[N_DRAWS];
+            for (int i = 0; i < N_DRAWS; i++) values[i] = rng.nextDouble();
+            checkManyObservations(values, p, 0.005);
+        }
+    }
+
+    @Test
+    public void skewedManyObservations() {
+        // Log-normal values, similar in shape to the distributions of prices and incomes in the model output
+        for (double p : P) {
+            RandomGenerator rng = new MersenneTwister(2);
+            double [] values = new double[N_DRAWS];
+            for (int i = 0; i < N_DRAWS; i++) values[i] = Math.exp(rng.nextGaussian());
+            // Tolerance relative to the exact quantile, except for the extremes, which are tracked exactly
+            double tolerance = (p == 0.0 || p == 1.0) ? 0.0 : 0.02*exactQuantile(values, p);
+            checkManyObservations(values, p, tolerance);
+        }
+    }
+
+    @Test
+    public void independentSketches() {
+        // Interleaved observations of several estimators must give the same results as separate estimators
+        int nSketches = 4;
+        P2QuantileSketches sketches = new P2QuantileSketches(nSketches, 0.9);
+        P2QuantileSketches [] separate = new P2QuantileSketches[nSketches];
+        for (int s = 0; s < nSketches; s++) separate[s] = new P2QuantileSketches(1, 0.9);
+        RandomGenerator rng = new MersenneTwister(3);
+        for (int i = 0; i < 1000; i++) {
+            for (int s = 0; s < nSketches; s++) {
+                double x = s + rng.nextGaussian();
+                sketches.add(s, x);
+                separate[s].add(0, x);
+            }
+        }
+        for (int s = 0; s < nSketches; s++) assertEquals(separate[s].getQuantile(0), sketches.getQuantile(s), 0.0);
+    }
+
+    //-------------------//
+    //----- Helpers -----//
+    //-------------------//
+
+    private static void checkManyObservations(double [] values, double p, double tolerance) {
+        P2QuantileSketches sketches = new P2QuantileSketches(1, p);
+        for (double x : values) sketches.add(0, x);
+        assertEquals("p = " + p, exactQuantile(values, p), sketches.getQuantile(0), tolerance);
+    }
+
+    /**
+     * Exact quantile of a sample, by linear interpolation between its order statistics
+     */
+    private static double exactQuantile(double [] values, double p) {
+        double [] sorted = values.clone();
+        Arrays.sort(sorted);
+        double position = p*(sorted.length - 1);
+        int i = (int)Math.floor(position);
+        if (i == sorted.length - 1) return sorted[i];
+        return sorted[i] + (position - i)*(sorted[i + 1] - sorted[i]);
+    }
+}
@@ -0,0 +1,104 @@
+package utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**************************************************************************************************
+ * Tests of the Prng backends: outputs of xoroshiro128++, PCG32 and SplittableRandom against the
+ * reference vectors published with their reference implementations, and, for every backend, that
+ * the streams split off from a generator differ from each other and from that of the generator.
+ *
+ * @author daniel, Adrian Carro
+ *
+ *************************************************************************************************/
+public class PrngTest {
+
+    //------------------//
+    //----- Fields -----//
+    //------------------//
+
+    private static final int        N_SPLITS = 8;
+    private static final int        N_DRAWS = 1000;
+
+    //-----------------//
+    //----- Tests -----//
+    //-----------------//
+
+    @Test
+    public void xoroshiro128PlusPlusReferenceVector() {
+        // Reference implementation (xoroshiro128plusplus.c) with state s[0] = 1, s[1] = 2, as also used by the test
+        // suite of the Rust rand_xoshiro crate
+        String [] expected = {"393217", "669327710093319", "1732421326133921491", "11394790081659126983",
+                "9555452776773192676", "3586421180005889563", "1691397964866707553", "10735626796753111697",
+                "15216282715349408991", "14247243556711267923"};
+        Xoroshiro128PlusPlusPrng prng = new Xoroshiro128PlusPlusPrng(1L, 2L);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Output " + i, Long.parseUnsignedLong(expected[i]), prng.nextLong());
+        }
+    }
+
+    @Test
+    public void pcg32ReferenceVector() {
+        // Output of pcg32-demo, from the reference implementation (pcg-c-basic), seeded with initial state 42 and
+        // stream 54
+        int [] expected = {0xa15c02b7, 0x7b47f409, 0xba1d3330, 0x83d2f293, 0xbfa4784b, 0xcbed606e};
+        Pcg32Prng prng = new Pcg32Prng(42L, 54L);
+        for (int i = 0; i < expected.length; i++) assertEquals("Output " + i, expected[i], prng.nextInt());
+    }
+
+    @Test
+    public void splittableRandomReferenceVector() {
+        // Reference SplitMix64 generator (splitmix64.c) seeded with 1234567
+        String [] expected = {"6457827717110365317", "3203168211198807973", "9817491932198370423",
+                "4593380528125082431", "16408922859458223821"};
+        SplittableRandomPrng prng = new SplittableRandomPrng(1234567L);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Output " + i, Long.parseUnsignedLong(expected[i]), prng.nextLong());
+        }
+    }
+
+    @Test
+    public void xoroshiro128PlusPlusSplitContinuesCurrentStream() {
+        // The generator split off continues the stream of its parent, which jumps ahead
+        Xoroshiro128PlusPlusPrng prng = new Xoroshiro128PlusPlusPrng(1L);
+        Xoroshiro128PlusPlusPrng copy = new Xoroshiro128PlusPlusPrng(1L);
+        Prng child = prng.split();
+        for (int i = 0; i < N_DRAWS; i++) assertEquals("Output " + i, copy.nextLong(), child.nextLong());
+        assertNotEquals(copy.nextLong(), prng.nextLong());
+    }
+
+    @Test
+    public void splitStreamsDiffer() {
+        checkSplitStreamsDiffer(new MersenneTwisterPrng(1));
+        checkSplitStreamsDiffer(new Xoroshiro128PlusPlusPrng(1L));
+        checkSplitStreamsDiffer(new Pcg32Prng(1L));
+        checkSplitStreamsDiffer(new SplittableRandomPrng(1L));
+    }
+
+    //-------------------//
+    //----- Helpers -----//
+    //-------------------//
+
+    /**
+     * Split several generators off the given one and check that no 64-bit output is repeated, neither within nor
+     * across the streams of the parent and its children
+     */
+    private static void checkSplitStreamsDiffer(Prng parent) {
+        Prng [] streams = new Prng[N_SPLITS + 1];
+        for (int i = 0; i < N_SPLITS; i++) streams[i] = parent.split();
+        streams[N_SPLITS] = parent;
+        Set<Long> outputs = new HashSet<>();
+        for (Prng stream : streams) {
+            for (int i = 0; i < N_DRAWS; i++) {
+                long output = stream.nextLong();
+                assertTrue(parent.getClass().getSimpleName() + " repeats output " + output, outputs.add(output));
+            }
+        }
+    }
+}